@@ -0,0 +1,33 @@
+package uk.ac.soton.comp1206.benchmark;
+
+import java.io.IOException;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the usual JMH command line options, always adding the gc profiler so the allocation rate
+ * of each benchmark is reported next to its throughput.
+ *
+ * Usage: java -jar benchmarks.jar [JMH options] [benchmark name patterns]
+ */
+public class BenchmarkMain {
+  public static void main(String[] args) throws CommandLineOptionException, RunnerException, IOException {
+    var commandLine = new CommandLineOptions(args);
+    if (commandLine.shouldHelp()) {
+      commandLine.showHelp();
+      return;
+    }
+    if (commandLine.shouldList() || commandLine.shouldListWithParams() || commandLine.shouldListProfilers()
+        || commandLine.shouldListResultFormats()) {
+      //Listing is left to the standard entry point
+      org.openjdk.jmh.Main.main(args);
+      return;
+    }
+    var options = new OptionsBuilder().parent(commandLine).addProfiler(GCProfiler.class).build();
+    new Runner(options).run();
+  }
+}
@@ -0,0 +1,69 @@
+package uk.ac.soton.comp1206.benchmark;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.soton.comp1206.component.GameBlockCoordinate;
+
+/**
+ * Measures the hashing and comparing of coordinates in a HashSet, which is how cleared blocks are handed to the UI
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoordinateBenchmark {
+  @Param({"5", "16", "64", "256"})
+  public int size;
+
+  private Set<GameBlockCoordinate> board;
+  private GameBlockCoordinate[] probes;
+  private int next;
+
+  @Setup
+  public void setup() {
+    board = new HashSet<>();
+    for (int y = 0; y < size; y++) {
+      for (int x = 0; x < size; x++) board.add(new GameBlockCoordinate(x, y));
+    }
+
+    //Half of the probes are off the board, so both hits and misses are compared
+    probes = new GameBlockCoordinate[GridBenchmark.SAMPLES];
+    for (int i = 0; i < probes.length; i++) {
+      probes[i] = new GameBlockCoordinate(i * 7 % (size * 2), i * 13 % size);
+    }
+  }
+
+  /**
+   * Builds the set of blocks cleared by one row and one column crossing in the middle, as Game does after each clear
+   * @return The set
+   */
+  @Benchmark
+  public Set<GameBlockCoordinate> buildClearedSet() {
+    int centre = size / 2;
+    var cleared = new HashSet<GameBlockCoordinate>(size * 4);
+    for (int i = 0; i < size; i++) {
+      cleared.add(new GameBlockCoordinate(i, centre));
+      cleared.add(new GameBlockCoordinate(centre, i));
+    }
+    return cleared;
+  }
+
+  @Benchmark
+  public boolean contains() {
+    return board.contains(probes[next++ & (probes.length - 1)]);
+  }
+}
@@ -0,0 +1,88 @@
+package uk.ac.soton.comp1206.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.soton.comp1206.game.GameEngine;
+import uk.ac.soton.comp1206.game.Grid;
+
+/**
+ * Measures a whole placement through the engine, which plays the piece, looks for full lines around it, scores and
+ * deals the next piece. Only Dots are dealt, so every placement is a single block. The check for a dead board after
+ * each deal can be turned off, to see the cost of line detection on its own.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineBenchmark {
+  /**
+   * The piece number of the Dot
+   */
+  private static final int DOT = 3;
+
+  @Param({"5", "16", "64", "256"})
+  public int size;
+
+  @Param({"false", "true"})
+  public boolean boardChecks;
+
+  private GameEngine engine;
+  private Grid grid;
+  private int centre;
+
+  @Setup
+  public void setup() {
+    engine = new GameEngine(size, size, () -> DOT);
+    engine.setBoardChecks(boardChecks);
+    engine.start();
+    grid = engine.getGrid();
+    centre = size / 2;
+    fillCross();
+  }
+
+  /**
+   * Fills the middle row and column apart from the block where they cross
+   */
+  private void fillCross() {
+    for (int i = 0; i < size; i++) {
+      if (i == centre) continue;
+      grid.set(i, centre, 1);
+      grid.set(centre, i, 1);
+    }
+  }
+
+  /**
+   * Places a Dot beside the cross, where nothing is completed, then removes it
+   * @return true if the piece was placed
+   */
+  @Benchmark
+  public boolean placeWithoutClear() {
+    boolean placed = engine.place(0, 0);
+    grid.set(0, 0, 0);
+    return placed;
+  }
+
+  /**
+   * Places a Dot where the cross meets, clearing a row and a column at once, then fills the cross again. The refill
+   * costs a write for each block cleared, so is part of what is measured.
+   * @return true if the piece was placed
+   */
+  @Benchmark
+  public boolean placeWithClear() {
+    boolean placed = engine.place(centre, centre);
+    fillCross();
+    return placed;
+  }
+}
@@ -0,0 +1,56 @@
+package uk.ac.soton.comp1206.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import uk.ac.soton.comp1206.game.GamePiece;
+
+/**
+ * Measures creating and rotating pieces. Pieces do not depend on the board, so there is no board size here.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GamePieceBenchmark {
+  private GamePiece piece;
+  private int next;
+
+  @Setup
+  public void setup() {
+    piece = GamePiece.createPiece(0);
+  }
+
+  @Benchmark
+  public GamePiece createPiece() {
+    return GamePiece.createPiece(next++ % GamePiece.PIECES);
+  }
+
+  @Benchmark
+  public GamePiece createRotatedPiece() {
+    int i = next++;
+    return GamePiece.createPiece(i % GamePiece.PIECES, i & 3);
+  }
+
+  /**
+   * Rotates one piece and reads the blocks of the new rotation, as the piece board does on every rotation
+   * @param blackhole Consumes the blocks
+   */
+  @Benchmark
+  public void rotate(Blackhole blackhole) {
+    piece.rotate();
+    blackhole.consume(piece.getMask());
+    blackhole.consume(piece.getBlocks());
+  }
+}
@@ -0,0 +1,113 @@
+package uk.ac.soton.comp1206.benchmark;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.Grid;
+
+/**
+ * Measures checking and playing pieces on a half filled grid. Each call works through a fixed list of random pieces
+ * and centres, so the branches taken are not the same every time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GridBenchmark {
+  /**
+   * The number of pieces and centres cycled through
+   */
+  static final int SAMPLES = 1024;
+
+  @Param({"5", "16", "64", "256"})
+  public int size;
+
+  private Grid grid;
+  private GamePiece[] pieces;
+  private int[] xs;
+  private int[] ys;
+
+  /**
+   * The pieces which fit where they are aimed, for playPiece
+   */
+  private GamePiece[] fitting;
+  private int[] fittingX;
+  private int[] fittingY;
+  private int next;
+
+  @Setup
+  public void setup() {
+    var random = new SplittableRandom(1);
+    grid = new Grid(size, size);
+    for (int y = 0; y < size; y++) {
+      for (int x = 0; x < size; x++) {
+        if (random.nextBoolean()) grid.set(x, y, 1 + random.nextInt(GamePiece.PIECES));
+      }
+    }
+
+    pieces = new GamePiece[SAMPLES];
+    xs = new int[SAMPLES];
+    ys = new int[SAMPLES];
+    for (int i = 0; i < SAMPLES; i++) {
+      pieces[i] = GamePiece.createPiece(random.nextInt(GamePiece.PIECES), random.nextInt(GamePiece.ROTATIONS));
+      xs[i] = random.nextInt(size);
+      ys[i] = random.nextInt(size);
+    }
+
+    //Only the Dot is sure to fit somewhere on a half filled board, so it is used wherever a bigger piece is not
+    fitting = new GamePiece[SAMPLES];
+    fittingX = new int[SAMPLES];
+    fittingY = new int[SAMPLES];
+    for (int i = 0; i < SAMPLES; i++) {
+      var piece = pieces[i];
+      int x;
+      int y;
+      do {
+        x = random.nextInt(size);
+        y = random.nextInt(size);
+        if (!grid.canPlayPiece(piece, x, y)) piece = GamePiece.createPiece(3);
+      } while (!grid.canPlayPiece(piece, x, y));
+      fitting[i] = piece;
+      fittingX[i] = x;
+      fittingY[i] = y;
+    }
+  }
+
+  @Benchmark
+  public boolean canPlayPiece() {
+    int i = next++ & (SAMPLES - 1);
+    return grid.canPlayPiece(pieces[i], xs[i], ys[i]);
+  }
+
+  /**
+   * Plays a piece where it fits, then empties its blocks again so the board stays the same
+   * @return The value of the centre block, so the work is not eliminated
+   */
+  @Benchmark
+  public int playPiece() {
+    int i = next++ & (SAMPLES - 1);
+    var piece = fitting[i];
+    int x = fittingX[i];
+    int y = fittingY[i];
+    grid.playPiece(piece, x, y);
+    int played = grid.get(x, y);
+    for (int bits = piece.getMask(); bits != 0; bits &= bits - 1) {
+      int bit = Integer.numberOfTrailingZeros(bits);
+      grid.set(x + bit % 3 - 1, y + bit / 3 - 1, 0);
+    }
+    return played;
+  }
+}
@@ -0,0 +1,259 @@
+package uk.ac.soton.comp1206.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import javafx.util.Pair;
+import org.javatuples.Triplet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.soton.comp1206.event.CommunicationsListener;
+import uk.ac.soton.comp1206.network.MessageParser;
+import uk.ac.soton.comp1206.network.MessageRelay;
+
+/**
+ * Measures reading and relaying server messages, in the formats the server sends. The size is the number of players,
+ * channels or scores in each list, and the length of each chat message, from a quiet lobby up to 10,000 players.
+ *
+ * The relay is set up with the listeners a multiplayer game has at once: the lobby, the chat box and the game itself.
+ * Each listener parses its message as the real one does, but keeps the result instead of handing it to JavaFX.
+ *
+ * Every parse and relay has a baseline doing the same work the way it was done before MessageParser and MessageRelay:
+ * the split benchmarks cut each payload up with String.split, and the fan out benchmarks hand every message to every
+ * listener, which picks out its commands with a chain of startsWith checks.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageBenchmark {
+  @Param({"10", "1000", "10000"})
+  public int size;
+
+  private String scores;
+  private String hiscores;
+  private String channels;
+  private String users;
+  private String piece;
+  private String chat;
+
+  private MessageRelay relay;
+  private List<CommunicationsListener> listeners;
+  private Object received;
+
+  @Setup
+  public void setup() {
+    var random = new SplittableRandom(1);
+    var scoreLines = new StringBuilder("SCORES ");
+    var hiscoreLines = new StringBuilder("HISCORES ");
+    var channelLines = new StringBuilder("CHANNELS ");
+    var userLines = new StringBuilder("USERS ");
+    for (int i = 0; i < size; i++) {
+      if (i > 0) {
+        scoreLines.append('\n');
+        hiscoreLines.append('\n');
+        channelLines.append('\n');
+        userLines.append('\n');
+      }
+      scoreLines.append("player").append(i).append(':').append(random.nextInt(100_000)).append(':')
+          .append(random.nextInt(4));
+      hiscoreLines.append("player").append(i).append(':').append(random.nextInt(100_000));
+      channelLines.append("channel ").append(i);
+      userLines.append("player").append(i);
+    }
+    scores = scoreLines.toString();
+    hiscores = hiscoreLines.toString();
+    channels = channelLines.toString();
+    users = userLines.toString();
+    piece = "PIECE " + random.nextInt(15);
+    var text = new StringBuilder("MSG player1:");
+    for (int i = 0; i < size; i++) text.append((char) ('a' + random.nextInt(26)));
+    chat = text.toString();
+
+    relay = new MessageRelay();
+    relay.addListener("CHANNELS", message -> received = MessageParser.parseLines(MessageParser.getPayload(message)));
+    relay.addListener("JOIN", message -> received = MessageParser.getPayload(message));
+    relay.addListener("USERS", message -> received = MessageParser.parseLines(MessageParser.getPayload(message)));
+    relay.addListener("HOST", message -> received = message);
+    relay.addListener("PARTED", message -> received = message);
+    relay.addListener("START", message -> received = message);
+    relay.addListener("ERROR", message -> received = MessageParser.getPayload(message));
+    relay.addListener("MSG", message -> received = MessageParser.parseChat(MessageParser.getPayload(message)));
+    relay.addListener("NICK", message -> received = message);
+    relay.addListener("PIECE", message -> received = MessageParser.parsePiece(MessageParser.getPayload(message)));
+    relay.addListener("SCORES", message -> received = MessageParser.parseScores(MessageParser.getPayload(message)));
+    relay.addListener("SCORE", message -> received = message);
+
+    listeners = new ArrayList<>();
+    listeners.add(message -> {
+      if (message.startsWith("CHANNELS ")) {
+        received = message.substring(9).split("\n");
+      } else if (message.startsWith("JOIN ")) {
+        received = message.substring(5);
+      } else if (message.startsWith("USERS ")) {
+        received = message.substring(6).split("\n");
+      } else if (message.equals("HOST")) {
+        received = message;
+      } else if (message.equals("PARTED")) {
+        received = message;
+      } else if (message.equals("START")) {
+        received = message;
+      } else if (message.startsWith("ERROR ")) {
+        received = message.substring(6);
+      }
+    });
+    listeners.add(message -> {
+      if (message.startsWith("MSG ")) {
+        received = message.substring(4).split(":");
+      } else if (message.startsWith("NICK ")) {
+        received = message;
+      }
+    });
+    listeners.add(message -> {
+      if (message.startsWith("PIECE ")) {
+        received = Integer.parseInt(message.substring(6));
+      } else if (message.startsWith("SCORES ")) {
+        received = splitScores(message);
+      } else if (message.startsWith("SCORE ")) {
+        received = message;
+      }
+    });
+  }
+
+  /**
+   * Parses SCORES the way it was done before MessageParser, by splitting into lines and then fields
+   * @param message The message
+   * @return The scores
+   */
+  private static List<Triplet<String, Integer, String>> splitScores(String message) {
+    var result = new ArrayList<Triplet<String, Integer, String>>();
+    for (var line : message.substring(7).split("\n")) {
+      var fields = line.split(":");
+      result.add(new Triplet<>(fields[0], Integer.parseInt(fields[1]), fields[2]));
+    }
+    return result;
+  }
+
+  /**
+   * Relays a message the way it was done before MessageRelay, by handing it to every listener
+   * @param message The message
+   */
+  private void fanOut(String message) {
+    for (var listener : listeners) {
+      listener.receiveCommunication(message);
+    }
+  }
+
+  @Benchmark
+  public List<Triplet<String, Integer, String>> parseScores() {
+    return MessageParser.parseScores(MessageParser.getPayload(scores));
+  }
+
+  @Benchmark
+  public List<Triplet<String, Integer, String>> splitScores() {
+    return splitScores(scores);
+  }
+
+  @Benchmark
+  public List<Pair<String, Integer>> parseHiscores() {
+    return MessageParser.parseHiscores(MessageParser.getPayload(hiscores));
+  }
+
+  @Benchmark
+  public List<Pair<String, Integer>> splitHiscores() {
+    var result = new ArrayList<Pair<String, Integer>>();
+    for (var line : hiscores.substring(9).split("\n")) {
+      var fields = line.split(":");
+      result.add(new Pair<>(fields[0], Integer.valueOf(fields[1])));
+    }
+    return result;
+  }
+
+  @Benchmark
+  public String[] parseChannels() {
+    return MessageParser.parseLines(MessageParser.getPayload(channels));
+  }
+
+  @Benchmark
+  public String[] splitChannels() {
+    return channels.substring(9).split("\n");
+  }
+
+  @Benchmark
+  public String[] parseUsers() {
+    return MessageParser.parseLines(MessageParser.getPayload(users));
+  }
+
+  @Benchmark
+  public String[] splitUsers() {
+    return users.substring(6).split("\n");
+  }
+
+  @Benchmark
+  public int parsePiece() {
+    return MessageParser.parsePiece(MessageParser.getPayload(piece));
+  }
+
+  @Benchmark
+  public int splitPiece() {
+    return Integer.parseInt(piece.substring(6));
+  }
+
+  @Benchmark
+  public String[] parseChat() {
+    return MessageParser.parseChat(MessageParser.getPayload(chat));
+  }
+
+  @Benchmark
+  public String[] splitChat() {
+    return chat.substring(4).split(":");
+  }
+
+  @Benchmark
+  public Object relayScores() {
+    relay.relay(scores);
+    return received;
+  }
+
+  @Benchmark
+  public Object relayPiece() {
+    relay.relay(piece);
+    return received;
+  }
+
+  @Benchmark
+  public Object relayChat() {
+    relay.relay(chat);
+    return received;
+  }
+
+  @Benchmark
+  public Object fanOutScores() {
+    fanOut(scores);
+    return received;
+  }
+
+  @Benchmark
+  public Object fanOutPiece() {
+    fanOut(piece);
+    return received;
+  }
+
+  @Benchmark
+  public Object fanOutChat() {
+    fanOut(chat);
+    return received;
+  }
+}
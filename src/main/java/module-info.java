@@ -1,5 +1,7 @@
 module uk.ac.soton.comp1206 {
     requires java.scripting;
+    requires java.management;
+    requires jdk.jfr;
     requires javafx.controls;
     requires javafx.fxml;
     requires javafx.media;
@@ -14,4 +16,6 @@ module uk.ac.soton.comp1206 {
     exports uk.ac.soton.comp1206.event;
     exports uk.ac.soton.comp1206.component;
     exports uk.ac.soton.comp1206.game;
+    exports uk.ac.soton.comp1206.bot;
+    exports uk.ac.soton.comp1206.metrics;
 }
\ No newline at end of file
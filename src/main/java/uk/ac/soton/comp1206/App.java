@@ -6,6 +6,8 @@ import javafx.stage.Stage;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import uk.ac.soton.comp1206.metrics.FlightRecording;
+import uk.ac.soton.comp1206.metrics.Metrics;
 import uk.ac.soton.comp1206.ui.GameWindow;
 
 /**
@@ -33,6 +35,7 @@ public class App extends Application {
      */
     public static void main(String[] args) {
         logger.info("Starting client");
+        FlightRecording.startIfRequested(args);
         launch();
     }
 
@@ -44,6 +47,7 @@ public class App extends Application {
     public void start(Stage stage) {
         instance = this;
         this.stage = stage;
+        Metrics.get().start();
 
         //Open game window
         openGame();
@@ -67,6 +71,7 @@ public class App extends Application {
      */
     public void shutdown() {
         logger.info("Shutting down");
+        Metrics.get().stop();
         System.exit(0);
     }
 
@@ -0,0 +1,343 @@
+package uk.ac.soton.comp1206.bot;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import uk.ac.soton.comp1206.game.Game;
+import uk.ac.soton.comp1206.game.GameEngine;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.GameSnapshot;
+import uk.ac.soton.comp1206.game.Move;
+import uk.ac.soton.comp1206.game.PieceGenerator;
+
+/**
+ * Searches for the best move in a position. Every placement of the current piece in every rotation is tried, along with
+ * swapping to the following piece first. Each of those is followed by every placement of the piece that would be played
+ * next, and the best resulting position is scored with an Evaluator.
+ *
+ * The first moves are split between the threads of a ForkJoinPool. Each thread plays the moves out on its own copy of
+ * the engine, reused between searches, so the search follows exactly the same rules as the game. The search stops when
+ * its time budget runs out, returning the best move found so far.
+ *
+ * Values are shared through a TranspositionTable. Playing two pieces in either order often reaches the same position,
+ * which is then evaluated once, and asking again about a position already searched, such as after rotating a piece, is
+ * answered from the table.
+ */
+public class BestMoveSolver implements Searcher {
+  /**
+   * Deals pieces to the search engines. The piece after the following piece is unknown, so it is never looked at.
+   */
+  static final PieceGenerator UNKNOWN_PIECES = () -> 0;
+
+  /**
+   * Marks a candidate move as swapping the pieces first
+   */
+  static final int SWAP_FLAG = 1 << 30;
+
+  /**
+   * The number of first moves a task searches itself rather than splitting further
+   */
+  private static final int SPLIT_THRESHOLD = 8;
+
+  /**
+   * Separates the keys of follow up values from the keys of evaluated positions in the transposition table
+   */
+  private static final long FOLLOW_UP_KEY = 0x5bd1e9955bd1e995L;
+
+  private final Evaluator evaluator;
+  private final ForkJoinPool pool;
+  private final TranspositionTable table;
+  private final ThreadLocal<Workspace> workspaces = new ThreadLocal<>();
+
+  /**
+   * Creates a solver using the common ForkJoinPool
+   * @param evaluator Scores the positions reached
+   */
+  public BestMoveSolver(Evaluator evaluator) {
+    this(evaluator, ForkJoinPool.commonPool(), new TranspositionTable());
+  }
+
+  /**
+   * Creates a solver using the given pool and transposition table
+   * @param evaluator Scores the positions reached
+   * @param pool The pool to search in
+   * @param table Remembers values between threads and searches. It must only ever hold values from this evaluator.
+   */
+  public BestMoveSolver(Evaluator evaluator, ForkJoinPool pool, TranspositionTable table) {
+    this.evaluator = evaluator;
+    this.pool = pool;
+    this.table = table;
+  }
+
+  /**
+   * Finds the best move in the current position of a game
+   * @param game The game
+   * @param budgetMillis The time budget in milliseconds
+   * @return The best move found
+   */
+  public SolverResult solve(Game game, long budgetMillis) {
+    return solve(game.getEngine(), budgetMillis);
+  }
+
+  @Override
+  public SolverResult solve(GameEngine engine, long budgetMillis, BooleanSupplier cancelled) {
+    long start = System.nanoTime();
+    long deadline = start + TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+    var root = engine.snapshot();
+
+    int[] candidates = candidates(engine);
+    if (candidates.length == 0) {
+      return new SolverResult(false, SolverResult.NO_MOVE, evaluator.evaluate(engine), 0, 0, true,
+          System.nanoTime() - start);
+    }
+
+    var best = pool.invoke(new Search(root, candidates, 0, candidates.length, deadline, cancelled));
+    int move = candidates[best.index];
+    //Every move is followed by every placement of the piece played next, so a finished search looks two moves ahead
+    return new SolverResult((move & SWAP_FLAG) != 0, move & ~SWAP_FLAG, best.value, best.positions,
+        best.complete ? 2 : 0, best.complete, System.nanoTime() - start);
+  }
+
+  /**
+   * Lists every legal first move, without repeating rotations which give the same shape
+   * @param engine The engine holding the position
+   * @return The packed moves, with SWAP_FLAG set on moves which swap first
+   */
+  static int[] candidates(GameEngine engine) {
+    var grid = engine.getGrid();
+    var current = engine.getCurrentPiece();
+    var following = engine.getFollowingPiece();
+    var legal = new long[grid.getOccupied().length];
+
+    int count = 0;
+    int[] moves = new int[64];
+    for (int swap = 0; swap < 2; swap++) {
+      var piece = swap == 0 ? current : following;
+
+      //Swapping to an identical piece gains nothing
+      if (swap == 1 && (following == null || following.getType() == current.getType())) break;
+
+      for (int rotation = 0; rotation < GamePiece.ROTATIONS; rotation++) {
+        if (!isDistinct(piece.getType(), rotation)) continue;
+        grid.getLegalPlacements(GamePiece.getMask(piece.getType(), rotation), legal);
+        for (int word = 0; word < legal.length; word++) {
+          for (long bits = legal[word]; bits != 0; bits &= bits - 1) {
+            int x = (word % grid.getWordsPerRow()) * 64 + Long.numberOfTrailingZeros(bits);
+            int y = word / grid.getWordsPerRow();
+            if (count == moves.length) moves = Arrays.copyOf(moves, count * 2);
+            moves[count++] = Move.place(x, y, rotation) | (swap == 1 ? SWAP_FLAG : 0);
+          }
+        }
+      }
+    }
+    return Arrays.copyOf(moves, count);
+  }
+
+  /**
+   * Returns whether a rotation of a piece has a different shape to every earlier rotation
+   * @param piece The piece number
+   * @param rotation The rotation
+   * @return true if this rotation needs searching
+   */
+  static boolean isDistinct(int piece, int rotation) {
+    int mask = GamePiece.getMask(piece, rotation);
+    for (int earlier = 0; earlier < rotation; earlier++) {
+      if (GamePiece.getMask(piece, earlier) == mask) return false;
+    }
+    return true;
+  }
+
+  /**
+   * Plays a packed move on an engine
+   * @param engine The engine
+   * @param move The packed move, with SWAP_FLAG set to swap first
+   */
+  static void play(GameEngine engine, int move) {
+    if ((move & SWAP_FLAG) != 0) engine.swap();
+    var piece = engine.getCurrentPiece();
+    piece.rotate(Move.rotation(move) - piece.getRotation());
+    engine.place(Move.x(move & ~SWAP_FLAG), Move.y(move));
+  }
+
+  /**
+   * Returns the engine and buffers belonging to the current thread, sized for the given grid
+   * @param cols The number of columns in the grid being searched
+   * @param rows The number of rows in the grid being searched
+   * @return The workspace
+   */
+  private Workspace workspace(int cols, int rows) {
+    var workspace = workspaces.get();
+    if (workspace == null || workspace.cols != cols || workspace.rows != rows) {
+      workspace = new Workspace(cols, rows);
+      workspaces.set(workspace);
+    }
+    return workspace;
+  }
+
+  /**
+   * The reusable state of a search thread
+   */
+  private static class Workspace {
+    private final int cols;
+    private final int rows;
+    private final GameEngine engine;
+    private final GameSnapshot afterFirst;
+    private final long[] legal;
+
+    private Workspace(int cols, int rows) {
+      this.cols = cols;
+      this.rows = rows;
+      this.engine = new GameEngine(cols, rows, UNKNOWN_PIECES);
+      engine.setBoardChecks(false);
+      this.afterFirst = engine.snapshot();
+      this.legal = new long[engine.getGrid().getOccupied().length];
+    }
+  }
+
+  /**
+   * The best move found by part of the search
+   */
+  private static class Best {
+    private double value = Double.NEGATIVE_INFINITY;
+    private int index;
+    private long positions;
+    private boolean complete = true;
+
+    private Best combine(Best other) {
+      var better = other.value > value || (other.value == value && other.index < index) ? other : this;
+      better.positions = positions + other.positions;
+      better.complete = complete && other.complete;
+      return better;
+    }
+  }
+
+  /**
+   * Searches a range of the first moves, splitting the range between threads when it is large
+   */
+  private class Search extends RecursiveTask<Best> {
+    private final GameSnapshot root;
+    private final int[] candidates;
+    private final int from;
+    private final int to;
+    private final long deadline;
+    private final BooleanSupplier cancelled;
+
+    private Search(GameSnapshot root, int[] candidates, int from, int to, long deadline, BooleanSupplier cancelled) {
+      this.root = root;
+      this.candidates = candidates;
+      this.from = from;
+      this.to = to;
+      this.deadline = deadline;
+      this.cancelled = cancelled;
+    }
+
+    @Override
+    protected Best compute() {
+      if (to - from > SPLIT_THRESHOLD) {
+        int middle = (from + to) >>> 1;
+        var left = new Search(root, candidates, from, middle, deadline, cancelled);
+        left.fork();
+        var right = new Search(root, candidates, middle, to, deadline, cancelled).compute();
+        return left.join().combine(right);
+      }
+
+      var best = new Best();
+      best.index = from;
+      var workspace = workspace(root.getGrid().getCols(), root.getGrid().getRows());
+      var engine = workspace.engine;
+      for (int i = from; i < to; i++) {
+        //The very first move is always searched, so there is a move to return however short the budget
+        if (i > 0 && isOver()) {
+          best.complete = false;
+          break;
+        }
+
+        engine.restore(root);
+        play(engine, candidates[i]);
+        engine.snapshot(workspace.afterFirst);
+
+        double value = followUp(workspace, best);
+        if (value > best.value) {
+          best.value = value;
+          best.index = i;
+        }
+      }
+      return best;
+    }
+
+    /**
+     * Returns whether the search should stop, because the budget has run out or it has been cancelled
+     * @return true to stop
+     */
+    private boolean isOver() {
+      return System.nanoTime() > deadline || cancelled.getAsBoolean();
+    }
+
+    /**
+     * Finds the value of the best placement of the next piece after a first move
+     * @param workspace The workspace holding the position after the first move
+     * @param best Counts the positions evaluated
+     * @return The value of the best follow up, or of the position itself if the next piece cannot be played
+     */
+    private double followUp(Workspace workspace, Best best) {
+      var engine = workspace.engine;
+      long followUpKey = TranspositionTable.key(engine) ^ FOLLOW_UP_KEY;
+      double known = table.get(followUpKey);
+      if (!Double.isNaN(known)) return known;
+
+      var grid = engine.getGrid();
+      int type = engine.getCurrentPiece().getType();
+      double bestValue = Double.NEGATIVE_INFINITY;
+
+      for (int rotation = 0; rotation < GamePiece.ROTATIONS; rotation++) {
+        if (!isDistinct(type, rotation)) continue;
+        grid.getLegalPlacements(GamePiece.getMask(type, rotation), workspace.legal);
+        for (int word = 0; word < workspace.legal.length; word++) {
+          for (long bits = workspace.legal[word]; bits != 0; bits &= bits - 1) {
+            int x = (word % grid.getWordsPerRow()) * 64 + Long.numberOfTrailingZeros(bits);
+            int y = word / grid.getWordsPerRow();
+
+            engine.restore(workspace.afterFirst);
+            play(engine, Move.place(x, y, rotation));
+            bestValue = Math.max(bestValue, evaluate(engine, best));
+          }
+
+          //On large boards a single first move can have thousands of follow ups, so keep to the budget here too
+          if (bestValue != Double.NEGATIVE_INFINITY && isOver()) {
+            best.complete = false;
+            return bestValue;
+          }
+        }
+      }
+
+      if (bestValue == Double.NEGATIVE_INFINITY) {
+        //The next piece has nowhere to go
+        engine.restore(workspace.afterFirst);
+        bestValue = evaluate(engine, best);
+      }
+
+      //Only a follow up searched in full is remembered
+      table.put(followUpKey, bestValue);
+      return bestValue;
+    }
+
+    /**
+     * Scores a position, or looks it up if it has been scored before
+     * @param engine The engine holding the position
+     * @param best Counts the positions evaluated
+     * @return The value of the position
+     */
+    private double evaluate(GameEngine engine, Best best) {
+      long key = TranspositionTable.key(engine);
+      double value = table.get(key);
+      if (Double.isNaN(value)) {
+        value = evaluator.evaluate(engine);
+        table.put(key, value);
+        best.positions++;
+      }
+      return value;
+    }
+  }
+}
@@ -0,0 +1,48 @@
+package uk.ac.soton.comp1206.bot;
+
+import java.util.function.BooleanSupplier;
+import uk.ac.soton.comp1206.game.GameEngine;
+
+/**
+ * Answers from an OpeningBook when it holds a finished search of the position, and otherwise searches with another
+ * searcher and saves the move found in the book, unless the book already holds a deeper one. A search cancelled part
+ * way is not saved.
+ */
+public class BookSearcher implements Searcher {
+  private final Searcher searcher;
+  private final OpeningBook book;
+
+  /**
+   * Creates a searcher backed by a book
+   * @param searcher The searcher used for positions not in the book
+   * @param book The book, which should only ever hold moves from this searcher
+   */
+  public BookSearcher(Searcher searcher, OpeningBook book) {
+    this.searcher = searcher;
+    this.book = book;
+  }
+
+  @Override
+  public SolverResult solve(GameEngine engine, long budgetMillis, BooleanSupplier cancelled) {
+    var known = book.lookup(engine, searcher);
+    if (known != null && known.isComplete()) return known;
+
+    var result = searcher.solve(engine, budgetMillis, cancelled);
+    if (cancelled.getAsBoolean()) return result;
+    book.store(engine, searcher, result);
+    return known != null && known.getDepth() > result.getDepth() ? known : result;
+  }
+
+  @Override
+  public long getKind() {
+    return searcher.getKind();
+  }
+
+  /**
+   * Returns the book moves are saved in
+   * @return The book
+   */
+  public OpeningBook getBook() {
+    return book;
+  }
+}
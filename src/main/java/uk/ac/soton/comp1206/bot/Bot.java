@@ -0,0 +1,43 @@
+package uk.ac.soton.comp1206.bot;
+
+import uk.ac.soton.comp1206.game.GameEngine;
+import uk.ac.soton.comp1206.game.Move;
+
+/**
+ * A Bot chooses the move to play in a game. Bots are driven from a single thread, but may search on other threads
+ * while choosing.
+ */
+public interface Bot {
+
+  /**
+   * Chooses the move to play in the position the engine is in
+   * @param engine The engine holding the position, which must not be changed
+   * @return The chosen move
+   */
+  SolverResult chooseMove(GameEngine engine);
+
+  /**
+   * Returns the name of this bot, as shown when comparing bots
+   * @return The name
+   */
+  default String getName() {
+    return getClass().getSimpleName();
+  }
+
+  /**
+   * Plays a chosen move on an engine. When there is no move to play the timer is left to run out instead.
+   * @param engine The engine
+   * @param result The move chosen for the position the engine is in
+   * @return true if a piece was played
+   */
+  static boolean play(GameEngine engine, SolverResult result) {
+    if (!result.hasMove()) {
+      engine.tick();
+      return false;
+    }
+    if (result.isSwap()) engine.swap();
+    var piece = engine.getCurrentPiece();
+    piece.rotate(Move.rotation(result.getMove()) - piece.getRotation());
+    return engine.place(Move.x(result.getMove()), Move.y(result.getMove()));
+  }
+}
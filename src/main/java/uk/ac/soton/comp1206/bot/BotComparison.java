@@ -0,0 +1,102 @@
+package uk.ac.soton.comp1206.bot;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import uk.ac.soton.comp1206.game.GameEngine;
+import uk.ac.soton.comp1206.game.RandomPieceGenerator;
+
+/**
+ * Plays headless games with each bot on the standard 5x5 board and prints how strong and how fast each one is. Every
+ * bot plays the same seeded piece sequences, so the scores can be compared game by game. The dead column is the mean
+ * number of times per game a bot left itself with neither piece playable.
+ *
+ * One bot saves its moves in an opening book, kept in a temporary file for the run. Its games only share a handful of
+ * early positions, so once the other bots are done it plays the same games again: every position it finished searching
+ * the first time is then answered from the book, which shows how much faster a move from the book is.
+ *
+ * Usage: BotComparison [games] [max moves] [seed]
+ */
+public class BotComparison {
+  /**
+   * The size of the standard board
+   */
+  private static final int SIZE = 5;
+
+  /**
+   * Compare the bots
+   * @param args The number of games, the maximum moves in a game and the seed, all optional
+   * @throws IOException if the temporary book file cannot be created
+   */
+  public static void main(String[] args) throws IOException {
+    int games = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+    int maxMoves = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+    long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+
+    var evaluator = WeightedEvaluator.load();
+    var bookFile = Files.createTempFile("bots", ".book");
+    bookFile.toFile().deleteOnExit();
+    var book = new OpeningBook(bookFile, evaluator.fingerprint());
+    var bookBot = new SolverBot(new BookSearcher(new ExpectimaxSearcher(evaluator), book), 100);
+    var bots = List.of(
+        new RandomBot(seed),
+        new GreedyBot(evaluator),
+        new SolverBot(new BestMoveSolver(evaluator), 100),
+        new SolverBot(new ExpectimaxSearcher(evaluator), 100),
+        bookBot,
+        new MonteCarloBot(evaluator, MonteCarloBot.Policy.RANDOM, 64, 8, seed),
+        new MonteCarloBot(evaluator, MonteCarloBot.Policy.GREEDY, 16, 8, seed));
+
+    System.out.printf("%d games of up to %d moves on %dx%d, seed %d, %d threads%n", games, maxMoves, SIZE, SIZE, seed,
+        Runtime.getRuntime().availableProcessors());
+    System.out.printf("%-34s %10s %8s %8s %6s %12s %14s%n", "bot", "score", "+/-", "moves", "dead", "moves/s",
+        "positions/s");
+    for (var bot : bots) {
+      compare(bot.getName(), bot, games, maxMoves, seed);
+    }
+    System.out.printf("Opening book: %d hits, %d misses, %d positions%n", book.getHits(), book.getMisses(),
+        book.getEntries());
+
+    compare(bookBot.getName() + " again", bookBot, games, maxMoves, seed);
+    System.out.printf("Opening book: %d hits, %d misses, %d positions%n", book.getHits(), book.getMisses(),
+        book.getEntries());
+  }
+
+  /**
+   * Plays the games with one bot and prints the results
+   * @param name The name to print
+   * @param bot The bot
+   * @param games The number of games
+   * @param maxMoves The maximum number of moves in a game
+   * @param seed The seed of the piece sequences
+   */
+  private static void compare(String name, Bot bot, int games, int maxMoves, long seed) {
+    double total = 0;
+    double squares = 0;
+    long moves = 0;
+    long positions = 0;
+    long thinking = 0;
+    long dead = 0;
+
+    for (int game = 0; game < games; game++) {
+      var engine = new GameEngine(SIZE, SIZE, new RandomPieceGenerator(seed + game));
+      engine.start();
+      for (int move = 0; move < maxMoves && !engine.isLost(); move++) {
+        var result = bot.chooseMove(engine);
+        positions += result.getPositions();
+        thinking += result.getElapsedNanos();
+        Bot.play(engine, result);
+        moves++;
+      }
+      dead += engine.getDeadBoardCount();
+      total += engine.getScore();
+      squares += (double) engine.getScore() * engine.getScore();
+    }
+
+    double mean = total / games;
+    double error = games > 1 ? Math.sqrt((squares - games * mean * mean) / (games - 1) / games) : 0;
+    double seconds = Math.max(thinking, 1) / 1e9;
+    System.out.printf("%-34s %10.1f %8.1f %8.1f %6.2f %12.0f %14.0f%n", name, mean, error,
+        (double) moves / games, (double) dead / games, moves / seconds, positions / seconds);
+  }
+}
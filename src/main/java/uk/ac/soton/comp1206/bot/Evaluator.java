@@ -0,0 +1,17 @@
+package uk.ac.soton.comp1206.bot;
+
+import uk.ac.soton.comp1206.game.GameEngine;
+
+/**
+ * An Evaluator scores a game position for the bots and solvers, where a higher value is a better position to be in.
+ */
+@FunctionalInterface
+public interface Evaluator {
+
+  /**
+   * Scores the position the engine is in
+   * @param engine The engine holding the position, which must not be changed
+   * @return The value of the position
+   */
+  double evaluate(GameEngine engine);
+}
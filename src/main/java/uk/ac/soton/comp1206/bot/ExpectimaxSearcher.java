@@ -0,0 +1,371 @@
+package uk.ac.soton.comp1206.bot;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import uk.ac.soton.comp1206.game.GameEngine;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.GameSnapshot;
+import uk.ac.soton.comp1206.game.Hashing;
+import uk.ac.soton.comp1206.game.Move;
+import uk.ac.soton.comp1206.game.PieceGenerator;
+
+/**
+ * Searches several moves ahead, treating each piece not yet dealt as a chance event. Pieces are dealt uniformly from
+ * the 15 types, so the value of a move is the average, over every piece that could be dealt next, of the value of the
+ * best reply. The current and following pieces are known; every piece after them is averaged over.
+ *
+ * Moves at each decision are ordered by the value of the position they lead straight to, and only the best few are
+ * searched deeper. The value of each chance node is remembered in a TranspositionTable, as many orders of moves reach
+ * the same position. The search deepens one move at a time until its budget runs out, and returns the best move of the
+ * deepest search it finished.
+ *
+ * A searcher holds the engine and buffers it searches with, so it runs one search at a time.
+ */
+public class ExpectimaxSearcher implements Searcher {
+  /**
+   * The deepest search tried by default. On the standard board a search two moves deep takes around 10 ms and rarely
+   * more than 100 ms, while three moves deep takes seconds, far beyond the budgets of bots and hints.
+   */
+  public static final int DEFAULT_MAX_DEPTH = 2;
+
+  /**
+   * The number of moves searched deeper at each decision by default
+   */
+  public static final int DEFAULT_WIDTH = 6;
+
+  /**
+   * The value taken off a position in which the current piece cannot be played, costing a life
+   */
+  private static final double STUCK_VALUE = MonteCarloBot.LIFE_VALUE;
+
+  /**
+   * Separates the keys of best placement values from the keys of chance nodes in the transposition table
+   */
+  private static final long PLACEMENT_KEY = 0x2545f4914f6cdd1dL;
+
+  private final Evaluator evaluator;
+  private final int maxDepth;
+  private final int width;
+  private final TranspositionTable table;
+
+  /**
+   * Decides the piece dealt by each move played during the search
+   */
+  private final Dealer dealer = new Dealer();
+  private GameEngine engine;
+  private Ply[] plies;
+  private GameSnapshot leaf;
+  private long[] legal;
+
+  private long deadline;
+  private BooleanSupplier cancelled;
+  private boolean stopped;
+  private long positions;
+
+  /**
+   * Creates a searcher with the default depth and width
+   * @param evaluator Scores the positions reached
+   */
+  public ExpectimaxSearcher(Evaluator evaluator) {
+    this(evaluator, DEFAULT_MAX_DEPTH, DEFAULT_WIDTH, new TranspositionTable());
+  }
+
+  /**
+   * Creates a searcher
+   * @param evaluator Scores the positions reached
+   * @param maxDepth The deepest search to try, in moves
+   * @param width The number of moves searched deeper at each decision below the root
+   * @param table Remembers the values of chance nodes between searches. It must only ever hold values from a searcher
+   *              with the same evaluator and width.
+   */
+  public ExpectimaxSearcher(Evaluator evaluator, int maxDepth, int width, TranspositionTable table) {
+    if (maxDepth < 1 || width < 1) {
+      throw new IllegalArgumentException("Invalid depth " + maxDepth + " or width " + width);
+    }
+    this.evaluator = evaluator;
+    this.maxDepth = maxDepth;
+    this.width = width;
+    this.table = table;
+  }
+
+  @Override
+  public synchronized SolverResult solve(GameEngine position, long budgetMillis, BooleanSupplier cancelled) {
+    long start = System.nanoTime();
+    this.deadline = start + TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+    this.cancelled = cancelled;
+    this.stopped = false;
+    this.positions = 0;
+    prepare(position);
+
+    var root = plies[0];
+    position.snapshot(root.before);
+    engine.restore(root.before);
+    int count = root.fill(engine);
+    if (count == 0) {
+      return new SolverResult(false, SolverResult.NO_MOVE, evaluator.evaluate(position), 1, 0, true,
+          System.nanoTime() - start);
+    }
+
+    //The first depth always finishes, so there is a move to return however short the budget
+    int bestMove = 0;
+    double bestValue = Double.NEGATIVE_INFINITY;
+    int finished = 0;
+    for (int depth = 1; depth <= maxDepth; depth++) {
+      int iterationMove = 0;
+      double iterationValue = Double.NEGATIVE_INFINITY;
+      int searched = 0;
+      for (int k = 0; k < count; k++) {
+        int i = root.order[k];
+        double value = depth == 1 ? root.values[i] : chance(root, root.moves[i], depth - 1, 1);
+        if (stopped) break;
+        root.values[i] = value;
+        searched++;
+        if (value > iterationValue) {
+          iterationValue = value;
+          iterationMove = root.moves[i];
+        }
+      }
+
+      //Moves are searched best first, so a deeper search cut short still improves on the one before whenever it has
+      //searched the best move so far
+      if (searched > 0) {
+        bestMove = iterationMove;
+        bestValue = iterationValue;
+      }
+      if (stopped) break;
+      finished = depth;
+
+      //Search the best moves first next time, so the table is filled in the most useful order
+      root.sort(count);
+      if (isOver()) break;
+    }
+
+    return new SolverResult((bestMove & BestMoveSolver.SWAP_FLAG) != 0, bestMove & ~BestMoveSolver.SWAP_FLAG,
+        bestValue, positions, finished, finished == maxDepth, System.nanoTime() - start);
+  }
+
+  @Override
+  public long getKind() {
+    return Hashing.mix(Searcher.super.getKind() * 31 + maxDepth) ^ width;
+  }
+
+  /**
+   * Returns the depth of the deepest search tried
+   * @return The maximum depth in moves
+   */
+  public int getMaxDepth() {
+    return maxDepth;
+  }
+
+  /**
+   * Finds the value of the best move in the position held in a ply's snapshot, searching at least two moves ahead
+   * @param ply The ply, whose snapshot holds the position
+   * @param depth The number of moves left to search, at least 2
+   * @param next The index of the ply below
+   * @return The value of the best move
+   */
+  private double decision(Ply ply, int depth, int next) {
+    engine.restore(ply.before);
+    int count = ply.fill(engine);
+    if (count == 0) {
+      engine.restore(ply.before);
+      return evaluate() - STUCK_VALUE;
+    }
+
+    ply.sort(count);
+    double best = Double.NEGATIVE_INFINITY;
+    for (int k = 0; k < Math.min(width, count) && !stopped; k++) {
+      best = Math.max(best, chance(ply, ply.moves[ply.order[k]], depth - 1, next));
+    }
+    return best;
+  }
+
+  /**
+   * Finds the value of playing a move, averaged over every piece which could be dealt by it
+   * @param ply The ply whose snapshot holds the position before the move
+   * @param move The packed move, with SWAP_FLAG set to swap first
+   * @param depth The number of moves left to search after this one, at least 1
+   * @param next The index of the ply below
+   * @return The average value, or anything at all if the search has stopped
+   */
+  private double chance(Ply ply, int move, int depth, int next) {
+    if (isOver()) {
+      stopped = true;
+      return 0;
+    }
+
+    //Every piece dealt leads to a position with the same key apart from the following piece
+    engine.restore(ply.before);
+    dealer.piece = 0;
+    BestMoveSolver.play(engine, move);
+    long key = TranspositionTable.key(engine) ^ Hashing.mix(depth);
+    double known = table.get(key);
+    if (!Double.isNaN(known)) return known;
+
+    double total = 0;
+    if (depth == 1) {
+      //With one move left the choice is to play the current piece, which is the same whatever is dealt, or to swap
+      //to the piece dealt and play that
+      double current = bestPlacement();
+      for (int piece = 0; piece < GamePiece.PIECES; piece++) {
+        engine.restore(ply.before);
+        dealer.piece = piece;
+        BestMoveSolver.play(engine, move);
+        engine.swap();
+        total += Math.max(current, bestPlacement());
+      }
+    } else {
+      var below = plies[next];
+      for (int piece = 0; piece < GamePiece.PIECES; piece++) {
+        engine.restore(ply.before);
+        dealer.piece = piece;
+        BestMoveSolver.play(engine, move);
+        engine.snapshot(below.before);
+        total += decision(below, depth, next + 1);
+        if (stopped) return 0;
+      }
+    }
+
+    double value = total / GamePiece.PIECES;
+    table.put(key, value);
+    return value;
+  }
+
+  /**
+   * Finds the value of the best placement of the current piece, without swapping. The engine is left in an unspecified
+   * position.
+   * @return The value of the best placement, or of the position less the cost of a life if the piece cannot be played
+   */
+  private double bestPlacement() {
+    long key = TranspositionTable.key(engine) ^ PLACEMENT_KEY;
+    double known = table.get(key);
+    if (!Double.isNaN(known)) return known;
+
+    var grid = engine.getGrid();
+    int type = engine.getCurrentPiece().getType();
+    engine.snapshot(leaf);
+    double best = Double.NEGATIVE_INFINITY;
+    for (int rotation = 0; rotation < GamePiece.ROTATIONS; rotation++) {
+      if (!BestMoveSolver.isDistinct(type, rotation)) continue;
+      grid.getLegalPlacements(GamePiece.getMask(type, rotation), legal);
+      for (int word = 0; word < legal.length; word++) {
+        for (long bits = legal[word]; bits != 0; bits &= bits - 1) {
+          int x = (word % grid.getWordsPerRow()) * 64 + Long.numberOfTrailingZeros(bits);
+          engine.restore(leaf);
+          BestMoveSolver.play(engine, Move.place(x, word / grid.getWordsPerRow(), rotation));
+          best = Math.max(best, evaluate());
+        }
+      }
+    }
+    if (best == Double.NEGATIVE_INFINITY) {
+      engine.restore(leaf);
+      best = evaluate() - STUCK_VALUE;
+    }
+
+    table.put(key, best);
+    return best;
+  }
+
+  /**
+   * Scores the position in the engine
+   * @return The value
+   */
+  private double evaluate() {
+    positions++;
+    return evaluator.evaluate(engine);
+  }
+
+  /**
+   * Returns whether the search should stop, because the budget has run out or it has been cancelled
+   * @return true to stop
+   */
+  private boolean isOver() {
+    return System.nanoTime() > deadline || cancelled.getAsBoolean();
+  }
+
+  /**
+   * Creates the engine and plies, if they do not already fit the grid being searched
+   * @param position The engine being searched
+   */
+  private void prepare(GameEngine position) {
+    var grid = position.getGrid();
+    if (engine != null && engine.getGrid().getCols() == grid.getCols()
+        && engine.getGrid().getRows() == grid.getRows()) {
+      return;
+    }
+    engine = new GameEngine(grid.getCols(), grid.getRows(), dealer);
+    engine.setBoardChecks(false);
+    plies = new Ply[maxDepth + 1];
+    for (int i = 0; i < plies.length; i++) plies[i] = new Ply(engine);
+    leaf = engine.snapshot();
+    legal = new long[engine.getGrid().getOccupied().length];
+  }
+
+  /**
+   * Deals whichever piece the search is currently averaging over
+   */
+  private static class Dealer implements PieceGenerator {
+    private int piece;
+
+    @Override
+    public int next() {
+      return piece;
+    }
+  }
+
+  /**
+   * The reusable state of one level of the search: the position, and the moves from it with the value each leads
+   * straight to
+   */
+  private class Ply {
+    private final GameSnapshot before;
+    private int[] moves = new int[64];
+    private double[] values = new double[64];
+    private int[] order = new int[64];
+
+    private Ply(GameEngine engine) {
+      this.before = engine.snapshot();
+    }
+
+    /**
+     * Lists every legal move from the position in the snapshot, scoring the position each leads straight to
+     * @param engine The search engine, left in an unspecified position
+     * @return The number of moves
+     */
+    private int fill(GameEngine engine) {
+      int[] candidates = BestMoveSolver.candidates(engine);
+      int count = candidates.length;
+      if (moves.length < count) {
+        moves = new int[count];
+        values = new double[count];
+        order = new int[count];
+      }
+      for (int i = 0; i < count; i++) {
+        moves[i] = candidates[i];
+        order[i] = i;
+        engine.restore(before);
+        dealer.piece = 0;
+        BestMoveSolver.play(engine, candidates[i]);
+        values[i] = evaluate();
+      }
+      return count;
+    }
+
+    /**
+     * Orders the moves from the highest value to the lowest
+     * @param count The number of moves
+     */
+    private void sort(int count) {
+      //Insertion sort, as the moves are few and often nearly sorted already
+      for (int i = 1; i < count; i++) {
+        int index = order[i];
+        int j = i - 1;
+        while (j >= 0 && values[order[j]] < values[index]) {
+          order[j + 1] = order[j];
+          j--;
+        }
+        order[j + 1] = index;
+      }
+    }
+  }
+}
@@ -0,0 +1,64 @@
+package uk.ac.soton.comp1206.bot;
+
+import uk.ac.soton.comp1206.game.GameEngine;
+import uk.ac.soton.comp1206.game.GameSnapshot;
+
+/**
+ * Plays the move which leads straight to the best scoring position, without looking any further ahead. The positions
+ * are tried on a copy of the engine kept between moves, so a GreedyBot must only be used from one thread at a time.
+ */
+public class GreedyBot implements Bot {
+  private final Evaluator evaluator;
+  private GameEngine copy;
+  private GameSnapshot root;
+
+  /**
+   * Creates a bot scoring positions with the default WeightedEvaluator
+   */
+  public GreedyBot() {
+    this(new WeightedEvaluator());
+  }
+
+  /**
+   * Creates a bot scoring positions with the given evaluator
+   * @param evaluator Scores the positions reached
+   */
+  public GreedyBot(Evaluator evaluator) {
+    this.evaluator = evaluator;
+  }
+
+  @Override
+  public SolverResult chooseMove(GameEngine engine) {
+    long start = System.nanoTime();
+    int[] candidates = BestMoveSolver.candidates(engine);
+    if (candidates.length == 0) {
+      return new SolverResult(false, SolverResult.NO_MOVE, evaluator.evaluate(engine), 1, 0, true,
+          System.nanoTime() - start);
+    }
+
+    var grid = engine.getGrid();
+    if (copy == null || copy.getGrid().getCols() != grid.getCols() || copy.getGrid().getRows() != grid.getRows()) {
+      copy = new GameEngine(grid.getCols(), grid.getRows(), BestMoveSolver.UNKNOWN_PIECES);
+      copy.setBoardChecks(false);
+      root = engine.snapshot();
+    } else {
+      engine.snapshot(root);
+    }
+
+    int best = 0;
+    double bestValue = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < candidates.length; i++) {
+      copy.restore(root);
+      BestMoveSolver.play(copy, candidates[i]);
+      double value = evaluator.evaluate(copy);
+      if (value > bestValue) {
+        bestValue = value;
+        best = i;
+      }
+    }
+
+    int move = candidates[best];
+    return new SolverResult((move & BestMoveSolver.SWAP_FLAG) != 0, move & ~BestMoveSolver.SWAP_FLAG, bestValue,
+        candidates.length, 1, true, System.nanoTime() - start);
+  }
+}
@@ -0,0 +1,198 @@
+package uk.ac.soton.comp1206.bot;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+import uk.ac.soton.comp1206.game.GameEngine;
+import uk.ac.soton.comp1206.game.RandomPieceGenerator;
+
+/**
+ * Tunes the weights of the WeightedEvaluator by self play, using the cross-entropy method: each generation samples a
+ * population of weights around the current mean, plays seeded headless games with a GreedyBot for each, and moves the
+ * mean and spread to those of the best quarter.
+ *
+ * Every candidate in a generation plays the same piece sequences, so they are compared on equal luck, and each
+ * generation plays new sequences, so the weights are not tuned to one set of games. The games of a generation are
+ * spread across every core. The mean weights are written to the weights file after each generation, scaled to the size
+ * of the default weights, ready for the bots and hints to load.
+ *
+ * Usage: HeuristicTuner [generations] [population] [games] [max moves] [seed] [output file]
+ */
+public class HeuristicTuner {
+  /**
+   * The spread of the first generation, relative to the size of the weights
+   */
+  private static final double INITIAL_SPREAD = 0.3;
+
+  /**
+   * The smallest spread allowed, which stops the search collapsing onto one point too early
+   */
+  private static final double MIN_SPREAD = 0.02;
+
+  /**
+   * Tune the weights
+   * @param args The generations, population, games per candidate, maximum moves in a game, seed and output file, all
+   *             optional
+   * @throws IOException if the weights file cannot be written
+   */
+  public static void main(String[] args) throws IOException {
+    int generations = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+    int population = args.length > 1 ? Integer.parseInt(args[1]) : 24;
+    int games = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+    int maxMoves = args.length > 3 ? Integer.parseInt(args[3]) : 100;
+    long seed = args.length > 4 ? Long.parseLong(args[4]) : 1;
+    var output = Path.of(args.length > 5 ? args[5] : WeightedEvaluator.WEIGHTS_FILE);
+
+    var random = new SplittableRandom(seed);
+    int elites = Math.max(2, population / 4);
+    double[] mean = normalise(WeightedEvaluator.DEFAULT_WEIGHTS.clone());
+    double[] spread = new double[WeightedEvaluator.FEATURES];
+    Arrays.fill(spread, INITIAL_SPREAD);
+
+    long totalGames = 0;
+    long totalNanos = 0;
+    System.out.printf("Tuning with %d generations of %d candidates, %d games of up to %d moves each, %d threads%n",
+        generations, population, games, maxMoves, Runtime.getRuntime().availableProcessors());
+
+    for (int generation = 0; generation < generations; generation++) {
+      //The first candidate is always the current mean, so a generation can never lose the best weights
+      double[][] candidates = new double[population][];
+      candidates[0] = mean.clone();
+      for (int c = 1; c < population; c++) {
+        double[] weights = new double[WeightedEvaluator.FEATURES];
+        for (int f = 0; f < weights.length; f++) weights[f] = mean[f] + spread[f] * gaussian(random);
+        candidates[c] = normalise(weights);
+      }
+
+      long start = System.nanoTime();
+      long generationSeed = seed + (long) generation * games;
+      double[] fitness = evaluate(candidates, games, maxMoves, generationSeed);
+      long elapsed = System.nanoTime() - start;
+      totalGames += (long) population * games;
+      totalNanos += elapsed;
+
+      //Move towards the best quarter
+      Integer[] order = new Integer[population];
+      for (int c = 0; c < population; c++) order[c] = c;
+      Arrays.sort(order, (a, b) -> Double.compare(fitness[b], fitness[a]));
+      for (int f = 0; f < WeightedEvaluator.FEATURES; f++) {
+        double sum = 0;
+        for (int e = 0; e < elites; e++) sum += candidates[order[e]][f];
+        double newMean = sum / elites;
+        double variance = 0;
+        for (int e = 0; e < elites; e++) variance += Math.pow(candidates[order[e]][f] - newMean, 2);
+        mean[f] = newMean;
+        spread[f] = Math.max(MIN_SPREAD, Math.sqrt(variance / elites));
+      }
+      normalise(mean);
+
+      double best = fitness[order[0]];
+      double[] tuned = rescale(mean);
+      System.out.printf("Generation %3d: best %9.1f, previous mean %9.1f, %8.1f games/s  %s%n", generation, best,
+          fitness[0], (double) population * games / (elapsed / 1e9), format(tuned));
+      new WeightedEvaluator(tuned).save(output, "Tuned over " + (generation + 1) + " generations of " + population
+          + " candidates, " + games + " games of up to " + maxMoves + " moves each");
+    }
+
+    System.out.printf("Weights written to %s%n", output);
+    System.out.printf("Played %d games in %.1f s, %.1f games/s%n", totalGames, totalNanos / 1e9,
+        totalGames / (totalNanos / 1e9));
+  }
+
+  /**
+   * Plays the games for every candidate in parallel
+   * @param candidates The weights of each candidate
+   * @param games The number of games for each candidate
+   * @param maxMoves The maximum number of moves in a game
+   * @param seed The seed of the first piece sequence
+   * @return The mean score of each candidate
+   */
+  static double[] evaluate(double[][] candidates, int games, int maxMoves, long seed) {
+    double[][] scores = new double[candidates.length][games];
+    IntStream.range(0, candidates.length * games).parallel().forEach(i -> {
+      int candidate = i / games;
+      int game = i % games;
+      var bot = new GreedyBot(new WeightedEvaluator(candidates[candidate]));
+      scores[candidate][game] = play(bot, maxMoves, seed + game);
+    });
+
+    double[] fitness = new double[candidates.length];
+    for (int c = 0; c < candidates.length; c++) fitness[c] = Arrays.stream(scores[c]).average().orElse(0);
+    return fitness;
+  }
+
+  /**
+   * Plays one headless game on the standard board
+   * @param bot The bot to play
+   * @param maxMoves The maximum number of moves
+   * @param seed The seed of the pieces
+   * @return The final score
+   */
+  static int play(Bot bot, int maxMoves, long seed) {
+    var engine = new GameEngine(5, 5, new RandomPieceGenerator(seed));
+    engine.start();
+    for (int move = 0; move < maxMoves && !engine.isLost(); move++) {
+      Bot.play(engine, bot.chooseMove(engine));
+    }
+    return engine.getScore();
+  }
+
+  /**
+   * Scales weights to unit length. The GreedyBot which plays the tuning games only compares evaluations with each
+   * other, so only the direction of the weights changes its moves, and keeping them the same length stops the search
+   * drifting in size. The weights are searched at unit length and scaled back up by {@link #rescale} before saving.
+   * @param weights The weights, scaled in place
+   * @return The weights passed in
+   */
+  private static double[] normalise(double[] weights) {
+    double length = 0;
+    for (double weight : weights) length += weight * weight;
+    length = Math.sqrt(length);
+    if (length > 0) {
+      for (int f = 0; f < weights.length; f++) weights[f] /= length;
+    }
+    return weights;
+  }
+
+  /**
+   * Scales unit length weights to the length of the default weights. Other bots weigh evaluations against fixed
+   * values such as MonteCarloBot.LIFE_VALUE and ExpectimaxSearcher.STUCK_VALUE, which are sized for the default
+   * weights, so saved weights must stay on the same scale.
+   * @param weights The weights, at unit length
+   * @return A scaled copy of the weights
+   */
+  private static double[] rescale(double[] weights) {
+    double length = 0;
+    for (double weight : WeightedEvaluator.DEFAULT_WEIGHTS) length += weight * weight;
+    length = Math.sqrt(length);
+    double[] scaled = weights.clone();
+    for (int f = 0; f < scaled.length; f++) scaled[f] *= length;
+    return scaled;
+  }
+
+  /**
+   * Draws from the standard normal distribution, using the Box-Muller transform
+   * @param random The source of randomness
+   * @return The sample
+   */
+  private static double gaussian(SplittableRandom random) {
+    double u = 1 - random.nextDouble();
+    return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * random.nextDouble());
+  }
+
+  /**
+   * Describes weights along with the names of their features
+   * @param weights The weights
+   * @return The description
+   */
+  private static String format(double[] weights) {
+    var builder = new StringBuilder();
+    for (int f = 0; f < weights.length; f++) {
+      if (f > 0) builder.append(", ");
+      builder.append(WeightedEvaluator.NAMES[f]).append(String.format(" %.3f", weights[f]));
+    }
+    return builder.toString();
+  }
+}
@@ -0,0 +1,168 @@
+package uk.ac.soton.comp1206.bot;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import uk.ac.soton.comp1206.game.GameEngine;
+import uk.ac.soton.comp1206.game.GameSnapshot;
+
+/**
+ * Works out hints in the background. Each request searches a snapshot of the game on a dedicated thread, so the thread
+ * asking for the hint never waits. A new request, or a call to cancel, makes every earlier request stale: a stale
+ * search stops at its next cancel check and never reports its result.
+ *
+ * A calculator can be given a second, deeper searcher. Once the quick hint has been reported, the deeper searcher
+ * keeps working on the same position with a longer budget and reports a refined hint, unless the request goes stale
+ * first.
+ *
+ * A calculator can also be given an OpeningBook, which holds the hints of the searcher with the last word: the refiner
+ * if there is one, and otherwise the quick searcher. A position which that searcher has finished searching before is
+ * answered from the book straight away, with no search and no refined hint. For any other position the hints are
+ * searched as usual and the last one is saved in the book, replacing a shallower one, unless the request went stale.
+ * A hint the quick searcher found is never used in place of a refined one.
+ */
+public class HintCalculator {
+  private final Searcher searcher;
+  private final long budgetMillis;
+  private final Searcher refiner;
+  private final long refineBudgetMillis;
+  private final OpeningBook book;
+  private final ExecutorService executor;
+
+  /**
+   * Increases with every request and cancel, so a search can tell when it has gone stale
+   */
+  private final AtomicLong generation = new AtomicLong();
+
+  /**
+   * The engine searched, only used on the hint thread
+   */
+  private GameEngine engine;
+  private Future<?> pending;
+
+  /**
+   * Creates a calculator
+   * @param searcher The searcher to find hints with
+   * @param budgetMillis The time budget for each hint in milliseconds
+   */
+  public HintCalculator(Searcher searcher, long budgetMillis) {
+    this(searcher, budgetMillis, null, 0);
+  }
+
+  /**
+   * Creates a calculator which follows each quick hint with a refined one
+   * @param searcher The searcher to find quick hints with
+   * @param budgetMillis The time budget for each quick hint in milliseconds
+   * @param refiner The searcher to find refined hints with, or null for none
+   * @param refineBudgetMillis The time budget for each refined hint in milliseconds
+   */
+  public HintCalculator(Searcher searcher, long budgetMillis, Searcher refiner, long refineBudgetMillis) {
+    this(searcher, budgetMillis, refiner, refineBudgetMillis, null);
+  }
+
+  /**
+   * Creates a calculator which answers from an opening book when it can
+   * @param searcher The searcher to find quick hints with
+   * @param budgetMillis The time budget for each quick hint in milliseconds
+   * @param refiner The searcher to find refined hints with, or null for none
+   * @param refineBudgetMillis The time budget for each refined hint in milliseconds
+   * @param book The book to answer from and save hints in, or null for none
+   */
+  public HintCalculator(Searcher searcher, long budgetMillis, Searcher refiner, long refineBudgetMillis,
+      OpeningBook book) {
+    this.searcher = searcher;
+    this.budgetMillis = budgetMillis;
+    this.refiner = refiner;
+    this.refineBudgetMillis = refineBudgetMillis;
+    this.book = book;
+    this.executor = Executors.newSingleThreadExecutor(task -> {
+      var thread = new Thread(task, "Hint Calculator");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Starts working out the hint for a position, cancelling any earlier request
+   * @param position A snapshot of the position
+   * @param deliverer Runs the callback on the thread which should receive the hint, such as Platform::runLater
+   * @param callback Given the hint, then the refined hint if there is a refiner, unless the request has gone stale by
+   *                 the time the deliverer runs it
+   * @return The id of this request, which stays current until the next request or cancel
+   */
+  public synchronized long request(GameSnapshot position, Executor deliverer, Consumer<SolverResult> callback) {
+    long id = generation.incrementAndGet();
+    if (pending != null) pending.cancel(false);
+    pending = executor.submit(() -> {
+      if (!isCurrent(id)) return;
+      var grid = position.getGrid();
+      if (engine == null || engine.getGrid().getCols() != grid.getCols()
+          || engine.getGrid().getRows() != grid.getRows()) {
+        engine = new GameEngine(grid.getCols(), grid.getRows(), BestMoveSolver.UNKNOWN_PIECES);
+        engine.setBoardChecks(false);
+      }
+      engine.restore(position);
+
+      var last = refiner == null ? searcher : refiner;
+      var known = book == null ? null : book.lookup(engine, last);
+      if (known != null && known.isComplete()) {
+        deliver(id, known, deliverer, callback);
+        return;
+      }
+
+      var result = searcher.solve(engine, budgetMillis, () -> !isCurrent(id));
+      deliver(id, result, deliverer, callback);
+
+      if (refiner != null && isCurrent(id)) {
+        result = refiner.solve(engine, refineBudgetMillis, () -> !isCurrent(id));
+        deliver(id, result, deliverer, callback);
+      }
+      if (book != null && isCurrent(id)) book.store(engine, last, result);
+    });
+    return id;
+  }
+
+  /**
+   * Hands a hint to the deliverer, unless its request has gone stale
+   * @param id The id of the request
+   * @param result The hint
+   * @param deliverer Runs the callback on the thread which should receive the hint
+   * @param callback Given the hint, unless the request has gone stale by the time the deliverer runs it
+   */
+  private void deliver(long id, SolverResult result, Executor deliverer, Consumer<SolverResult> callback) {
+    if (!isCurrent(id)) return;
+    deliverer.execute(() -> {
+      if (isCurrent(id)) callback.accept(result);
+    });
+  }
+
+  /**
+   * Returns whether a request is still the latest
+   * @param id The id of the request
+   * @return true if nothing has been requested or cancelled since
+   */
+  public boolean isCurrent(long id) {
+    return generation.get() == id;
+  }
+
+  /**
+   * Makes every request stale, stopping any search in progress
+   */
+  public synchronized void cancel() {
+    generation.incrementAndGet();
+    if (pending != null) pending.cancel(false);
+    pending = null;
+  }
+
+  /**
+   * Cancels any search and stops the hint thread, once it has written the book out to its file
+   */
+  public void shutdown() {
+    cancel();
+    if (book != null) executor.execute(book::flush);
+    executor.shutdown();
+  }
+}
@@ -0,0 +1,329 @@
+package uk.ac.soton.comp1206.bot;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import uk.ac.soton.comp1206.game.GameEngine;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.GameSnapshot;
+import uk.ac.soton.comp1206.game.Hashing;
+import uk.ac.soton.comp1206.game.Move;
+import uk.ac.soton.comp1206.game.PieceGenerator;
+
+/**
+ * Values each legal move by playing the rest of the game out many times from the position it leads to, then plays the
+ * move with the best average result.
+ *
+ * Each playout deals its pieces from its own seeded stream. Playout n uses the same stream whichever move it follows,
+ * so every move is tried against the same pieces and luck cancels out of the comparison. Playouts are spread across the
+ * threads of a ForkJoinPool, and each thread keeps its engine, snapshots and buffers between playouts.
+ */
+public class MonteCarloBot implements Bot {
+  /**
+   * How moves are chosen during a playout
+   */
+  public enum Policy {
+    /**
+     * Any legal placement of the current piece, chosen at random
+     */
+    RANDOM,
+
+    /**
+     * The placement of the current piece leading straight to the best scoring position
+     */
+    GREEDY
+  }
+
+  /**
+   * The value taken off a playout for each life lost
+   */
+  public static final double LIFE_VALUE = 500;
+
+  /**
+   * The number of playouts a task runs itself rather than splitting further
+   */
+  private static final int SPLIT_THRESHOLD = 16;
+
+  private final Evaluator evaluator;
+  private final Policy policy;
+  private final int playouts;
+  private final int horizon;
+  private final long seed;
+  private final ForkJoinPool pool;
+  private final ThreadLocal<Workspace> workspaces = new ThreadLocal<>();
+
+  /**
+   * The number of moves chosen so far, which picks the playout streams for the next move
+   */
+  private long decisions;
+
+  /**
+   * Creates a bot using the common ForkJoinPool
+   * @param evaluator Scores the position at the end of each playout, and chooses greedy playout moves
+   * @param policy How moves are chosen during a playout
+   * @param playouts The number of playouts for each legal move
+   * @param horizon The number of pieces played in each playout
+   * @param seed The seed of the playout streams
+   */
+  public MonteCarloBot(Evaluator evaluator, Policy policy, int playouts, int horizon, long seed) {
+    this(evaluator, policy, playouts, horizon, seed, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Creates a bot running its playouts in the given pool
+   * @param evaluator Scores the position at the end of each playout, and chooses greedy playout moves
+   * @param policy How moves are chosen during a playout
+   * @param playouts The number of playouts for each legal move
+   * @param horizon The number of pieces played in each playout
+   * @param seed The seed of the playout streams
+   * @param pool The pool to run playouts in
+   */
+  public MonteCarloBot(Evaluator evaluator, Policy policy, int playouts, int horizon, long seed, ForkJoinPool pool) {
+    if (playouts < 1 || horizon < 0) {
+      throw new IllegalArgumentException("Invalid playouts " + playouts + " or horizon " + horizon);
+    }
+    this.evaluator = evaluator;
+    this.policy = policy;
+    this.playouts = playouts;
+    this.horizon = horizon;
+    this.seed = seed;
+    this.pool = pool;
+  }
+
+  @Override
+  public SolverResult chooseMove(GameEngine engine) {
+    long start = System.nanoTime();
+    int[] candidates = BestMoveSolver.candidates(engine);
+    if (candidates.length == 0) {
+      return new SolverResult(false, SolverResult.NO_MOVE, evaluator.evaluate(engine), 0, 0, true,
+          System.nanoTime() - start);
+    }
+
+    long decisionSeed = Hashing.mix(seed + Hashing.GOLDEN_GAMMA * ++decisions);
+    double[] values = new double[candidates.length * playouts];
+    long moves = pool.invoke(new Playouts(engine.snapshot(), candidates, decisionSeed, values, 0, values.length));
+
+    int best = 0;
+    double bestValue = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < candidates.length; i++) {
+      double total = 0;
+      for (int n = 0; n < playouts; n++) total += values[i * playouts + n];
+      if (total / playouts > bestValue) {
+        bestValue = total / playouts;
+        best = i;
+      }
+    }
+
+    int move = candidates[best];
+    return new SolverResult((move & BestMoveSolver.SWAP_FLAG) != 0, move & ~BestMoveSolver.SWAP_FLAG, bestValue,
+        moves, 0, true, System.nanoTime() - start);
+  }
+
+  @Override
+  public String getName() {
+    return "MonteCarloBot(" + policy.name().toLowerCase() + ", " + playouts + "x" + horizon + ")";
+  }
+
+  /**
+   * Plays one playout on the current thread's workspace
+   * @param root The position before the move being valued
+   * @param move The packed move being valued, with SWAP_FLAG set to swap first
+   * @param streamSeed The seed of the pieces dealt in this playout
+   * @param workspace The workspace of the current thread
+   * @return The value of the playout
+   */
+  private double playout(GameSnapshot root, int move, long streamSeed, Workspace workspace) {
+    var engine = workspace.engine;
+    workspace.pieces.state = streamSeed;
+    workspace.choices = Hashing.mix(streamSeed ^ Hashing.GOLDEN_GAMMA);
+
+    engine.restore(root);
+    BestMoveSolver.play(engine, move);
+    workspace.moves++;
+
+    for (int i = 0; i < horizon && !engine.isLost(); i++) {
+      int next = policy == Policy.GREEDY ? greedyMove(workspace) : randomMove(workspace);
+      if (next == SolverResult.NO_MOVE) {
+        engine.tick();
+      } else {
+        BestMoveSolver.play(engine, next);
+      }
+      workspace.moves++;
+    }
+
+    double value = evaluator.evaluate(engine) - LIFE_VALUE * (root.getLives() - engine.getLives());
+    return engine.isLost() ? value - LIFE_VALUE : value;
+  }
+
+  /**
+   * Chooses a random legal placement of the current piece
+   * @param workspace The workspace holding the playout
+   * @return The packed move, or NO_MOVE if the piece cannot be played
+   */
+  private int randomMove(Workspace workspace) {
+    var grid = workspace.engine.getGrid();
+    int type = workspace.engine.getCurrentPiece().getType();
+
+    int total = 0;
+    for (int rotation = 0; rotation < GamePiece.ROTATIONS; rotation++) {
+      long[] legal = workspace.legal[rotation];
+      if (!BestMoveSolver.isDistinct(type, rotation)) {
+        Arrays.fill(legal, 0);
+        continue;
+      }
+      grid.getLegalPlacements(GamePiece.getMask(type, rotation), legal);
+      for (long word : legal) total += Long.bitCount(word);
+    }
+    if (total == 0) return SolverResult.NO_MOVE;
+
+    workspace.choices = Hashing.mix(workspace.choices + Hashing.GOLDEN_GAMMA);
+    int chosen = (int) Long.remainderUnsigned(workspace.choices, total);
+    for (int rotation = 0; rotation < GamePiece.ROTATIONS; rotation++) {
+      long[] legal = workspace.legal[rotation];
+      for (int word = 0; word < legal.length; word++) {
+        int count = Long.bitCount(legal[word]);
+        if (chosen >= count) {
+          chosen -= count;
+          continue;
+        }
+        long bits = legal[word];
+        for (; chosen > 0; chosen--) bits &= bits - 1;
+        int x = (word % grid.getWordsPerRow()) * 64 + Long.numberOfTrailingZeros(bits);
+        return Move.place(x, word / grid.getWordsPerRow(), rotation);
+      }
+    }
+    throw new IllegalStateException("Chosen placement not found");
+  }
+
+  /**
+   * Chooses the placement of the current piece which leads straight to the best scoring position
+   * @param workspace The workspace holding the playout
+   * @return The packed move, or NO_MOVE if the piece cannot be played
+   */
+  private int greedyMove(Workspace workspace) {
+    var engine = workspace.engine;
+    var grid = engine.getGrid();
+    int type = engine.getCurrentPiece().getType();
+    engine.snapshot(workspace.before);
+    long state = workspace.pieces.state;
+
+    int best = SolverResult.NO_MOVE;
+    double bestValue = Double.NEGATIVE_INFINITY;
+    for (int rotation = 0; rotation < GamePiece.ROTATIONS; rotation++) {
+      if (!BestMoveSolver.isDistinct(type, rotation)) continue;
+      long[] legal = workspace.legal[rotation];
+      grid.getLegalPlacements(GamePiece.getMask(type, rotation), legal);
+      for (int word = 0; word < legal.length; word++) {
+        for (long bits = legal[word]; bits != 0; bits &= bits - 1) {
+          int x = (word % grid.getWordsPerRow()) * 64 + Long.numberOfTrailingZeros(bits);
+          int move = Move.place(x, word / grid.getWordsPerRow(), rotation);
+          engine.restore(workspace.before);
+          workspace.pieces.state = state;
+          BestMoveSolver.play(engine, move);
+          double value = evaluator.evaluate(engine);
+          if (value > bestValue) {
+            bestValue = value;
+            best = move;
+          }
+        }
+      }
+    }
+
+    //Put the stream back with the rest of the position, so the chosen move deals the same piece as it did here
+    engine.restore(workspace.before);
+    workspace.pieces.state = state;
+    return best;
+  }
+
+  /**
+   * Returns the engine and buffers belonging to the current thread, sized for the given grid
+   * @param cols The number of columns in the grid
+   * @param rows The number of rows in the grid
+   * @return The workspace
+   */
+  private Workspace workspace(int cols, int rows) {
+    var workspace = workspaces.get();
+    if (workspace == null || workspace.cols != cols || workspace.rows != rows) {
+      workspace = new Workspace(cols, rows);
+      workspaces.set(workspace);
+    }
+    return workspace;
+  }
+
+  /**
+   * A stream of pieces which can be reseeded, so one stream serves every playout on a thread
+   */
+  private static class PlayoutPieces implements PieceGenerator {
+    private long state;
+
+    @Override
+    public int next() {
+      state += Hashing.GOLDEN_GAMMA;
+      return (int) Long.remainderUnsigned(Hashing.mix(state), GamePiece.PIECES);
+    }
+  }
+
+  /**
+   * The reusable state of a playout thread
+   */
+  private static class Workspace {
+    private final int cols;
+    private final int rows;
+    private final PlayoutPieces pieces = new PlayoutPieces();
+    private final GameEngine engine;
+    private final GameSnapshot before;
+    private final long[][] legal;
+    private long choices;
+    private long moves;
+
+    private Workspace(int cols, int rows) {
+      this.cols = cols;
+      this.rows = rows;
+      this.engine = new GameEngine(cols, rows, pieces);
+      engine.setBoardChecks(false);
+      this.before = engine.snapshot();
+      this.legal = new long[GamePiece.ROTATIONS][engine.getGrid().getOccupied().length];
+    }
+  }
+
+  /**
+   * Runs a range of the playouts, splitting the range between threads when it is large. Playout i values candidate
+   * i / playouts using stream i % playouts.
+   */
+  private class Playouts extends RecursiveTask<Long> {
+    private final GameSnapshot root;
+    private final int[] candidates;
+    private final long decisionSeed;
+    private final double[] values;
+    private final int from;
+    private final int to;
+
+    private Playouts(GameSnapshot root, int[] candidates, long decisionSeed, double[] values, int from, int to) {
+      this.root = root;
+      this.candidates = candidates;
+      this.decisionSeed = decisionSeed;
+      this.values = values;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected Long compute() {
+      if (to - from > SPLIT_THRESHOLD) {
+        int middle = (from + to) >>> 1;
+        var left = new Playouts(root, candidates, decisionSeed, values, from, middle);
+        left.fork();
+        long right = new Playouts(root, candidates, decisionSeed, values, middle, to).compute();
+        return left.join() + right;
+      }
+
+      var workspace = workspace(root.getGrid().getCols(), root.getGrid().getRows());
+      long movesBefore = workspace.moves;
+      for (int i = from; i < to; i++) {
+        long streamSeed = Hashing.mix(decisionSeed + Hashing.GOLDEN_GAMMA * (i % playouts));
+        values[i] = playout(root, candidates[i / playouts], streamSeed, workspace);
+      }
+      return workspace.moves - movesBefore;
+    }
+  }
+}
@@ -0,0 +1,461 @@
+package uk.ac.soton.comp1206.bot;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.game.GameEngine;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.Hashing;
+import uk.ac.soton.comp1206.game.Move;
+
+/**
+ * Remembers the moves found by searches in a memory mapped file, so a position searched once, in this run or an earlier
+ * one, is answered straight away the next time it comes up. Positions early in a game repeat constantly, so over time
+ * the file becomes an opening book. A result read from the book reports no positions evaluated.
+ *
+ * Each move is saved with the depth of the search which found it and whether that search finished, and a deeper move
+ * for a position replaces a shallower one but never the other way round. Moves are kept apart by the kind of searcher
+ * which found them, so one book can serve a quick searcher and a deeper one without either being answered with the
+ * other's moves.
+ *
+ * A position is keyed by the kind of searcher, the grid hash, the size of the grid, the current and following pieces
+ * and the multiplier, which is everything that changes which move is best. The file is a header followed by tables of
+ * slots, each holding a packed move, its depth and its value alongside the key XORed with them. A slot read while it
+ * is being written no longer matches its key, so it reads as a miss, and any number of threads and processes can read
+ * the file while it is written. Only one process should write to a file at a time.
+ *
+ * The file is not opened until the book is first used. When the table is half full, a table twice the size is added
+ * to the end of the same file, every entry is copied into it, and the header is pointed at it. The file is never
+ * moved or shrunk while mapped, which some systems refuse, and readers still mapping the old table keep reading it
+ * safely. The tables left behind take up at most as much room as the current one.
+ */
+public class OpeningBook {
+  private static final Logger logger = LogManager.getLogger(OpeningBook.class);
+
+  /**
+   * The book file used by the game, in the working directory
+   */
+  public static final String BOOK_FILE = "opening.book";
+
+  /**
+   * The number of slots in a new book
+   */
+  public static final int DEFAULT_SLOTS = 1 << 14;
+
+  /**
+   * The most slots a book grows to. Once full, new moves replace old ones.
+   */
+  private static final int MAX_SLOTS = 1 << 24;
+
+  /**
+   * The number of slots searched for a key before giving up
+   */
+  private static final int PROBES = 32;
+
+  private static final int MAGIC = 0x4b4f4254;
+  private static final int VERSION = 3;
+
+  /**
+   * The layout of the header: magic number, version and entries as ints, then the tag and the location of the current
+   * table as longs. The location is the offset of the table shifted left by 8, plus the log of its number of slots, so
+   * both change in a single write.
+   */
+  private static final int HEADER = 64;
+  private static final int ENTRIES_OFFSET = 8;
+  private static final int TAG_OFFSET = 16;
+  private static final int LOCATION_OFFSET = 24;
+  private static final int SLOT_BYTES = 16;
+
+  /**
+   * Returned by a lookup which misses. No stored move has its top bit set, so no stored slot can look like this.
+   */
+  private static final long MISS = -1;
+
+  /**
+   * The layout of the data in a slot: the packed move in the top 32 bits, then a byte holding the depth with the top
+   * bit set if the search finished, then the top 24 bits of the value as a float
+   */
+  private static final int MOVE_SHIFT = 32;
+  private static final int DEPTH_SHIFT = 24;
+  private static final int COMPLETE_BIT = 0x80;
+  private static final int MAX_DEPTH = 0x7f;
+
+  /**
+   * The outcomes of writing a key into a table
+   */
+  private static final int ADDED = 0;
+  private static final int REPLACED = 1;
+  private static final int FULL = 2;
+
+  /**
+   * Reads and writes longs in the mapped file atomically, in the same byte order on every machine
+   */
+  private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+  private final Path file;
+  private final long tag;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private volatile Table table;
+
+  /**
+   * Set once growing the table has failed, after which the table stays the size it is
+   */
+  private boolean growFailed;
+
+  /**
+   * Creates a book backed by a file, which is opened or created when the book is first used
+   * @param file The book file
+   * @param tag Identifies what the moves were searched with, such as an evaluator fingerprint. A file with a different
+   *            tag is started again from empty.
+   */
+  public OpeningBook(Path file, long tag) {
+    this.file = file;
+    this.tag = tag;
+  }
+
+  /**
+   * Looks up the move a searcher found for the position an engine is in
+   * @param engine The engine
+   * @param searcher The searcher, whose kind picks out its own moves
+   * @return The move from the book, reporting the depth it was searched to and whether that search finished, or null
+   *         if the searcher has no move in the book for the position
+   */
+  public SolverResult lookup(GameEngine engine, Searcher searcher) {
+    long start = System.nanoTime();
+    long data = engine.getCurrentPiece() == null ? MISS : table().get(key(engine, searcher.getKind()));
+    int packed = (int) (data >>> MOVE_SHIFT);
+    boolean swap = (packed & BestMoveSolver.SWAP_FLAG) != 0;
+    int move = packed & ~BestMoveSolver.SWAP_FLAG;
+
+    //A key shared by two positions is very unlikely, but a move which does not fit is never returned
+    if (data == MISS || !isLegal(engine, swap, move)) {
+      misses.increment();
+      return null;
+    }
+    hits.increment();
+    int depth = depth(data);
+    return new SolverResult(swap, move, Float.intBitsToFloat((int) data << 8), 0, depth & MAX_DEPTH,
+        (depth & COMPLETE_BIT) != 0, System.nanoTime() - start);
+  }
+
+  /**
+   * Saves the move a searcher found for the position an engine is in, unless the book already holds a move from a
+   * deeper search by the same kind of searcher
+   * @param engine The engine
+   * @param searcher The searcher which found the move
+   * @param result The move found. Nothing is saved if there is no move, or if no search finished to any depth.
+   */
+  public void store(GameEngine engine, Searcher searcher, SolverResult result) {
+    if (!result.hasMove() || result.getDepth() <= 0 || engine.getCurrentPiece() == null) return;
+    int packed = result.getMove() | (result.isSwap() ? BestMoveSolver.SWAP_FLAG : 0);
+    int depth = Math.min(result.getDepth(), MAX_DEPTH) | (result.isComplete() ? COMPLETE_BIT : 0);
+    long data = (long) packed << MOVE_SHIFT | (long) depth << DEPTH_SHIFT
+        | Integer.toUnsignedLong(Float.floatToRawIntBits((float) result.getValue())) >>> 8;
+    put(key(engine, searcher.getKind()), data);
+  }
+
+  /**
+   * Writes any saved moves still in memory out to the file
+   */
+  public void flush() {
+    var current = table;
+    if (current != null && current.buffer != null) current.buffer.force();
+  }
+
+  /**
+   * Returns the number of lookups which found a move
+   * @return The number of hits
+   */
+  public long getHits() {
+    return hits.sum();
+  }
+
+  /**
+   * Returns the number of lookups which found nothing
+   * @return The number of misses
+   */
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  /**
+   * Returns the number of positions in the book, opening it if needed
+   * @return The number of positions
+   */
+  public int getEntries() {
+    var current = table();
+    return current.buffer == null ? 0 : current.buffer.getInt(ENTRIES_OFFSET);
+  }
+
+  /**
+   * Works out the key of the position an engine is in
+   * @param engine The engine
+   * @param kind The kind of searcher the move is for
+   * @return The key, which is never zero
+   */
+  static long key(GameEngine engine, long kind) {
+    var grid = engine.getGrid();
+    long state = kind;
+    state = state * 31 + grid.getCols();
+    state = state * 31 + grid.getRows();
+    state = state * 31 + engine.getMultiplier();
+    state = state * 31 + engine.getCurrentPiece().getType();
+    state = state * 31 + (engine.getFollowingPiece() == null ? -1 : engine.getFollowingPiece().getType());
+    return (grid.getHash() ^ Hashing.mix(~state)) | 1;
+  }
+
+  /**
+   * Returns the depth byte of the data in a slot
+   * @param data The data
+   * @return The depth, with COMPLETE_BIT set if the search finished
+   */
+  private static int depth(long data) {
+    return (int) (data >>> DEPTH_SHIFT) & 0xff;
+  }
+
+  /**
+   * Returns whether a move from the book can be played
+   * @param engine The engine holding the position
+   * @param swap Whether the pieces are swapped first
+   * @param move The packed placement
+   * @return true if the placement fits
+   */
+  private static boolean isLegal(GameEngine engine, boolean swap, int move) {
+    var piece = swap ? engine.getFollowingPiece() : engine.getCurrentPiece();
+    if (piece == null || Move.rotation(move) >= GamePiece.ROTATIONS) return false;
+    return engine.getGrid().canPlayMask(GamePiece.getMask(piece.getType(), Move.rotation(move)), Move.x(move),
+        Move.y(move));
+  }
+
+  /**
+   * Returns the table in the book file, opening it the first time
+   * @return The table
+   */
+  private Table table() {
+    var current = table;
+    if (current != null) return current;
+    synchronized (this) {
+      if (table == null) table = open();
+      return table;
+    }
+  }
+
+  /**
+   * Maps the book file, or starts it again if it is missing or unusable
+   * @return The table, which saves nothing if the file cannot be used at all
+   */
+  private Table open() {
+    try (var channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE)) {
+      //The header is read before anything is mapped, so an unusable file can still be truncated
+      var header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+      while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+        //Keep reading until the header is full or the file ends
+      }
+      long size = channel.size();
+      if (size >= HEADER && isUsable(header, size)) {
+        long location = header.getLong(LOCATION_OFFSET);
+        var buffer = map(channel, size);
+        var existing = new Table(buffer, location >>> 8, 1 << (int) (location & 0xff));
+        logger.info("Opened opening book " + file + " with " + buffer.getInt(ENTRIES_OFFSET) + " positions");
+        return existing;
+      }
+
+      if (size > 0) logger.info("Opening book " + file + " is from another version or evaluator, starting a new one");
+      channel.truncate(0);
+      var buffer = map(channel, HEADER + (long) DEFAULT_SLOTS * SLOT_BYTES);
+      buffer.putInt(0, MAGIC);
+      buffer.putInt(4, VERSION);
+      buffer.putLong(TAG_OFFSET, tag);
+      var created = new Table(buffer, HEADER, DEFAULT_SLOTS);
+      created.publish(0);
+      return created;
+    } catch (IOException exception) {
+      logger.error("Unable to open opening book " + file + ", positions will not be saved: " + exception);
+      return new Table(null, 0, 0);
+    }
+  }
+
+  /**
+   * Checks the header of an existing book file
+   * @param header The header, read from the file
+   * @param size The size of the file
+   * @return true if the file holds a book with this tag and a table which fits in the file
+   */
+  private boolean isUsable(ByteBuffer header, long size) {
+    long location = header.getLong(LOCATION_OFFSET);
+    long offset = location >>> 8;
+    int log = (int) (location & 0xff);
+    return header.getInt(0) == MAGIC && header.getInt(4) == VERSION && header.getLong(TAG_OFFSET) == tag
+        && log < 31 && offset >= HEADER && offset % SLOT_BYTES == 0
+        && offset + ((long) SLOT_BYTES << log) <= size;
+  }
+
+  /**
+   * Maps the start of the book file, growing the file if it is shorter
+   * @param channel The file
+   * @param size The number of bytes to map
+   * @return The mapped bytes
+   * @throws IOException if the file cannot be mapped
+   */
+  private static MappedByteBuffer map(FileChannel channel, long size) throws IOException {
+    var buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    buffer.order(ByteOrder.LITTLE_ENDIAN);
+    return buffer;
+  }
+
+  /**
+   * Adds a table of the given size to the end of the book file and copies every entry of the current table into it
+   * @param slots The number of slots in the new table
+   * @param old The current table
+   * @return The new table, which the header already points at
+   * @throws IOException if the file cannot be grown
+   */
+  private Table grow(int slots, Table old) throws IOException {
+    try (var channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      long offset = channel.size();
+      var buffer = map(channel, offset + (long) slots * SLOT_BYTES);
+      var grown = new Table(buffer, offset, slots);
+      int entries = 0;
+      for (int slot = 0; slot < old.slots; slot++) {
+        long check = old.check(slot);
+        long data = old.data(slot);
+        if ((check != 0 || data != 0) && grown.put(check ^ data, data) == ADDED) entries++;
+      }
+      buffer.force();
+      grown.publish(entries);
+      return grown;
+    }
+  }
+
+  /**
+   * Saves a move, unless a deeper one is already saved for the position, growing the table if there is no room for it
+   * @param key The key of the position
+   * @param data The packed move, depth and value
+   */
+  private synchronized void put(long key, long data) {
+    var current = table();
+    if (current.buffer == null) return;
+    //Only this method writes, so the move saved cannot change between reading and replacing it
+    long saved = current.get(key);
+    if (saved != MISS && depth(saved) > depth(data)) return;
+    int outcome = current.put(key, data);
+    if (outcome == ADDED) current.setEntries(current.getEntries() + 1);
+    if (outcome != FULL && current.getEntries() * 2L <= current.slots) return;
+
+    if (current.slots >= MAX_SLOTS || growFailed) {
+      //No room to grow, so the new move takes the place of an old one
+      if (outcome == FULL) current.write(current.home(key), key, data);
+      return;
+    }
+    try {
+      var grown = grow(current.slots * 2, current);
+      if (outcome == FULL && grown.put(key, data) == ADDED) grown.setEntries(grown.getEntries() + 1);
+      table = grown;
+      logger.info("Grew opening book " + file + " to " + grown.slots + " slots");
+    } catch (IOException exception) {
+      //Growing is not tried again, so a file which cannot grow is not copied on every later store
+      growFailed = true;
+      logger.error("Unable to grow opening book " + file + ", keeping it at " + current.slots + " slots: " + exception);
+      if (outcome == FULL) current.write(current.home(key), key, data);
+    }
+  }
+
+  /**
+   * The slots of a table in a mapped book file
+   */
+  private static class Table {
+    private final MappedByteBuffer buffer;
+    private final long offset;
+    private final int slots;
+
+    private Table(MappedByteBuffer buffer, long offset, int slots) {
+      this.buffer = buffer;
+      this.offset = offset;
+      this.slots = slots;
+    }
+
+    private int home(long key) {
+      return (int) (key ^ key >>> 32) & (slots - 1);
+    }
+
+    private int position(int slot) {
+      return (int) (offset + (long) slot * SLOT_BYTES);
+    }
+
+    private long check(int slot) {
+      return (long) LONGS.getOpaque(buffer, position(slot));
+    }
+
+    private long data(int slot) {
+      return (long) LONGS.getOpaque(buffer, position(slot) + 8);
+    }
+
+    private void write(int slot, long key, long data) {
+      LONGS.setOpaque(buffer, position(slot), key ^ data);
+      LONGS.setOpaque(buffer, position(slot) + 8, data);
+    }
+
+    private int getEntries() {
+      return buffer.getInt(ENTRIES_OFFSET);
+    }
+
+    private void setEntries(int entries) {
+      buffer.putInt(ENTRIES_OFFSET, entries);
+    }
+
+    /**
+     * Points the header at this table
+     * @param entries The number of entries in the table
+     */
+    private void publish(int entries) {
+      setEntries(entries);
+      LONGS.setOpaque(buffer, LOCATION_OFFSET, offset << 8 | Integer.numberOfTrailingZeros(slots));
+    }
+
+    /**
+     * Looks up a key, checking a few slots from its home slot onwards
+     * @param key The key
+     * @return The packed move, depth and value, or MISS
+     */
+    private long get(long key) {
+      if (buffer == null) return MISS;
+      for (int probe = 0, slot = home(key); probe < PROBES; probe++, slot = (slot + 1) & (slots - 1)) {
+        long check = check(slot);
+        long data = data(slot);
+        if ((check ^ data) == key) return data;
+        if (check == 0 && data == 0) break;
+      }
+      return MISS;
+    }
+
+    /**
+     * Writes a key into its own slot, or the first empty one. The number of entries is left to the caller.
+     * @param key The key
+     * @param data The packed move, depth and value
+     * @return ADDED, REPLACED, or FULL if every slot checked was taken by another key
+     */
+    private int put(long key, long data) {
+      for (int probe = 0, slot = home(key); probe < PROBES; probe++, slot = (slot + 1) & (slots - 1)) {
+        long check = check(slot);
+        long stored = data(slot);
+        boolean empty = check == 0 && stored == 0;
+        if (empty || (check ^ stored) == key) {
+          write(slot, key, data);
+          return empty ? ADDED : REPLACED;
+        }
+      }
+      return FULL;
+    }
+  }
+}
@@ -0,0 +1,424 @@
+package uk.ac.soton.comp1206.bot;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import uk.ac.soton.comp1206.game.GameEngine;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.Hashing;
+import uk.ac.soton.comp1206.game.Move;
+import uk.ac.soton.comp1206.game.Puzzle;
+
+/**
+ * Generates puzzles with exactly one way of clearing the board. A puzzle is built backwards from an empty board: each
+ * step picks a piece and a placement, then fills in the rest of one or two lines through it, so that playing the piece
+ * there clears those lines and leaves the board as it was. Every step is checked by playing it forwards.
+ *
+ * A puzzle is only kept once an exhaustive search finds no other solution. The search splits the first placements
+ * between the threads of a ForkJoinPool, stops as soon as a second solution turns up, remembers positions already
+ * counted, and skips any position in which some block could not be cleared with the blocks left to play.
+ *
+ * Boards are held as a long with one bit a block, so puzzles can have at most 64 blocks.
+ *
+ * Usage: PuzzleGenerator [puzzles] [moves] [size] [seed] [output file]
+ */
+public class PuzzleGenerator {
+  /**
+   * The file puzzles are written to by default, and loaded from by the puzzle mode when it exists
+   */
+  public static final String PUZZLES_FILE = "puzzles.txt";
+
+  /**
+   * The most blocks a puzzle board can have
+   */
+  public static final int MAX_BLOCKS = 64;
+
+  /**
+   * The number of tries at each backwards step before starting the puzzle again
+   */
+  private static final int ATTEMPTS = 200;
+
+  /**
+   * The number of first placements a task searches itself rather than splitting further
+   */
+  private static final int SPLIT_THRESHOLD = 4;
+
+  private final int cols;
+  private final int rows;
+  private final ForkJoinPool pool;
+
+  /**
+   * Every line of the board, each rows then columns
+   */
+  private final long[] lines;
+
+  /**
+   * The distinct placements of each piece: the blocks covered and the packed move
+   */
+  private final long[][] placementBlocks = new long[GamePiece.PIECES][];
+  private final int[][] placementMoves = new int[GamePiece.PIECES][];
+
+  /**
+   * The number of blocks in each piece
+   */
+  private final int[] sizes = new int[GamePiece.PIECES];
+
+  /**
+   * Creates a generator for boards of the given size, searching in the common ForkJoinPool
+   * @param cols The number of columns
+   * @param rows The number of rows
+   */
+  public PuzzleGenerator(int cols, int rows) {
+    this(cols, rows, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Creates a generator for boards of the given size
+   * @param cols The number of columns
+   * @param rows The number of rows
+   * @param pool The pool to search for other solutions in
+   */
+  public PuzzleGenerator(int cols, int rows, ForkJoinPool pool) {
+    if (cols < 1 || rows < 1 || cols * rows > MAX_BLOCKS || Math.max(cols, rows) > Puzzle.MAX_SIZE) {
+      throw new IllegalArgumentException("Puzzles need at most " + MAX_BLOCKS + " blocks: " + cols + "x" + rows);
+    }
+    this.cols = cols;
+    this.rows = rows;
+    this.pool = pool;
+
+    lines = new long[rows + cols];
+    for (int y = 0; y < rows; y++) {
+      for (int x = 0; x < cols; x++) {
+        lines[y] |= bit(x, y);
+        lines[rows + x] |= bit(x, y);
+      }
+    }
+
+    for (int type = 0; type < GamePiece.PIECES; type++) {
+      sizes[type] = Integer.bitCount(GamePiece.getMask(type, 0));
+      var blocks = new ArrayList<Long>();
+      var moves = new ArrayList<Integer>();
+      for (int rotation = 0; rotation < GamePiece.ROTATIONS; rotation++) {
+        for (int y = 0; y < rows; y++) {
+          for (int x = 0; x < cols; x++) {
+            long covered = cover(GamePiece.getMask(type, rotation), x, y);
+
+            //Rotations with the same shape cover the same blocks, and are one placement
+            if (covered == 0 || blocks.contains(covered)) continue;
+            blocks.add(covered);
+            moves.add(Move.place(x, y, rotation));
+          }
+        }
+      }
+      placementBlocks[type] = blocks.stream().mapToLong(Long::longValue).toArray();
+      placementMoves[type] = moves.stream().mapToInt(Integer::intValue).toArray();
+    }
+  }
+
+  /**
+   * Generate puzzles and write them to a file
+   * @param args The number of puzzles, the moves in each puzzle, the size of the board, the seed and the output file,
+   *             all optional
+   * @throws IOException if the file cannot be written
+   */
+  public static void main(String[] args) throws IOException {
+    int count = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+    int moves = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+    int size = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+    long seed = args.length > 3 ? Long.parseLong(args[3]) : 1;
+    var output = Path.of(args.length > 4 ? args[4] : PUZZLES_FILE);
+
+    var generator = new PuzzleGenerator(size, size);
+    System.out.printf("Generating %d puzzles of %d moves on %dx%d, seed %d, %d threads%n", count, moves, size, size,
+        seed, Runtime.getRuntime().availableProcessors());
+
+    long start = System.nanoTime();
+    var puzzles = IntStream.range(0, count).parallel()
+        .mapToObj(i -> generator.generate(moves, new SplittableRandom(Hashing.mix(seed + i))))
+        .toList();
+    double seconds = (System.nanoTime() - start) / 1e9;
+
+    try (var writer = new PrintWriter(Files.newBufferedWriter(output))) {
+      writer.printf("# %d puzzles of %d moves on %dx%d, seed %d%n", count, moves, size, size, seed);
+      for (var puzzle : puzzles) writer.println(puzzle);
+    }
+    System.out.printf("Wrote %d puzzles to %s in %.1f s: %.0f puzzles/minute%n", count, output, seconds,
+        count * 60 / seconds);
+  }
+
+  /**
+   * Generates a puzzle with exactly one solution
+   * @param moves The number of pieces to play
+   * @param random Decides the pieces, placements and lines
+   * @return The puzzle
+   */
+  public Puzzle generate(int moves, SplittableRandom random) {
+    if (moves < 1) throw new IllegalArgumentException("Puzzles need at least one move: " + moves);
+    while (true) {
+      var puzzle = build(moves, random);
+      if (puzzle != null && verify(puzzle) && countSolutions(puzzle, 2) == 1) return puzzle;
+    }
+  }
+
+  /**
+   * Builds a puzzle backwards from an empty board
+   * @param moves The number of pieces to play
+   * @param random Decides the pieces, placements and lines
+   * @return The puzzle, which has at least one solution, or null if a step could not be built
+   */
+  private Puzzle build(int moves, SplittableRandom random) {
+    long board = 0;
+    int[] values = new int[cols * rows];
+    int[] pieces = new int[moves];
+    int[] solution = new int[moves];
+    long[] through = new long[lines.length];
+
+    for (int step = moves - 1; step >= 0; step--) {
+      boolean built = false;
+      for (int attempt = 0; attempt < ATTEMPTS && !built; attempt++) {
+        int type = random.nextInt(GamePiece.PIECES);
+        int placement = random.nextInt(placementBlocks[type].length);
+        long covered = placementBlocks[type][placement];
+
+        //The lines cleared must be empty afterwards, and must pass through the piece
+        int options = 0;
+        for (long line : lines) {
+          if ((line & covered) != 0 && (line & board) == 0) through[options++] = line;
+        }
+        if (options == 0) continue;
+        long cleared = through[random.nextInt(options)];
+        if (options > 1 && random.nextInt(3) == 0) cleared |= through[random.nextInt(options)];
+
+        //Blocks of the piece outside the cleared lines stay filled, so must already be filled afterwards
+        if ((covered & ~cleared & ~board) != 0) continue;
+        long before = (board & ~covered) | (cleared & ~covered);
+        if (hasFullLine(before) || play(before, covered) != board) continue;
+
+        int value = random.nextInt(GamePiece.PIECES) + 1;
+        for (long added = before & ~board; added != 0; added &= added - 1) {
+          values[Long.numberOfTrailingZeros(added)] = value;
+        }
+        for (long removed = board & ~before; removed != 0; removed &= removed - 1) {
+          values[Long.numberOfTrailingZeros(removed)] = 0;
+        }
+        board = before;
+        pieces[step] = type;
+        solution[step] = placementMoves[type][placement];
+        built = true;
+      }
+      if (!built) return null;
+    }
+    return new Puzzle(cols, rows, values, pieces, solution);
+  }
+
+  /**
+   * Counts the ways of solving a puzzle, up to a limit
+   * @param puzzle The puzzle, which must be the size of this generator's boards
+   * @param limit The count to stop at
+   * @return The number of solutions, or the limit if there are at least that many
+   */
+  public int countSolutions(Puzzle puzzle, int limit) {
+    if (puzzle.getCols() != cols || puzzle.getRows() != rows) {
+      throw new IllegalArgumentException("Puzzle is " + puzzle.getCols() + "x" + puzzle.getRows() + ", not " + cols
+          + "x" + rows);
+    }
+    long board = 0;
+    for (int y = 0; y < rows; y++) {
+      for (int x = 0; x < cols; x++) {
+        if (puzzle.get(x, y) != 0) board |= bit(x, y);
+      }
+    }
+    int[] pieces = new int[puzzle.getMoves()];
+    for (int i = 0; i < pieces.length; i++) pieces[i] = puzzle.getPiece(i);
+
+    var found = new AtomicInteger();
+    var first = placementBlocks[pieces[0]];
+    pool.invoke(new Count(board, pieces, 0, first.length, limit, found));
+    return Math.min(found.get(), limit);
+  }
+
+  /**
+   * Checks a puzzle's own solution by playing it on a real engine
+   * @param puzzle The puzzle
+   * @return true if playing the solution clears the board with the last piece
+   */
+  public static boolean verify(Puzzle puzzle) {
+    var sequence = new int[] {0};
+    var engine = new GameEngine(puzzle.getCols(), puzzle.getRows(),
+        () -> puzzle.getPiece(Math.min(sequence[0]++, puzzle.getMoves() - 1)));
+    engine.setBoardChecks(false);
+    puzzle.fill(engine.getGrid());
+    engine.start();
+    for (int i = 0; i < puzzle.getMoves(); i++) {
+      int move = puzzle.getSolution(i);
+      var piece = engine.getCurrentPiece();
+      piece.rotate(Move.rotation(move) - piece.getRotation());
+      if (!engine.place(Move.x(move), Move.y(move))) return false;
+    }
+    return isEmpty(engine);
+  }
+
+  private static boolean isEmpty(GameEngine engine) {
+    for (long word : engine.getGrid().getOccupied()) {
+      if (word != 0) return false;
+    }
+    return true;
+  }
+
+  private long bit(int x, int y) {
+    return 1L << (y * cols + x);
+  }
+
+  /**
+   * Works out the blocks a piece covers
+   * @param mask The mask of the piece, see GamePiece.getMask
+   * @param x The x coordinate of the centre
+   * @param y The y coordinate of the centre
+   * @return The blocks, or 0 if the piece does not fit on the board
+   */
+  private long cover(int mask, int x, int y) {
+    long covered = 0;
+    for (int bits = mask; bits != 0; bits &= bits - 1) {
+      int block = Integer.numberOfTrailingZeros(bits);
+      int blockX = x + block % 3 - 1;
+      int blockY = y + block / 3 - 1;
+      if (blockX < 0 || blockX >= cols || blockY < 0 || blockY >= rows) return 0;
+      covered |= bit(blockX, blockY);
+    }
+    return covered;
+  }
+
+  /**
+   * Plays a piece and clears any full lines, as the game does
+   * @param board The board
+   * @param covered The blocks the piece covers, all empty
+   * @return The board afterwards
+   */
+  private long play(long board, long covered) {
+    board |= covered;
+    long cleared = 0;
+    for (long line : lines) {
+      if ((board & line) == line) cleared |= line;
+    }
+    return board & ~cleared;
+  }
+
+  private boolean hasFullLine(long board) {
+    for (long line : lines) {
+      if ((board & line) == line) return true;
+    }
+    return false;
+  }
+
+  /**
+   * Returns whether every block of a board could still be cleared with the given number of blocks. A block is only
+   * cleared once its row or its column is full, which needs at least every empty block of that line filling.
+   * @param board The board
+   * @param blocks The number of blocks left to play
+   * @return false if some block can certainly not be cleared
+   */
+  private boolean clearable(long board, int blocks) {
+    for (long filled = board; filled != 0; filled &= filled - 1) {
+      int block = Long.numberOfTrailingZeros(filled);
+      long row = lines[block / cols];
+      long col = lines[rows + block % cols];
+      if (Math.min(Long.bitCount(row & ~board), Long.bitCount(col & ~board)) > blocks) return false;
+    }
+    return true;
+  }
+
+  /**
+   * Counts the solutions which start with a range of the placements of the first piece, splitting the range between
+   * threads when it is large
+   */
+  private class Count extends RecursiveTask<Void> {
+    private final long board;
+    private final int[] pieces;
+    private final int from;
+    private final int to;
+    private final int limit;
+    private final AtomicInteger found;
+
+    /**
+     * The number of solutions from each position already counted in full, for each number of pieces played
+     */
+    private List<HashMap<Long, Integer>> counted;
+
+    private Count(long board, int[] pieces, int from, int to, int limit, AtomicInteger found) {
+      this.board = board;
+      this.pieces = pieces;
+      this.from = from;
+      this.to = to;
+      this.limit = limit;
+      this.found = found;
+    }
+
+    @Override
+    protected Void compute() {
+      if (to - from > SPLIT_THRESHOLD) {
+        int middle = (from + to) >>> 1;
+        var left = new Count(board, pieces, from, middle, limit, found);
+        left.fork();
+        new Count(board, pieces, middle, to, limit, found).compute();
+        left.join();
+        return null;
+      }
+
+      counted = new ArrayList<>();
+      for (int i = 0; i < pieces.length; i++) counted.add(new HashMap<>());
+      int remaining = remainingBlocks(1);
+      long[] first = placementBlocks[pieces[0]];
+      for (int i = from; i < to && found.get() < limit; i++) {
+        if ((board & first[i]) != 0) continue;
+        int solutions = count(play(board, first[i]), 1, remaining);
+        if (solutions > 0) found.addAndGet(solutions);
+      }
+      return null;
+    }
+
+    private int remainingBlocks(int index) {
+      int blocks = 0;
+      for (int i = index; i < pieces.length; i++) blocks += sizes[pieces[i]];
+      return blocks;
+    }
+
+    /**
+     * Counts the solutions from a position, up to the limit
+     * @param position The board
+     * @param index The number of pieces played
+     * @param blocks The number of blocks in the pieces left to play
+     * @return The number of solutions, at most the limit
+     */
+    private int count(long position, int index, int blocks) {
+      if (index == pieces.length) return position == 0 ? 1 : 0;
+      if (!clearable(position, blocks)) return 0;
+
+      var known = counted.get(index).get(position);
+      if (known != null) return known;
+
+      int type = pieces[index];
+      int remaining = blocks - sizes[type];
+      long[] placements = placementBlocks[type];
+      int solutions = 0;
+      for (int i = 0; i < placements.length && solutions < limit; i++) {
+        if ((position & placements[i]) != 0) continue;
+        solutions += count(play(position, placements[i]), index + 1, remaining);
+
+        //Another thread has already found enough, so this count will not be used
+        if (found.get() >= limit) return Math.min(solutions, limit);
+      }
+      solutions = Math.min(solutions, limit);
+      counted.get(index).put(position, solutions);
+      return solutions;
+    }
+  }
+}
@@ -0,0 +1,32 @@
+package uk.ac.soton.comp1206.bot;
+
+import java.util.SplittableRandom;
+import uk.ac.soton.comp1206.game.GameEngine;
+
+/**
+ * Plays a legal move chosen at random, including swapping first. Used as a baseline when comparing bots.
+ */
+public class RandomBot implements Bot {
+  private final SplittableRandom random;
+
+  /**
+   * Creates a bot choosing moves from the given seed
+   * @param seed The seed
+   */
+  public RandomBot(long seed) {
+    this.random = new SplittableRandom(seed);
+  }
+
+  @Override
+  public SolverResult chooseMove(GameEngine engine) {
+    long start = System.nanoTime();
+    int[] candidates = BestMoveSolver.candidates(engine);
+    if (candidates.length == 0) {
+      return new SolverResult(false, SolverResult.NO_MOVE, 0, 0, 0, true, System.nanoTime() - start);
+    }
+
+    int move = candidates[random.nextInt(candidates.length)];
+    return new SolverResult((move & BestMoveSolver.SWAP_FLAG) != 0, move & ~BestMoveSolver.SWAP_FLAG, 0,
+        candidates.length, 0, true, System.nanoTime() - start);
+  }
+}
@@ -0,0 +1,39 @@
+package uk.ac.soton.comp1206.bot;
+
+import java.util.function.BooleanSupplier;
+import uk.ac.soton.comp1206.game.GameEngine;
+
+/**
+ * A Searcher finds the best move in a position within a time budget. Searchers are used to drive bots and to work out
+ * hints, and must return a legal move whenever there is one, however short the budget.
+ */
+public interface Searcher {
+
+  /**
+   * Finds the best move in the current position of an engine, giving up early once cancelled
+   * @param engine The engine, which is not changed
+   * @param budgetMillis The time budget in milliseconds
+   * @param cancelled Checked regularly during the search, which stops when it returns true
+   * @return The best move found
+   */
+  SolverResult solve(GameEngine engine, long budgetMillis, BooleanSupplier cancelled);
+
+  /**
+   * Finds the best move in the current position of an engine
+   * @param engine The engine, which is not changed
+   * @param budgetMillis The time budget in milliseconds
+   * @return The best move found
+   */
+  default SolverResult solve(GameEngine engine, long budgetMillis) {
+    return solve(engine, budgetMillis, () -> false);
+  }
+
+  /**
+   * Identifies how this searcher searches, so an OpeningBook keeps the moves of different searchers apart. Searchers
+   * with settings which change the moves they find, such as how deep they search, must give each setting its own kind.
+   * @return The kind, by default the same for every searcher of a class
+   */
+  default long getKind() {
+    return getClass().getName().hashCode();
+  }
+}
@@ -0,0 +1,31 @@
+package uk.ac.soton.comp1206.bot;
+
+import uk.ac.soton.comp1206.game.GameEngine;
+
+/**
+ * Plays the move found by a Searcher within a fixed time budget
+ */
+public class SolverBot implements Bot {
+  private final Searcher searcher;
+  private final long budgetMillis;
+
+  /**
+   * Creates a bot searching with the given searcher
+   * @param searcher The searcher
+   * @param budgetMillis The time budget for each move in milliseconds
+   */
+  public SolverBot(Searcher searcher, long budgetMillis) {
+    this.searcher = searcher;
+    this.budgetMillis = budgetMillis;
+  }
+
+  @Override
+  public SolverResult chooseMove(GameEngine engine) {
+    return searcher.solve(engine, budgetMillis);
+  }
+
+  @Override
+  public String getName() {
+    return searcher.getClass().getSimpleName() + "(" + budgetMillis + " ms)";
+  }
+}
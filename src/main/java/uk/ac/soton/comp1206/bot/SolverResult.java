@@ -0,0 +1,112 @@
+package uk.ac.soton.comp1206.bot;
+
+import uk.ac.soton.comp1206.game.Move;
+
+/**
+ * The best move found by a search, along with how the search went
+ */
+public class SolverResult {
+  /**
+   * The move used when no placement could be found
+   */
+  public static final int NO_MOVE = Move.TICK;
+
+  private final boolean swap;
+  private final int move;
+  private final double value;
+  private final long positions;
+  private final int depth;
+  private final boolean complete;
+  private final long elapsedNanos;
+
+  /**
+   * Creates a result
+   * @param swap Whether the pieces should be swapped before the placement
+   * @param move The packed placement, or NO_MOVE
+   * @param value The value of the move
+   * @param positions The number of positions evaluated
+   * @param depth The number of moves ahead the deepest finished search looked, or 0 if none finished
+   * @param complete Whether the search went as deep as it was set to before the time budget ran out
+   * @param elapsedNanos How long the search took
+   */
+  public SolverResult(boolean swap, int move, double value, long positions, int depth, boolean complete,
+      long elapsedNanos) {
+    this.swap = swap;
+    this.move = move;
+    this.value = value;
+    this.positions = positions;
+    this.depth = depth;
+    this.complete = complete;
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  /**
+   * Returns whether the current and following pieces should be swapped before playing the placement
+   * @return true to swap first
+   */
+  public boolean isSwap() {
+    return swap;
+  }
+
+  /**
+   * Returns the placement to play, packed as a Move, or NO_MOVE if there was no legal placement
+   * @return The packed placement
+   */
+  public int getMove() {
+    return move;
+  }
+
+  /**
+   * Returns whether a legal placement was found
+   * @return true if there is a move to play
+   */
+  public boolean hasMove() {
+    return move != NO_MOVE;
+  }
+
+  /**
+   * Returns the value of the best move
+   * @return The value
+   */
+  public double getValue() {
+    return value;
+  }
+
+  /**
+   * Returns the number of positions evaluated
+   * @return The number of positions
+   */
+  public long getPositions() {
+    return positions;
+  }
+
+  /**
+   * Returns the number of moves ahead the deepest finished search looked. Searchers which do not search to a fixed
+   * depth, such as playouts, report 0, as does a result with no move.
+   * @return The depth in moves
+   */
+  public int getDepth() {
+    return depth;
+  }
+
+  /**
+   * Returns whether the search went as deep as it was set to before the time budget ran out
+   * @return true if the search finished
+   */
+  public boolean isComplete() {
+    return complete;
+  }
+
+  /**
+   * Returns how long the search took
+   * @return The elapsed time in nanoseconds
+   */
+  public long getElapsedNanos() {
+    return elapsedNanos;
+  }
+
+  @Override
+  public String toString() {
+    return (swap ? "swap, " : "") + Move.toString(move) + " (value " + value + ", " + positions + " positions)";
+  }
+}
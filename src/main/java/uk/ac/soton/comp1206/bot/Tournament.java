@@ -0,0 +1,372 @@
+package uk.ac.soton.comp1206.bot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import uk.ac.soton.comp1206.game.GameEngine;
+import uk.ac.soton.comp1206.game.Hashing;
+import uk.ac.soton.comp1206.game.RandomPieceGenerator;
+
+/**
+ * Plays bots against each other in headless matches and rates them with Elo. A match is played like a multiplayer game:
+ * both players are dealt the same seeded piece sequence, just as the server hands every player the same pieces, and
+ * take turns in step until both have lost or the move limit is reached. The higher score wins.
+ *
+ * Every pair of registered bots plays the same number of matches, each on a new sequence. Matches are spread across
+ * every core, and each worker thread has its own copy of every bot, so bots need not be thread safe. The standard bots
+ * search on one thread each, so a bot with a time budget gets one core whatever the number of cores, rather than
+ * however much of a shared pool is free. Ratings are fitted to every result at once, and the confidence intervals come
+ * from refitting to matches resampled with replacement.
+ *
+ * Usage: Tournament [matches per pair] [max moves] [seed]
+ */
+public class Tournament {
+  /**
+   * The mean rating of the bots
+   */
+  public static final double MEAN_RATING = 1500;
+
+  /**
+   * The number of times the matches are resampled to find the confidence intervals
+   */
+  private static final int RESAMPLES = 500;
+
+  /**
+   * The number of rounds of fitting the ratings
+   */
+  private static final int FIT_ROUNDS = 200;
+
+  /**
+   * The size of the standard board
+   */
+  private static final int SIZE = 5;
+
+  private final int maxMoves;
+  private final long seed;
+  private final List<String> names = new ArrayList<>();
+  private final List<Supplier<Bot>> factories = new ArrayList<>();
+
+  /**
+   * Creates a tournament with no bots
+   * @param maxMoves The maximum number of moves each player makes in a match
+   * @param seed The seed of the piece sequences
+   */
+  public Tournament(int maxMoves, long seed) {
+    this.maxMoves = maxMoves;
+    this.seed = seed;
+  }
+
+  /**
+   * Run a tournament between the standard bots and print the ratings
+   * @param args The matches per pair, the maximum moves in a match and the seed, all optional
+   * @throws InterruptedException if interrupted while waiting for the matches
+   */
+  public static void main(String[] args) throws InterruptedException {
+    int matches = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+    int maxMoves = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+    long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+
+    var evaluator = WeightedEvaluator.load();
+    var tournament = new Tournament(maxMoves, seed);
+    //Each copy of a bot searches on one thread of its own, so a bot with a time budget gets one core and no more,
+    //rather than racing every other match for the common pool
+    var pools = new ConcurrentLinkedQueue<ForkJoinPool>();
+    Supplier<ForkJoinPool> pool = () -> {
+      var created = new ForkJoinPool(1);
+      pools.add(created);
+      return created;
+    };
+    tournament.register("Random", () -> new RandomBot(seed));
+    tournament.register("Greedy", () -> new GreedyBot(evaluator));
+    tournament.register("BestMoveSolver(10 ms)",
+        () -> new SolverBot(new BestMoveSolver(evaluator, pool.get(), new TranspositionTable()), 10));
+    tournament.register("Expectimax(20 ms)", () -> new SolverBot(new ExpectimaxSearcher(evaluator), 20));
+    tournament.register("MonteCarlo(greedy 8x4)",
+        () -> new MonteCarloBot(evaluator, MonteCarloBot.Policy.GREEDY, 8, 4, seed, pool.get()));
+
+    int threads = Runtime.getRuntime().availableProcessors();
+    System.out.printf("%d matches per pair of up to %d moves on %dx%d, seed %d, %d threads%n", matches, maxMoves, SIZE,
+        SIZE, seed, threads);
+    try {
+      tournament.play(matches, threads).print();
+    } finally {
+      pools.forEach(ForkJoinPool::shutdownNow);
+    }
+  }
+
+  /**
+   * Adds a bot to the tournament
+   * @param name The name shown in the results
+   * @param factory Creates a new copy of the bot for each thread playing matches
+   */
+  public void register(String name, Supplier<Bot> factory) {
+    names.add(name);
+    factories.add(factory);
+  }
+
+  /**
+   * Plays every pair of bots against each other
+   * @param matchesPerPair The number of matches each pair plays
+   * @param threads The number of threads to play matches on
+   * @return The results
+   * @throws InterruptedException if interrupted while waiting for the matches
+   */
+  public Results play(int matchesPerPair, int threads) throws InterruptedException {
+    int players = names.size();
+    var lineups = ThreadLocal.withInitial(() -> {
+      var bots = new Bot[players];
+      for (int i = 0; i < players; i++) bots[i] = factories.get(i).get();
+      return bots;
+    });
+
+    var tasks = new ArrayList<Callable<Match>>();
+    for (int a = 0; a < players; a++) {
+      for (int b = a + 1; b < players; b++) {
+        for (int round = 0; round < matchesPerPair; round++) {
+          int first = a;
+          int second = b;
+          long matchSeed = Hashing.mix(seed + tasks.size());
+          tasks.add(() -> {
+            var bots = lineups.get();
+            return play(first, bots[first], second, bots[second], matchSeed);
+          });
+        }
+      }
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(threads, task -> {
+      var thread = new Thread(task, "Tournament");
+      thread.setDaemon(true);
+      return thread;
+    });
+    long start = System.nanoTime();
+    try {
+      var matches = new ArrayList<Match>(tasks.size());
+      for (Future<Match> future : executor.invokeAll(tasks)) {
+        matches.add(future.get());
+      }
+      return new Results(names, matches, System.nanoTime() - start);
+    } catch (ExecutionException exception) {
+      throw new IllegalStateException("A match failed", exception.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Plays one match between two bots on the same piece sequence
+   * @param first The index of the first bot
+   * @param firstBot The first bot
+   * @param second The index of the second bot
+   * @param secondBot The second bot
+   * @param matchSeed The seed of the piece sequence
+   * @return The result
+   */
+  private Match play(int first, Bot firstBot, int second, Bot secondBot, long matchSeed) {
+    var firstEngine = new GameEngine(SIZE, SIZE, new RandomPieceGenerator(matchSeed));
+    var secondEngine = new GameEngine(SIZE, SIZE, new RandomPieceGenerator(matchSeed));
+    firstEngine.start();
+    secondEngine.start();
+
+    long moves = 0;
+    for (int move = 0; move < maxMoves && !(firstEngine.isLost() && secondEngine.isLost()); move++) {
+      if (!firstEngine.isLost()) {
+        Bot.play(firstEngine, firstBot.chooseMove(firstEngine));
+        moves++;
+      }
+      if (!secondEngine.isLost()) {
+        Bot.play(secondEngine, secondBot.chooseMove(secondEngine));
+        moves++;
+      }
+    }
+    return new Match(first, second, firstEngine.getScore(), secondEngine.getScore(), moves);
+  }
+
+  /**
+   * Fits Elo ratings to a set of matches. Each match counts as a win, a loss or, for equal scores, a draw. Every pair
+   * of bots is also given one imagined draw, so a bot which never wins or never loses still gets a finite rating.
+   * @param players The number of bots
+   * @param matches The matches
+   * @return The rating of each bot, with a mean of MEAN_RATING
+   */
+  static double[] fit(int players, List<Match> matches) {
+    double[] wins = new double[players];
+    double[][] games = new double[players][players];
+    for (int a = 0; a < players; a++) {
+      for (int b = 0; b < players; b++) {
+        if (a == b) continue;
+        games[a][b] = 1;
+        wins[a] += 0.5;
+      }
+    }
+    for (var match : matches) {
+      games[match.first][match.second]++;
+      games[match.second][match.first]++;
+      wins[match.first] += match.outcome();
+      wins[match.second] += 1 - match.outcome();
+    }
+
+    //Minorisation-maximisation for the Bradley-Terry model, whose strengths are Elo ratings on a different scale
+    double[] strength = new double[players];
+    Arrays.fill(strength, 1);
+    for (int round = 0; round < FIT_ROUNDS; round++) {
+      double[] next = new double[players];
+      double total = 0;
+      for (int a = 0; a < players; a++) {
+        double sum = 0;
+        for (int b = 0; b < players; b++) {
+          if (games[a][b] > 0) sum += games[a][b] / (strength[a] + strength[b]);
+        }
+        next[a] = wins[a] / sum;
+        total += Math.log(next[a]);
+      }
+      double centre = Math.exp(total / players);
+      for (int a = 0; a < players; a++) strength[a] = next[a] / centre;
+    }
+
+    double[] ratings = new double[players];
+    for (int a = 0; a < players; a++) ratings[a] = MEAN_RATING + 400 * Math.log10(strength[a]);
+    return ratings;
+  }
+
+  /**
+   * The result of one match
+   */
+  static class Match {
+    private final int first;
+    private final int second;
+    private final int firstScore;
+    private final int secondScore;
+    private final long moves;
+
+    Match(int first, int second, int firstScore, int secondScore, long moves) {
+      this.first = first;
+      this.second = second;
+      this.firstScore = firstScore;
+      this.secondScore = secondScore;
+      this.moves = moves;
+    }
+
+    /**
+     * Returns how the match went for the first bot
+     * @return 1 for a win, 0.5 for a draw or 0 for a loss
+     */
+    double outcome() {
+      return firstScore > secondScore ? 1 : firstScore == secondScore ? 0.5 : 0;
+    }
+  }
+
+  /**
+   * The ratings and records of every bot after a tournament
+   */
+  public static class Results {
+    private final List<String> names;
+    private final List<Match> matches;
+    private final long elapsedNanos;
+    private final double[] ratings;
+    private final double[] lower;
+    private final double[] upper;
+
+    private Results(List<String> names, List<Match> matches, long elapsedNanos) {
+      this.names = List.copyOf(names);
+      this.matches = matches;
+      this.elapsedNanos = elapsedNanos;
+
+      int players = names.size();
+      this.ratings = fit(players, matches);
+
+      //Refit to the matches resampled with replacement, and take the middle 95% of each rating
+      var random = new SplittableRandom(matches.size());
+      double[][] samples = new double[players][RESAMPLES];
+      var resampled = new ArrayList<Match>(matches.size());
+      for (int sample = 0; sample < RESAMPLES; sample++) {
+        resampled.clear();
+        for (int i = 0; i < matches.size(); i++) resampled.add(matches.get(random.nextInt(matches.size())));
+        double[] fitted = fit(players, resampled);
+        for (int a = 0; a < players; a++) samples[a][sample] = fitted[a];
+      }
+      this.lower = new double[players];
+      this.upper = new double[players];
+      for (int a = 0; a < players; a++) {
+        Arrays.sort(samples[a]);
+        lower[a] = samples[a][(int) (RESAMPLES * 0.025)];
+        upper[a] = samples[a][(int) (RESAMPLES * 0.975) - 1];
+      }
+    }
+
+    /**
+     * Returns the Elo rating of each bot, in the order they were registered
+     * @return The ratings
+     */
+    public double[] getRatings() {
+      return ratings.clone();
+    }
+
+    /**
+     * Returns the lower end of the 95% confidence interval of each rating
+     * @return The lower bounds
+     */
+    public double[] getLower() {
+      return lower.clone();
+    }
+
+    /**
+     * Returns the upper end of the 95% confidence interval of each rating
+     * @return The upper bounds
+     */
+    public double[] getUpper() {
+      return upper.clone();
+    }
+
+    /**
+     * Prints a table of the bots, best first, followed by how fast the matches were played
+     */
+    public void print() {
+      int players = names.size();
+      double[][] records = new double[players][4];
+      long moves = 0;
+      for (var match : matches) {
+        double outcome = match.outcome();
+        record(records[match.first], outcome, match.firstScore);
+        record(records[match.second], 1 - outcome, match.secondScore);
+        moves += match.moves;
+      }
+
+      var order = new ArrayList<Integer>();
+      for (int a = 0; a < players; a++) order.add(a);
+      order.sort((a, b) -> Double.compare(ratings[b], ratings[a]));
+      System.out.printf("%-26s %7s %15s %6s %6s %6s %10s%n", "bot", "elo", "95% interval", "won", "drawn", "lost",
+          "score");
+      for (int a : order) {
+        var record = records[a];
+        int played = (int) (record[0] + record[1] + record[2]);
+        System.out.printf("%-26s %7.0f %7.0f..%-6.0f %6.0f %6.0f %6.0f %10.1f%n", names.get(a), ratings[a], lower[a],
+            upper[a], record[0], record[1], record[2], played == 0 ? 0 : record[3] / played);
+      }
+
+      double seconds = elapsedNanos / 1e9;
+      System.out.printf("%d matches in %.1f s: %.1f games/s, %.0f moves/s%n", matches.size(), seconds,
+          matches.size() * 2 / seconds, moves / seconds);
+    }
+
+    /**
+     * Adds a match to a bot's record of wins, draws, losses and total score
+     * @param record The record
+     * @param outcome How the match went for the bot
+     * @param score The bot's score
+     */
+    private static void record(double[] record, double outcome, int score) {
+      record[outcome == 1 ? 0 : outcome == 0 ? 2 : 1]++;
+      record[3] += score;
+    }
+  }
+}
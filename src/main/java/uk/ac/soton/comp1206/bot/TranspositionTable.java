@@ -0,0 +1,108 @@
+package uk.ac.soton.comp1206.bot;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import uk.ac.soton.comp1206.game.GameEngine;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.Hashing;
+
+/**
+ * A fixed size table of position values, shared by every search thread without locking. Many orders of moves reach
+ * the same position, and a value stored by one thread is found by every other.
+ *
+ * Each slot holds the value and the key XORed with the value. Two threads writing one slot at once can leave the halves
+ * from different writes, but then the key no longer matches on reading, so a torn slot reads as a miss rather than a
+ * wrong value. A new value always replaces whatever was in its slot.
+ */
+public class TranspositionTable {
+  /**
+   * The number of slots used when none is given
+   */
+  public static final int DEFAULT_SLOTS = 1 << 18;
+
+  private final AtomicLongArray entries;
+  private final int mask;
+
+  /**
+   * Creates a table with the default number of slots
+   */
+  public TranspositionTable() {
+    this(DEFAULT_SLOTS);
+  }
+
+  /**
+   * Creates a table
+   * @param slots The number of slots, rounded up to a power of two
+   */
+  public TranspositionTable(int slots) {
+    if (slots < 1 || slots > 1 << 29) throw new IllegalArgumentException("Invalid table size: " + slots);
+    int size = slots == 1 ? 1 : Integer.highestOneBit(slots - 1) << 1;
+    this.entries = new AtomicLongArray(size * 2);
+    this.mask = size - 1;
+  }
+
+  /**
+   * Looks up the value of a position
+   * @param key The key of the position
+   * @return The value, or NaN if it is not in the table
+   */
+  public double get(long key) {
+    key |= 1;
+    int slot = (int) (key ^ key >>> 32) & mask;
+    long check = entries.getOpaque(slot * 2);
+    long data = entries.getOpaque(slot * 2 + 1);
+    return (check ^ data) == key ? Double.longBitsToDouble(data) : Double.NaN;
+  }
+
+  /**
+   * Stores the value of a position
+   * @param key The key of the position
+   * @param value The value
+   */
+  public void put(long key, double value) {
+    key |= 1;
+    int slot = (int) (key ^ key >>> 32) & mask;
+    long data = Double.doubleToRawLongBits(value);
+    entries.setOpaque(slot * 2, key ^ data);
+    entries.setOpaque(slot * 2 + 1, data);
+  }
+
+  /**
+   * Empties the table
+   */
+  public void clear() {
+    for (int i = 0; i < entries.length(); i++) entries.setOpaque(i, 0);
+  }
+
+  /**
+   * Returns the number of slots in the table
+   * @return The number of slots
+   */
+  public int getSlots() {
+    return mask + 1;
+  }
+
+  /**
+   * Works out the key of the position an engine is in. It covers the size of the grid, the filled blocks, the current
+   * and following pieces, and the score, level, lives and multiplier, which is everything an Evaluator can see apart
+   * from the colours of the blocks and the rotation of the pieces.
+   * @param engine The engine
+   * @return The key
+   */
+  public static long key(GameEngine engine) {
+    //The same blocks filled on grids of different sizes have the same grid hash, so the size is part of the key
+    var grid = engine.getGrid();
+    long state = grid.getCols();
+    state = state * 31 + grid.getRows();
+    state = state * 31 + engine.getScore();
+    state = state * 31 + engine.getLevel();
+    state = state * 31 + engine.getLives();
+    state = state * 31 + engine.getMultiplier();
+    state = state * 31 + type(engine.getCurrentPiece());
+    state = state * 31 + type(engine.getFollowingPiece());
+    return grid.getHash() ^ Hashing.mix(state);
+  }
+
+  private static int type(GamePiece piece) {
+    return piece == null ? -1 : piece.getType();
+  }
+}
@@ -0,0 +1,256 @@
+package uk.ac.soton.comp1206.bot;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.game.GameEngine;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.Grid;
+import uk.ac.soton.comp1206.game.Hashing;
+
+/**
+ * Scores a position as a weighted sum of features of the board and game state. The features are worked out from the
+ * grid's occupancy bitset and line counters, so evaluating a position creates no objects.
+ *
+ * Weights can be saved to and loaded from a properties file with one entry per feature name, such as the file written
+ * by the HeuristicTuner.
+ */
+public class WeightedEvaluator implements Evaluator {
+  private static final Logger logger = LogManager.getLogger(WeightedEvaluator.class);
+
+  /**
+   * The weights file loaded at startup, when it exists
+   */
+  public static final String WEIGHTS_FILE = "weights.properties";
+
+  /**
+   * The score of the game
+   */
+  public static final int SCORE = 0;
+
+  /**
+   * The number of filled blocks
+   */
+  public static final int FILLED = 1;
+
+  /**
+   * The number of empty blocks with no empty neighbour, which only a Dot can fill
+   */
+  public static final int HOLES = 2;
+
+  /**
+   * The sum over every row and column of the square of how full it is, rewarding blocks gathered into lines
+   */
+  public static final int LINE_FILL = 3;
+
+  /**
+   * The multiplier, rewarding keeping a run of line clears going
+   */
+  public static final int MULTIPLIER = 4;
+
+  /**
+   * The number of piece types which can still be played somewhere
+   */
+  public static final int PLAYABLE = 5;
+
+  /**
+   * The number of features
+   */
+  public static final int FEATURES = 6;
+
+  /**
+   * The names of the features, in order
+   */
+  public static final String[] NAMES = {"score", "filled", "holes", "lineFill", "multiplier", "playable"};
+
+  /**
+   * The weights used when none are given
+   */
+  public static final double[] DEFAULT_WEIGHTS = {1.0, -2.0, -15.0, 20.0, 5.0, 4.0};
+
+  private final double[] weights;
+
+  /**
+   * Creates an evaluator with the default weights
+   */
+  public WeightedEvaluator() {
+    this(DEFAULT_WEIGHTS);
+  }
+
+  /**
+   * Creates an evaluator with the given weights
+   * @param weights One weight for each feature
+   */
+  public WeightedEvaluator(double[] weights) {
+    if (weights.length != FEATURES) {
+      throw new IllegalArgumentException("Expected " + FEATURES + " weights but got " + weights.length);
+    }
+    this.weights = weights.clone();
+  }
+
+  @Override
+  public double evaluate(GameEngine engine) {
+    var grid = engine.getGrid();
+    double value = weights[SCORE] * engine.getScore()
+        + weights[MULTIPLIER] * engine.getMultiplier();
+    value += weights[FILLED] * filled(grid);
+    value += weights[HOLES] * holes(grid);
+    value += weights[LINE_FILL] * lineFill(grid);
+    if (weights[PLAYABLE] != 0) value += weights[PLAYABLE] * playable(grid);
+    return value;
+  }
+
+  /**
+   * Creates an evaluator with the weights in the weights file, or the default weights if there is no usable file
+   * @return The evaluator
+   */
+  public static WeightedEvaluator load() {
+    var path = Path.of(WEIGHTS_FILE);
+    if (!Files.exists(path)) return new WeightedEvaluator();
+    try {
+      var evaluator = load(path);
+      logger.info("Loaded weights from " + path);
+      return evaluator;
+    } catch (IOException | IllegalArgumentException exception) {
+      logger.error("Unable to load weights from " + path + ", using the defaults: " + exception);
+      return new WeightedEvaluator();
+    }
+  }
+
+  /**
+   * Creates an evaluator with the weights in a properties file. Any feature missing from the file keeps its default
+   * weight.
+   * @param path The file to read
+   * @return The evaluator
+   * @throws IOException if the file cannot be read
+   * @throws IllegalArgumentException if a weight is not a number
+   */
+  public static WeightedEvaluator load(Path path) throws IOException {
+    var properties = new Properties();
+    try (Reader reader = Files.newBufferedReader(path)) {
+      properties.load(reader);
+    }
+
+    var weights = DEFAULT_WEIGHTS.clone();
+    for (int feature = 0; feature < FEATURES; feature++) {
+      var value = properties.getProperty(NAMES[feature]);
+      if (value != null) weights[feature] = Double.parseDouble(value.trim());
+    }
+    return new WeightedEvaluator(weights);
+  }
+
+  /**
+   * Writes the weights of this evaluator to a properties file, replacing it if it exists
+   * @param path The file to write
+   * @param comment A comment written at the top of the file
+   * @throws IOException if the file cannot be written
+   */
+  public void save(Path path, String comment) throws IOException {
+    var properties = new Properties();
+    for (int feature = 0; feature < FEATURES; feature++) {
+      properties.setProperty(NAMES[feature], Double.toString(weights[feature]));
+    }
+    try (Writer writer = Files.newBufferedWriter(path)) {
+      properties.store(writer, comment);
+    }
+  }
+
+  /**
+   * Works out every feature of a position
+   * @param engine The engine holding the position
+   * @param features Filled with one value for each feature
+   */
+  public static void features(GameEngine engine, double[] features) {
+    var grid = engine.getGrid();
+    features[SCORE] = engine.getScore();
+    features[FILLED] = filled(grid);
+    features[HOLES] = holes(grid);
+    features[LINE_FILL] = lineFill(grid);
+    features[MULTIPLIER] = engine.getMultiplier();
+    features[PLAYABLE] = playable(grid);
+  }
+
+  /**
+   * Returns a copy of the weights of this evaluator
+   * @return The weights
+   */
+  public double[] getWeights() {
+    return weights.clone();
+  }
+
+  /**
+   * Works out a number which changes whenever the weights do, so moves saved while searching with one set of weights,
+   * such as in an OpeningBook, are not used with another
+   * @return The fingerprint
+   */
+  public long fingerprint() {
+    long fingerprint = FEATURES;
+    for (double weight : weights) {
+      fingerprint = Hashing.mix(fingerprint ^ Double.doubleToLongBits(weight));
+    }
+    return fingerprint;
+  }
+
+  private static int filled(Grid grid) {
+    int filled = 0;
+    for (int y = 0; y < grid.getRows(); y++) filled += grid.getRowCount(y);
+    return filled;
+  }
+
+  private static double lineFill(Grid grid) {
+    double fill = 0;
+    for (int y = 0; y < grid.getRows(); y++) {
+      double row = (double) grid.getRowCount(y) / grid.getCols();
+      fill += row * row;
+    }
+    for (int x = 0; x < grid.getCols(); x++) {
+      double col = (double) grid.getColCount(x) / grid.getRows();
+      fill += col * col;
+    }
+    return fill;
+  }
+
+  private static int holes(Grid grid) {
+    long[] occupied = grid.getOccupied();
+    int words = grid.getWordsPerRow();
+    int cols = grid.getCols();
+    int rows = grid.getRows();
+    long lastMask = (cols & 63) == 0 ? -1L : (1L << cols) - 1;
+    long lastBit = 1L << ((cols - 1) & 63);
+
+    int holes = 0;
+    for (int y = 0; y < rows; y++) {
+      for (int w = 0; w < words; w++) {
+        int i = y * words + w;
+        long filled = occupied[i];
+        long valid = w == words - 1 ? lastMask : -1L;
+
+        //A neighbour outside the grid counts as filled
+        long left = filled << 1 | (w == 0 ? 1L : occupied[i - 1] >>> 63);
+        long right = filled >>> 1 | (w == words - 1 ? lastBit : occupied[i + 1] << 63);
+        long up = y == 0 ? -1L : occupied[i - words];
+        long down = y == rows - 1 ? -1L : occupied[i + words];
+        holes += Long.bitCount(~filled & valid & left & right & up & down);
+      }
+    }
+    return holes;
+  }
+
+  private static int playable(Grid grid) {
+    int playable = 0;
+    for (int piece = 0; piece < GamePiece.PIECES; piece++) {
+      for (int rotation = 0; rotation < GamePiece.ROTATIONS; rotation++) {
+        if (grid.hasLegalPlacement(GamePiece.getMask(piece, rotation))) {
+          playable++;
+          break;
+        }
+      }
+    }
+    return playable;
+  }
+}
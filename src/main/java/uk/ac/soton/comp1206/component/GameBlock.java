@@ -16,6 +16,7 @@ import javafx.scene.shape.Polygon;
 import javafx.util.Duration;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.utility.TimedAnimationTimer;
 
 /**
  * The Visual User Interface component representing a single block in the grid.
@@ -60,14 +61,19 @@ public class GameBlock extends Canvas {
     /**
      * The column this block exists as in the grid
      */
-    private final int x;
+    private int x;
 
     /**
      * The row this block exists as in the grid
      */
-    private final int y;
+    private int y;
     private Paint currentColour;
 
+    /**
+     * Whether this block is part of the hinted placement
+     */
+    private boolean hint;
+
     /**
      * The value of this block (0 = empty, otherwise specifies the colour to render as)
      */
@@ -144,6 +150,8 @@ public class GameBlock extends Canvas {
         //Border
         gc.setStroke(Color.BLACK);
         gc.strokeRect(0,0,width,height);
+
+        if (hint) paintHint();
     }
 
     /**
@@ -177,6 +185,30 @@ public class GameBlock extends Canvas {
         }, 3);
         gc.setFill(Color.WHITE);
         gc.setGlobalAlpha(0.05);
+
+        if (hint) paintHint();
+    }
+
+    /**
+     * Paint an outline over this block to show it is part of the hinted placement
+     */
+    private void paintHint() {
+        var gc = getGraphicsContext2D();
+        gc.setGlobalAlpha(0.9);
+        gc.setStroke(Color.GOLD);
+        gc.setLineWidth(3);
+        gc.strokeRect(2, 2, width - 4, height - 4);
+        gc.setLineWidth(1);
+    }
+
+    /**
+     * Set whether this block is part of the hinted placement, repainting it if that changes
+     * @param hint true to show the hint on this block
+     */
+    public void setHint(boolean hint) {
+        if (this.hint == hint) return;
+        this.hint = hint;
+        unhover();
     }
 
     /**
@@ -245,9 +277,9 @@ public class GameBlock extends Canvas {
         );
         timeline.setAutoReverse(true);
         timeline.setCycleCount(1);
-        AnimationTimer timer = new AnimationTimer() {
+        AnimationTimer timer = new TimedAnimationTimer("GameBlock.fadeOut") {
             @Override
-            public void handle(long now) {
+            protected void tick(long now) {
                 var gc = getGraphicsContext2D();
 
                 // Clears rectangle
@@ -290,6 +322,24 @@ public class GameBlock extends Canvas {
         return y;
     }
 
+    /**
+     * Move this block to represent a different column and row, used when a board scrolls
+     * @param x the new column
+     * @param y the new row
+     */
+    public void setPosition(int x, int y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    /**
+     * Set the value of this block directly, for blocks which are not bound to the Grid
+     * @param value the new value
+     */
+    public void setValue(int value) {
+        this.value.set(value);
+    }
+
     /**
      * Get the current value held by this block, representing it's colour
      * @return value
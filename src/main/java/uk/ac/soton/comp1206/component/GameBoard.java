@@ -10,6 +10,7 @@ import uk.ac.soton.comp1206.event.BlockClickedListener;
 import uk.ac.soton.comp1206.event.BlockHoveredListener;
 import uk.ac.soton.comp1206.event.RightClickedListener;
 import uk.ac.soton.comp1206.game.Grid;
+import uk.ac.soton.comp1206.utility.TimedAnimationTimer;
 
 /**
  * A GameBoard is a visual component to represent the visual GameBoard.
@@ -20,6 +21,10 @@ import uk.ac.soton.comp1206.game.Grid;
  *
  * The GameBoard is only a visual representation and should not contain game logic or model logic in it, which should
  * take place in the Grid.
+ *
+ * Grids larger than MAX_VISIBLE blocks across are shown through a viewport. Only the blocks inside the viewport exist,
+ * and they are moved and repainted from the Grid values as the viewport scrolls or zooms, so the cost of the board does
+ * not grow with the size of the grid.
  */
 public class GameBoard extends GridPane {
 
@@ -48,16 +53,56 @@ public class GameBoard extends GridPane {
      */
     private final double height;
 
+    /**
+     * The largest number of blocks shown across or down before the board switches to a viewport
+     */
+    public static final int MAX_VISIBLE = 16;
+
+    /**
+     * The smallest and largest number of blocks a viewport can be zoomed to show across
+     */
+    private static final int MIN_ZOOM = 5;
+    private static final int MAX_ZOOM = 32;
+
     /**
      * The grid this GameBoard represents
      */
     final Grid grid;
 
     /**
-     * The blocks inside the grid
+     * The blocks inside the grid, or inside the viewport when the grid is too large to show at once
      */
     GameBlock[][] blocks;
 
+    /**
+     * Whether this board only shows part of the grid
+     */
+    private final boolean viewport;
+
+    /**
+     * The number of columns and rows of blocks being shown
+     */
+    private int viewCols;
+    private int viewRows;
+
+    /**
+     * The column and row of the grid shown in the top left block
+     */
+    private int offsetX;
+    private int offsetY;
+
+    /**
+     * The version of the grid last painted into the viewport
+     */
+    private int paintedVersion;
+
+    /**
+     * The piece mask and centre of the hinted placement, or a mask of 0 when there is no hint
+     */
+    private int hintMask;
+    private int hintX;
+    private int hintY;
+
     /**
      * The listener to call when a specific block is clicked
      */
@@ -77,9 +122,13 @@ public class GameBoard extends GridPane {
         this.width = width;
         this.height = height;
         this.grid = grid;
+        this.viewport = cols > MAX_VISIBLE || rows > MAX_VISIBLE;
+        this.viewCols = Math.min(cols, MAX_VISIBLE);
+        this.viewRows = Math.min(rows, MAX_VISIBLE);
 
         //Build the GameBoard
         build();
+        if (viewport) watchGrid();
     }
 
     /**
@@ -97,6 +146,9 @@ public class GameBoard extends GridPane {
         this.width = width;
         this.height = height;
         this.grid = new Grid(cols,rows);
+        this.viewport = false;
+        this.viewCols = cols;
+        this.viewRows = rows;
 
         //Build the GameBoard
         build();
@@ -106,10 +158,13 @@ public class GameBoard extends GridPane {
      * Get a specific block from the GameBoard, specified by it's row and column
      * @param x column
      * @param y row
-     * @return game block at the given column and row
+     * @return game block at the given column and row, or null if it is outside the viewport
      */
     public GameBlock getBlock(int x, int y) {
-        return blocks[x][y];
+        int viewX = x - offsetX;
+        int viewY = y - offsetY;
+        if (viewX < 0 || viewX >= viewCols || viewY < 0 || viewY >= viewRows) return null;
+        return blocks[viewX][viewY];
     }
 
     /**
@@ -123,10 +178,10 @@ public class GameBoard extends GridPane {
 
         setGridLinesVisible(true);
 
-        blocks = new GameBlock[cols][rows];
+        blocks = new GameBlock[viewCols][viewRows];
 
-        for(var y = 0; y < rows; y++) {
-            for (var x = 0; x < cols; x++) {
+        for(var y = 0; y < viewRows; y++) {
+            for (var x = 0; x < viewCols; x++) {
                 createBlock(x,y);
             }
         }
@@ -139,11 +194,11 @@ public class GameBoard extends GridPane {
      * @return The block created
      */
     protected GameBlock createBlock(int x, int y) {
-        var blockWidth = width / cols;
-        var blockHeight = height / rows;
+        var blockWidth = width / viewCols;
+        var blockHeight = height / viewRows;
 
         //Create a new GameBlock UI component
-        GameBlock block = new GameBlock(this, x, y, blockWidth, blockHeight);
+        GameBlock block = new GameBlock(this, x + offsetX, y + offsetY, blockWidth, blockHeight);
         block.getStyleClass().add("gameBlock");
 
         //Add to the GridPane
@@ -152,8 +207,12 @@ public class GameBoard extends GridPane {
         //Add to our block directory
         blocks[x][y] = block;
 
-        //Link the GameBlock component to the corresponding value in the Grid
-        block.bind(grid.getGridProperty(x,y));
+        //Link the GameBlock component to the corresponding value in the Grid, or copy the value in a viewport
+        if (viewport) {
+            block.setValue(grid.get(x + offsetX, y + offsetY));
+        } else {
+            block.bind(grid.getGridProperty(x,y));
+        }
 
         //Add a mouse click handler to the block to trigger GameBoard blockClicked method
         block.setOnMouseClicked((e) -> {
@@ -166,6 +225,113 @@ public class GameBoard extends GridPane {
         return block;
     }
 
+    /**
+     * Scroll the viewport by a number of columns and rows, staying within the grid
+     * @param x columns to scroll
+     * @param y rows to scroll
+     */
+    public void scroll(int x, int y) {
+        if (!viewport) return;
+        int newX = Math.max(0, Math.min(cols - viewCols, offsetX + x));
+        int newY = Math.max(0, Math.min(rows - viewRows, offsetY + y));
+        if (newX == offsetX && newY == offsetY) return;
+        offsetX = newX;
+        offsetY = newY;
+
+        //Move every block to its new position
+        for (int viewY = 0; viewY < viewRows; viewY++) {
+            for (int viewX = 0; viewX < viewCols; viewX++) {
+                blocks[viewX][viewY].setPosition(viewX + offsetX, viewY + offsetY);
+            }
+        }
+        repaintViewport();
+    }
+
+    /**
+     * Scroll the viewport just enough for the given block to be shown
+     * @param x column
+     * @param y row
+     */
+    public void ensureVisible(int x, int y) {
+        int scrollX = x < offsetX ? x - offsetX : Math.max(0, x - (offsetX + viewCols - 1));
+        int scrollY = y < offsetY ? y - offsetY : Math.max(0, y - (offsetY + viewRows - 1));
+        scroll(scrollX, scrollY);
+    }
+
+    /**
+     * Zoom the viewport in or out, changing how many blocks are shown across and down
+     * @param blocks the change in the number of blocks shown, negative to zoom in
+     */
+    public void zoom(int blocks) {
+        if (!viewport) return;
+        int newCols = Math.max(MIN_ZOOM, Math.min(Math.min(cols, MAX_ZOOM), viewCols + blocks));
+        int newRows = Math.max(MIN_ZOOM, Math.min(Math.min(rows, MAX_ZOOM), viewRows + blocks));
+        if (newCols == viewCols && newRows == viewRows) return;
+        logger.info("Zooming viewport to {} x {}", newCols, newRows);
+
+        //Keep the centre of the viewport in place
+        int centreX = offsetX + viewCols / 2;
+        int centreY = offsetY + viewRows / 2;
+        viewCols = newCols;
+        viewRows = newRows;
+        offsetX = Math.max(0, Math.min(cols - viewCols, centreX - viewCols / 2));
+        offsetY = Math.max(0, Math.min(rows - viewRows, centreY - viewRows / 2));
+
+        getChildren().clear();
+        build();
+        paintedVersion = grid.getVersion();
+    }
+
+    /**
+     * Copy the current grid values into every block of the viewport
+     */
+    private void repaintViewport() {
+        paintedVersion = grid.getVersion();
+        for (int viewY = 0; viewY < viewRows; viewY++) {
+            for (int viewX = 0; viewX < viewCols; viewX++) {
+                var block = blocks[viewX][viewY];
+                block.setValue(grid.get(viewX + offsetX, viewY + offsetY));
+                block.setHint(isHinted(viewX + offsetX, viewY + offsetY));
+                block.paint();
+            }
+        }
+    }
+
+    /**
+     * Repaint the viewport on each frame in which the grid has changed, and let the mouse wheel scroll and zoom it
+     */
+    private void watchGrid() {
+        paintedVersion = grid.getVersion();
+        var watcher = new TimedAnimationTimer("GameBoard.repaint") {
+            private boolean shown;
+
+            @Override
+            protected void tick(long now) {
+                //Stop once the board has been shown and its scene has been replaced
+                var window = getScene() == null ? null : getScene().getWindow();
+                if (window == null) {
+                    if (shown) stop();
+                    return;
+                }
+                shown = true;
+
+                if (grid.getVersion() != paintedVersion) repaintViewport();
+            }
+        };
+        watcher.start();
+
+        setOnScroll(event -> {
+            int steps = event.getDeltaY() > 0 ? -1 : event.getDeltaY() < 0 ? 1 : 0;
+            if (event.isControlDown()) {
+                zoom(steps);
+            } else if (event.isShiftDown() || event.getDeltaY() == 0) {
+                scroll(event.getDeltaX() > 0 ? -1 : event.getDeltaX() < 0 ? 1 : steps, 0);
+            } else {
+                scroll(0, steps);
+            }
+        });
+    }
+
     /**
      * Set the listener to handle an event when a block is clicked
      * @param listener listener to add
@@ -216,13 +382,60 @@ public class GameBoard extends GridPane {
         }
     }
 
+    /**
+     * Show a hinted placement by outlining the blocks it would fill, replacing any earlier hint
+     * @param mask the 9-bit mask of the piece in the hinted rotation
+     * @param x the x coordinate of the centre
+     * @param y the y coordinate of the centre
+     */
+    public void showHint(int mask, int x, int y) {
+        setHintBlocks(false);
+        hintMask = mask;
+        hintX = x;
+        hintY = y;
+        setHintBlocks(true);
+    }
+
+    /**
+     * Remove any hinted placement
+     */
+    public void clearHint() {
+        setHintBlocks(false);
+        hintMask = 0;
+    }
+
+    /**
+     * Turn the hint on or off for every block of the hinted placement which is in view
+     * @param hint whether to show the hint
+     */
+    private void setHintBlocks(boolean hint) {
+        for (int bits = hintMask; bits != 0; bits &= bits - 1) {
+            int bit = Integer.numberOfTrailingZeros(bits);
+            var block = getBlock(hintX + bit % 3 - 1, hintY + bit / 3 - 1);
+            if (block != null) block.setHint(hint);
+        }
+    }
+
+    /**
+     * Whether a block is part of the hinted placement
+     * @param x column
+     * @param y row
+     * @return true if the hint covers the block
+     */
+    private boolean isHinted(int x, int y) {
+        int col = x - hintX + 1;
+        int row = y - hintY + 1;
+        return col >= 0 && col < 3 && row >= 0 && row < 3 && (hintMask & (1 << (row * 3 + col))) != 0;
+    }
+
     /**
      * Handles fading out the blocks passed
      * @param coordinates The coordinates of the blocks to fade out
      */
     public void fadeOut(Set<GameBlockCoordinate> coordinates) {
         for (GameBlockCoordinate coordinate : coordinates) {
-            getBlock(coordinate.getX(), coordinate.getY()).fadeOut();
+            var block = getBlock(coordinate.getX(), coordinate.getY());
+            if (block != null) block.fadeOut();
         }
     }
 
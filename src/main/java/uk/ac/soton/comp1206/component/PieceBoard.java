@@ -24,14 +24,14 @@ public class PieceBoard extends GameBoard {
    */
   public void displayPiece(GamePiece piece) {
     logger.info("Displaying new piece: " + piece.getValue());
-    int[][] blocks = piece.getBlocks();
+    int mask = piece.getMask();
+    int value = piece.getValue();
 
     for (int y = 0; y < 3; y++) {
       for (int x = 0; x < 3; x++) {
-        grid.set(x, y, blocks[y][x]);
+        grid.set(x, y, (mask & (1 << (y * 3 + x))) != 0 ? value : 0);
       }
-
-      getBlock(1,1).showAim();
     }
+    getBlock(1,1).showAim();
   }
 }
@@ -0,0 +1,16 @@
+package uk.ac.soton.comp1206.event;
+
+/**
+ * The Dead Board listener is used to handle the board being checked each time a piece is dealt in Game. It passes
+ * whether the board is dead, meaning neither piece in hand can be played anywhere, and the share of piece types which
+ * can still be played.
+ */
+public interface DeadBoardListener {
+
+  /**
+   * Handles a board check
+   * @param dead Whether neither the current nor the following piece can be played anywhere
+   * @param survival The share of piece types which can still be played, between 0 and 1
+   */
+  void boardChecked(boolean dead, double survival);
+}
@@ -0,0 +1,82 @@
+package uk.ac.soton.comp1206.event;
+
+import uk.ac.soton.comp1206.game.GamePiece;
+
+/**
+ * The Game Event Sink receives everything that happens inside a GameEngine. Every method does nothing by default, so
+ * only the events of interest need to be handled. Events are delivered on the thread that issued the command to the
+ * engine.
+ */
+public interface GameEventSink {
+
+  /**
+   * Handles a new current piece being taken from the following piece
+   * @param currentPiece The current piece
+   * @param followingPiece The following piece
+   */
+  default void nextPiece(GamePiece currentPiece, GamePiece followingPiece) {}
+
+  /**
+   * Handles the current and following pieces being swapped
+   * @param currentPiece The current piece
+   * @param followingPiece The following piece
+   */
+  default void piecesSwapped(GamePiece currentPiece, GamePiece followingPiece) {}
+
+  /**
+   * Handles the current piece being rotated
+   * @param piece The piece rotated
+   */
+  default void pieceRotated(GamePiece piece) {}
+
+  /**
+   * Handles a piece being played into the grid
+   * @param piece The piece played
+   * @param x The x coordinate of the centre
+   * @param y The y coordinate of the centre
+   */
+  default void piecePlaced(GamePiece piece, int x, int y) {}
+
+  /**
+   * Handles a piece which could not be played
+   * @param piece The piece which could not be played
+   * @param x The x coordinate of the centre
+   * @param y The y coordinate of the centre
+   */
+  default void placementRejected(GamePiece piece, int x, int y) {}
+
+  /**
+   * Handles lines being cleared. The cleared blocks can be read from the grid until the next piece is played.
+   * @param lines The number of lines cleared
+   * @param blocks The number of blocks cleared
+   */
+  default void linesCleared(int lines, int blocks) {}
+
+  /**
+   * Handles a change to any of the score, level, lives or multiplier
+   * @param score The score
+   * @param level The level
+   * @param lives The lives remaining
+   * @param multiplier The multiplier
+   */
+  default void statsChanged(int score, int level, int lives, int multiplier) {}
+
+  /**
+   * Handles the board being checked after a piece is dealt
+   * @param dead Whether neither the current nor the following piece can be played anywhere
+   * @param survival The share of piece types which can still be played
+   */
+  default void boardChecked(boolean dead, double survival) {}
+
+  /**
+   * Handles a life being lost when the timer runs out
+   * @param lives The lives remaining
+   */
+  default void lifeLost(int lives) {}
+
+  /**
+   * Handles the game being lost
+   * @param score The final score
+   */
+  default void gameLost(int score) {}
+}
@@ -0,0 +1,14 @@
+package uk.ac.soton.comp1206.event;
+
+/**
+ * The Puzzle listener is used to handle the event when a puzzle is finished, either by clearing the board with the
+ * last piece or by failing to.
+ */
+public interface PuzzleListener {
+
+  /**
+   * Handles a puzzle finishing
+   * @param solved Whether the board was cleared with the last piece
+   */
+  void puzzleFinished(boolean solved);
+}
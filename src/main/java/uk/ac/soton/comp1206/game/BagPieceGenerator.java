@@ -0,0 +1,50 @@
+package uk.ac.soton.comp1206.game;
+
+import java.util.SplittableRandom;
+
+/**
+ * Deals pieces from a shuffled bag holding one of every piece, refilling the bag once it is empty. Every piece is seen
+ * once in each run of GamePiece.PIECES pieces, so there are no long droughts of a particular piece.
+ */
+public class BagPieceGenerator extends BufferedPieceGenerator {
+  private final SplittableRandom random;
+  private final int[] bag = new int[GamePiece.PIECES];
+  private int remaining;
+
+  /**
+   * Creates a generator from the given seed, able to look a whole bag ahead
+   * @param seed The seed
+   */
+  public BagPieceGenerator(long seed) {
+    this(new SplittableRandom(seed));
+  }
+
+  private BagPieceGenerator(SplittableRandom random) {
+    super(GamePiece.PIECES);
+    this.random = random;
+  }
+
+  @Override
+  protected int generate() {
+    if (remaining == 0) {
+      //Refill and shuffle the bag
+      for (int i = 0; i < bag.length; i++) bag[i] = i;
+      for (int i = bag.length - 1; i > 0; i--) {
+        int j = random.nextInt(i + 1);
+        int temp = bag[i];
+        bag[i] = bag[j];
+        bag[j] = temp;
+      }
+      remaining = bag.length;
+    }
+    return bag[--remaining];
+  }
+
+  /**
+   * Creates a new generator with an independent stream of bags
+   * @return The new generator
+   */
+  public BagPieceGenerator split() {
+    return new BagPieceGenerator(random.split());
+  }
+}
@@ -0,0 +1,122 @@
+package uk.ac.soton.comp1206.game;
+
+/**
+ * The combined result of applying a batch of moves to a GameEngine, along with the outcome of each move. The per move
+ * outcomes are held in primitive arrays which are reused, and only grown, across batches.
+ */
+public class BatchResult {
+  /**
+   * The score recorded for a placement which could not be played
+   */
+  public static final int REJECTED = -1;
+
+  private int[] scores = new int[0];
+  private int[] lines = new int[0];
+  private int[] blocks = new int[0];
+  private int applied;
+  private int rejected;
+  private int totalScore;
+  private int totalLines;
+  private int totalBlocks;
+
+  /**
+   * Clears the result ready for a batch of the given size
+   * @param size The number of moves in the batch
+   */
+  void reset(int size) {
+    if (scores.length < size) {
+      scores = new int[size];
+      lines = new int[size];
+      blocks = new int[size];
+    }
+    applied = 0;
+    rejected = 0;
+    totalScore = 0;
+    totalLines = 0;
+    totalBlocks = 0;
+  }
+
+  /**
+   * Records the outcome of the next move
+   * @param score The score gained, or REJECTED
+   * @param linesCleared The lines cleared
+   * @param blocksCleared The blocks cleared
+   */
+  void record(int score, int linesCleared, int blocksCleared) {
+    scores[applied] = score;
+    lines[applied] = linesCleared;
+    blocks[applied] = blocksCleared;
+    applied++;
+    if (score == REJECTED) {
+      rejected++;
+    } else {
+      totalScore += score;
+      totalLines += linesCleared;
+      totalBlocks += blocksCleared;
+    }
+  }
+
+  /**
+   * Returns the number of moves applied. This is less than the size of the batch if the game was lost part way.
+   * @return The number of moves applied
+   */
+  public int getApplied() {
+    return applied;
+  }
+
+  /**
+   * Returns the number of placements which could not be played
+   * @return The number of rejected moves
+   */
+  public int getRejected() {
+    return rejected;
+  }
+
+  /**
+   * Returns the score gained by the whole batch
+   * @return The total score
+   */
+  public int getTotalScore() {
+    return totalScore;
+  }
+
+  /**
+   * Returns the lines cleared by the whole batch
+   * @return The total lines
+   */
+  public int getTotalLines() {
+    return totalLines;
+  }
+
+  /**
+   * Returns the blocks cleared by the whole batch
+   * @return The total blocks
+   */
+  public int getTotalBlocks() {
+    return totalBlocks;
+  }
+
+  /**
+   * Returns the score gained by each move, or REJECTED. Only the first getApplied entries are in use.
+   * @return The score of each move
+   */
+  public int[] getScores() {
+    return scores;
+  }
+
+  /**
+   * Returns the lines cleared by each move. Only the first getApplied entries are in use.
+   * @return The lines of each move
+   */
+  public int[] getLines() {
+    return lines;
+  }
+
+  /**
+   * Returns the blocks cleared by each move. Only the first getApplied entries are in use.
+   * @return The blocks of each move
+   */
+  public int[] getBlocks() {
+    return blocks;
+  }
+}
@@ -0,0 +1,64 @@
+package uk.ac.soton.comp1206.game;
+
+import java.util.Objects;
+
+/**
+ * A PieceGenerator which generates pieces ahead of time into a fixed size buffer, so upcoming pieces can be looked at
+ * before they are dealt. The buffer is refilled in one go whenever it runs out.
+ */
+public abstract class BufferedPieceGenerator implements PieceGenerator {
+  private final int[] buffer;
+  private int head;
+  private int size;
+
+  /**
+   * Creates a generator able to look the given number of pieces ahead
+   * @param lookahead The size of the buffer
+   */
+  protected BufferedPieceGenerator(int lookahead) {
+    if (lookahead < 1) throw new IllegalArgumentException("Lookahead must be at least 1: " + lookahead);
+    buffer = new int[lookahead];
+  }
+
+  /**
+   * Generates a single new piece
+   * @return The piece number
+   */
+  protected abstract int generate();
+
+  @Override
+  public int next() {
+    if (size == 0) fill();
+    int piece = buffer[head];
+    head = (head + 1) % buffer.length;
+    size--;
+    return piece;
+  }
+
+  /**
+   * Looks at an upcoming piece without dealing it
+   * @param ahead How many pieces ahead to look, where 0 is the piece next will return
+   * @return The piece number
+   * @throws IndexOutOfBoundsException Thrown if ahead is beyond the lookahead of this generator
+   */
+  public int peek(int ahead) {
+    Objects.checkIndex(ahead, buffer.length);
+    if (size <= ahead) fill();
+    return buffer[(head + ahead) % buffer.length];
+  }
+
+  /**
+   * Returns how many pieces ahead this generator can look
+   * @return The size of the buffer
+   */
+  public int getLookahead() {
+    return buffer.length;
+  }
+
+  private void fill() {
+    while (size < buffer.length) {
+      buffer[(head + size) % buffer.length] = generate();
+      size++;
+    }
+  }
+}
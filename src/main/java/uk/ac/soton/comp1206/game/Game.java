@@ -1,25 +1,30 @@
 package uk.ac.soton.comp1206.game;
 
 import java.util.HashSet;
-import java.util.Random;
 import java.util.Set;
-import java.util.Timer;
-import java.util.TimerTask;
 import javafx.application.Platform;
 import javafx.beans.property.SimpleIntegerProperty;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import uk.ac.soton.comp1206.component.GameBlockCoordinate;
+import uk.ac.soton.comp1206.event.DeadBoardListener;
+import uk.ac.soton.comp1206.event.GameEventSink;
 import uk.ac.soton.comp1206.event.GameLoopListener;
 import uk.ac.soton.comp1206.event.GameLostListener;
 import uk.ac.soton.comp1206.event.LineClearListener;
 import uk.ac.soton.comp1206.event.NextPieceListener;
 import uk.ac.soton.comp1206.event.PieceRotatedListener;
+import uk.ac.soton.comp1206.metrics.Counter;
+import uk.ac.soton.comp1206.metrics.LinesClearedEvent;
+import uk.ac.soton.comp1206.metrics.Metrics;
+import uk.ac.soton.comp1206.metrics.PiecePlacedEvent;
+import uk.ac.soton.comp1206.metrics.TimerExpiredEvent;
 import uk.ac.soton.comp1206.utility.Multimedia;
 
 /**
- * The Game class handles the main logic, state and properties of the TetrECS game. Methods to manipulate the game state
- * and to handle actions made by the player should take place inside this class.
+ * The Game class connects the TetrECS game to the interface. The rules and state live in a GameEngine; the Game turns
+ * the player's actions into engine commands, mirrors the engine's state into properties, plays sounds, runs the
+ * countdown timer and passes events on to the interface on the JavaFX thread.
  */
 public class Game {
     /**
@@ -27,6 +32,14 @@ public class Game {
      */
     protected static final Logger logger = LogManager.getLogger(Game.class);
 
+    private static final Counter piecesPlaced = Metrics.get().counter("tetrecs_pieces_placed", "Pieces placed");
+    private static final Counter linesCleared = Metrics.get().counter("tetrecs_lines_cleared", "Lines cleared");
+    private static final Counter blocksCleared = Metrics.get().counter("tetrecs_blocks_cleared", "Blocks cleared");
+    private static final Counter timeouts = Metrics.get().counter("tetrecs_game_loop_timeouts",
+        "Countdowns which ran out before a piece was played");
+    private static final Counter deadBoards = Metrics.get().counter("tetrecs_dead_boards",
+        "Boards on which the pieces in hand could not be played");
+
     /**
      * Number of rows
      */
@@ -37,6 +50,11 @@ public class Game {
      */
     protected final int cols;
 
+    /**
+     * The engine holding the rules and state of the game
+     */
+    protected final GameEngine engine;
+
     /**
      * The grid model linked to the game
      */
@@ -62,13 +80,13 @@ public class Game {
      */
     protected GameLostListener gameLostListener;
     /**
-     * The current piece being played
+     * Listens for board checks
      */
-    protected GamePiece currentPiece;
+    protected DeadBoardListener deadBoardListener;
     /**
-     * The following piece to be played
+     * How long the countdown is cut to once the board is dead, in milliseconds
      */
-    protected GamePiece followingPiece;
+    public static final int DEAD_BOARD_DELAY = 1500;
     /**
      * The score property
      */
@@ -86,9 +104,22 @@ public class Game {
      */
     protected final SimpleIntegerProperty multiplier = new SimpleIntegerProperty();
     /**
-     * The countdown timer
+     * Decides the pieces dealt in this game
+     */
+    protected final PieceGenerator pieces;
+    /**
+     * Runs the countdown timer
+     */
+    protected final GameScheduler scheduler;
+    /**
+     * The deadline of the current countdown
      */
-    protected Timer timer;
+    protected GameScheduler.Deadline countdown;
+
+    /**
+     * The flight recorder event of the placement under way, ended by the engine's placed or rejected callback
+     */
+    private PiecePlacedEvent placement;
 
     /**
      * Create a new game with the specified rows and columns. Creates a corresponding grid model.
@@ -96,12 +127,38 @@ public class Game {
      * @param rows number of rows
      */
     public Game(int cols, int rows) {
+        this(cols, rows, new RandomPieceGenerator(System.nanoTime()));
+    }
+
+    /**
+     * Create a new game with the specified rows and columns, dealing pieces from the given generator. A seeded
+     * generator makes the game reproducible.
+     * @param cols number of columns
+     * @param rows number of rows
+     * @param pieces decides the pieces dealt
+     */
+    public Game(int cols, int rows, PieceGenerator pieces) {
+        this(cols, rows, pieces, GameScheduler.shared());
+    }
+
+    /**
+     * Create a new game with the specified rows and columns, dealing pieces from the given generator and running its
+     * countdown on the given scheduler.
+     * @param cols number of columns
+     * @param rows number of rows
+     * @param pieces decides the pieces dealt
+     * @param scheduler runs the countdown timer
+     */
+    public Game(int cols, int rows, PieceGenerator pieces, GameScheduler scheduler) {
         this.cols = cols;
         this.rows = rows;
+        this.pieces = pieces;
+        this.scheduler = scheduler;
 
-        //Create a new grid model to represent the game state
-        this.grid = new Grid(cols,rows);
-        timer = new Timer();
+        //Create a new engine and grid model to represent the game state
+        this.engine = new GameEngine(cols, rows, this::spawnPiece);
+        this.grid = engine.getGrid();
+        engine.setEventSink(new EngineEvents());
     }
 
     /**
@@ -109,6 +166,7 @@ public class Game {
      */
     public void start() {
         logger.info("Starting game");
+        if (pieces instanceof RandomPieceGenerator random) logger.info("Piece seed: " + random.getSeed());
         initialiseGame();
     }
 
@@ -117,14 +175,7 @@ public class Game {
      */
     public void initialiseGame() {
         logger.info("Initialising game");
-        score.set(0);
-        level.set(0);
-        lives.set(3);
-        multiplier.set(1);
-
-        //Generate first pieces
-        followingPiece = spawnPiece();
-        nextPiece();
+        engine.start();
     }
 
     /**
@@ -133,20 +184,58 @@ public class Game {
      * @param y The y coorinate of the clicked block
      */
     public void blockClicked(int x, int y) {
-        //Get the position of this block
+        //Play the piece from the centre if it can be played
+        place(x, y);
+    }
 
-        //Check if the piece can be played from the centre
-        if (grid.canPlayPiece(currentPiece, x, y)) {
-            //Play the piece
-            grid.playPiece(currentPiece, x, y);
-            Multimedia.playAudio("sounds/place.wav");
-            timer.cancel();
-            timer = new Timer();
-            afterPiece();
-        } else {
-            // Plays fail sound
-            Multimedia.playAudio("sounds/fail.wav");
-        }
+    /**
+     * Play the current piece centred on the given block, if it fits, recording the placement for the flight recorder
+     * @param x The x coordinate of the centre
+     * @param y The y coordinate of the centre
+     * @return true if the piece was played
+     */
+    protected boolean place(int x, int y) {
+        placement = new PiecePlacedEvent();
+        placement.begin();
+        return engine.place(x, y);
+    }
+
+    /**
+     * Ends the placement event, straight after the engine has checked the piece and played it or turned it down
+     * @param piece The piece
+     * @param x The x coordinate of the centre
+     * @param y The y coordinate of the centre
+     * @param placed true if the piece was played
+     */
+    private void endPlacement(GamePiece piece, int x, int y, boolean placed) {
+        var event = placement;
+        placement = null;
+        if (event == null) return;
+        event.end();
+        if (!event.shouldCommit()) return;
+        event.piece = piece.toString();
+        event.rotation = piece.getRotation();
+        event.x = x;
+        event.y = y;
+        event.placed = placed;
+        event.commit();
+    }
+
+    /**
+     * Copy the full state of this game into a snapshot
+     * @return The snapshot
+     */
+    public GameSnapshot snapshot() {
+        return engine.snapshot();
+    }
+
+    /**
+     * Put the full state from a snapshot back into this game, such as to undo a move
+     * @param snapshot A snapshot taken from this game
+     */
+    public void restore(GameSnapshot snapshot) {
+        logger.info("Restoring game snapshot");
+        engine.restore(snapshot);
     }
 
     /**
@@ -174,115 +263,25 @@ public class Game {
     }
 
     /**
-     * Creates and returns a new piece
-     * @return The new piece created
+     * Decides the next piece
+     * @return The number of the new piece
      */
-    protected GamePiece spawnPiece() {
-        int randomNumber = new Random().nextInt( 15);
-        logger.info("Spawning new piece: " + randomNumber);
-        return GamePiece.createPiece(randomNumber);
+    protected int spawnPiece() {
+        return pieces.next();
     }
 
     /**
-     * Generates a new piece and starts the timer
+     * Builds the coordinates of the blocks removed by the last line clear, for the interface to animate
+     * @return The coordinates of the cleared blocks
      */
-    protected void nextPiece() {
-        logger.info("Switching pieces");
-
-        //Spawns new following piece
-        currentPiece = followingPiece;
-        followingPiece = spawnPiece();
-
-        //Runs gameloop when countdown finishes
-        timer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                logger.info("Timer finished");
-                gameLoop();
-            }
-        }, getTimerDelay());
-
-        //Fires listeners to let interface know that timer has started
-        Platform.runLater(() -> {
-            gameLoopListener.timerStarted(getTimerDelay());
-            nextPieceListener.nextPiece(currentPiece, followingPiece);
-        });
-    }
-
-    /**
-     * Checks if there are lines to be cleared after playing a piece and clears them
-     */
-    protected void afterPiece() {
-        logger.info("Checking for lines to be cleared");
-        int lines = 0;
-        HashSet<GameBlockCoordinate> blocksToClear = new HashSet<>();
-
-        //Checks for columns to clear
-        for (int x = 0; x < cols; x++) {
-            logger.info("Checking column: x = " + x);
-            var columnBlocks = new HashSet<GameBlockCoordinate>();
-            for (int y = 0; y < rows; y++) {
-                var block = new GameBlockCoordinate(x, y);
-                columnBlocks.add(block);
-                if (grid.get(x, y) == 0) break;
-                else if (y == rows - 1) {
-                    blocksToClear.addAll(columnBlocks);
-                    lines++;
-                }
-            }
+    protected Set<GameBlockCoordinate> getClearedCoordinates() {
+        int[] cleared = grid.getClearedBlocks();
+        int count = grid.getClearedCount();
+        var coordinates = new HashSet<GameBlockCoordinate>(count * 2);
+        for (int i = 0; i < count; i++) {
+            coordinates.add(new GameBlockCoordinate(cleared[i] % cols, cleared[i] / cols));
         }
-
-        //Checks for rows to clear
-        for (int y = 0; y < rows; y++) {
-            logger.info("Checking row: y = " + y);
-            var rowBlocks = new HashSet<GameBlockCoordinate>();
-            for (int x = 0; x < cols; x++) {
-                var block = new GameBlockCoordinate(x, y);
-                rowBlocks.add(block);
-                if (grid.get(x, y) == 0) break;
-                else if (x == cols - 1) {
-                    blocksToClear.addAll(rowBlocks);
-                    lines++;
-                }
-            }
-        }
-
-        //Clears blocks
-        for (GameBlockCoordinate block : blocksToClear) {
-            logger.info("Clearing x " + block.getX() + " y " + block.getY());
-            grid.set(block.getX(), block.getY(), 0);
-        }
-        score(lines, blocksToClear);
-        logger.info(lines + " line(s) cleared, " + blocksToClear.size() + " blocks cleared");
-    }
-
-    /**
-     * Calculates the score based on the lines and blocks cleared
-     * @param lines The number of lines cleared
-     * @param blocks The coordinates of the blocks to be cleared
-     */
-    public void score(int lines, Set<GameBlockCoordinate> blocks) {
-        logger.info("Calculating score");
-
-        //Calculates score
-        int noBlocks = blocks.size();
-        int scoreIncrease = lines * noBlocks * 10 * multiplier.get();
-        score.set(score.get() + scoreIncrease);
-
-        //Increases or resets level
-        if (lines >= 1) {
-            multiplier.set(multiplier.get() + 1);
-            lineClearListener.clearLine(lines, blocks);
-        } else {
-            multiplier.set(1);
-        }
-        int oldLevel = level.get();
-        int newLevel = Math.floorDiv(score.get(), 1000);
-        if (newLevel > oldLevel) level.set(newLevel);
-
-        logger.info("Player gained " + scoreIncrease + " points");
-
-        nextPiece();
+        return coordinates;
     }
 
     /**
@@ -325,6 +324,14 @@ public class Game {
         this.gameLostListener = listener;
     }
 
+    /**
+     * Sets what happens when the board is checked each time a piece is dealt
+     * @param listener The dead board listener
+     */
+    public void setDeadBoardListener(DeadBoardListener listener) {
+        this.deadBoardListener = listener;
+    }
+
     /**
      * Returns the score property
      * @return The score property
@@ -357,18 +364,21 @@ public class Game {
         return multiplier;
     }
 
+    /**
+     * Returns the engine holding the rules and state of this game
+     * @return The game engine
+     */
+    public GameEngine getEngine() {
+        return engine;
+    }
+
     /**
      * Handles rotating a piece a number of times
      * @param times The number of times for the piece to be rotated
      */
     public void rotateCurrentPiece(int times) {
         logger.info("Rotating Current Piece " + times + " times");
-        currentPiece.rotate(times);
-
-        //Let interface know
-        Platform.runLater(() -> {
-            pieceRotatedListener.pieceRotated(currentPiece);
-        });
+        engine.rotate(times);
     }
 
     /**
@@ -376,12 +386,7 @@ public class Game {
      */
     public void swapCurrentPiece() {
         logger.info("Swapping Current Piece and Following Piece");
-        var temp = followingPiece;
-        followingPiece = currentPiece;
-        currentPiece = temp;
-        Platform.runLater(() -> {
-            nextPieceListener.nextPiece(currentPiece, followingPiece);
-        });
+        engine.swap();
     }
 
     /**
@@ -389,7 +394,7 @@ public class Game {
      * @return The delay for the timer
      */
     public int getTimerDelay() {
-        int timerDelay = Math.max(2500, 12000 - (level.get() * 500));
+        int timerDelay = engine.getTimerDelay();
         logger.info("Calculated timer delay: " + timerDelay + "ms");
         return timerDelay;
     }
@@ -398,25 +403,142 @@ public class Game {
      * Handles what happens when a timer completes
      */
     protected void gameLoop() {
-        if (lives.get() > 0) {
-            lives.set(lives.get() - 1);
-            multiplier.set(1);
-            nextPiece();
+        engine.tick();
+    }
+
+    /**
+     * Cancels the timer
+     */
+    public void cancelTimer() {
+        if (countdown != null) countdown.cancel();
+    }
+
+    /**
+     * Starts the countdown for the current piece, running the game loop when it finishes
+     */
+    private void startTimer() {
+        startTimer(getTimerDelay());
+    }
+
+    /**
+     * Starts a countdown of the given length, running the game loop when it finishes
+     * @param delay The length of the countdown in milliseconds
+     */
+    private void startTimer(int delay) {
+        cancelTimer();
+        countdown = scheduler.schedule(() -> {
+            logger.info("Timer finished");
+            timeouts.increment();
+            var event = new TimerExpiredEvent();
+            event.begin();
+            gameLoop();
+            event.end();
+            if (event.shouldCommit()) {
+                event.delay = delay;
+                event.commit();
+            }
+        }, delay);
+    }
+
+    /**
+     * Reacts to the events of the engine on behalf of the interface
+     */
+    private class EngineEvents implements GameEventSink {
+        @Override
+        public void nextPiece(GamePiece currentPiece, GamePiece followingPiece) {
+            logger.info("Switching pieces");
+
+            //Runs gameloop when countdown finishes
+            startTimer();
+
+            //Fires listeners to let interface know that timer has started
+            int delay = getTimerDelay();
+            Platform.runLater(() -> {
+                gameLoopListener.timerStarted(delay);
+                nextPieceListener.nextPiece(currentPiece, followingPiece);
+            });
+        }
+
+        @Override
+        public void piecesSwapped(GamePiece currentPiece, GamePiece followingPiece) {
+            Platform.runLater(() -> {
+                nextPieceListener.nextPiece(currentPiece, followingPiece);
+            });
+        }
+
+        @Override
+        public void pieceRotated(GamePiece piece) {
+            //Let interface know
+            Platform.runLater(() -> {
+                pieceRotatedListener.pieceRotated(piece);
+            });
+        }
+
+        @Override
+        public void piecePlaced(GamePiece piece, int x, int y) {
+            endPlacement(piece, x, y, true);
+            logger.info("Playing piece at: x = " + x + ", y = " + y);
+            piecesPlaced.increment();
+            Multimedia.playAudio("sounds/place.wav");
+            cancelTimer();
+        }
+
+        @Override
+        public void placementRejected(GamePiece piece, int x, int y) {
+            endPlacement(piece, x, y, false);
+            // Plays fail sound
+            Multimedia.playAudio("sounds/fail.wav");
+        }
+
+        @Override
+        public void linesCleared(int lines, int blocks) {
+            logger.info(lines + " line(s) cleared, " + blocks + " blocks cleared");
+            linesCleared.add(lines);
+            blocksCleared.add(blocks);
+            var event = new LinesClearedEvent();
+            if (event.shouldCommit()) {
+                event.lines = lines;
+                event.blocks = blocks;
+                event.commit();
+            }
+            if (lineClearListener != null) lineClearListener.clearLine(lines, getClearedCoordinates());
+        }
+
+        @Override
+        public void statsChanged(int newScore, int newLevel, int newLives, int newMultiplier) {
+            score.set(newScore);
+            multiplier.set(newMultiplier);
+            level.set(newLevel);
+            lives.set(newLives);
+        }
+
+        @Override
+        public void boardChecked(boolean dead, double survival) {
+            if (dead) {
+                deadBoards.increment();
+                //Nothing can be played, so there is no point waiting for the full countdown
+                logger.info("Dead board, cutting the countdown to " + DEAD_BOARD_DELAY + "ms");
+                startTimer(DEAD_BOARD_DELAY);
+            }
+            Platform.runLater(() -> {
+                if (dead && gameLoopListener != null) gameLoopListener.timerStarted(DEAD_BOARD_DELAY);
+                if (deadBoardListener != null) deadBoardListener.boardChecked(dead, survival);
+            });
+        }
+
+        @Override
+        public void lifeLost(int remaining) {
             logger.info("Player lost a life");
             Multimedia.playAudio("sounds/lifelose.wav");
-        } else {
+        }
+
+        @Override
+        public void gameLost(int finalScore) {
             Multimedia.playAudio("sounds/explode.wav");
             logger.info("Player lost the game");
             Platform.runLater(() -> {
-                gameLostListener.gameLost(score.get());
+                gameLostListener.gameLost(finalScore);
             });
         }
     }
-
-    /**
-     * Cancels the timer
-     */
-    public void cancelTimer() {
-        timer.cancel();
-    }
 }
@@ -0,0 +1,466 @@
+package uk.ac.soton.comp1206.game;
+
+import uk.ac.soton.comp1206.event.GameEventSink;
+
+/**
+ * The GameEngine holds the rules and state of a game of TetrECS without depending on JavaFX, sound or timers. It is
+ * driven by explicit commands (place, rotate, swap and tick) and reports what happens to a GameEventSink.
+ *
+ * The engine does not keep time itself; whoever drives it decides when the timer has run out and calls tick.
+ */
+public class GameEngine {
+    /**
+     * The sink used when nobody is listening
+     */
+    private static final GameEventSink NO_EVENTS = new GameEventSink() {};
+
+    /**
+     * The number of lives a game starts with
+     */
+    public static final int STARTING_LIVES = 3;
+
+    /**
+     * The grid model the game is played on
+     */
+    private final Grid grid;
+
+    /**
+     * Decides each new piece
+     */
+    private final PieceGenerator pieces;
+
+    /**
+     * Receives the events of this engine
+     */
+    private GameEventSink events = NO_EVENTS;
+
+    private GamePiece currentPiece;
+    private GamePiece followingPiece;
+    private int score;
+    private int level;
+    private int lives;
+    private int multiplier;
+    private boolean lost;
+
+    /**
+     * Whether the board is checked for legal placements each time a piece is dealt
+     */
+    private boolean boardChecks = true;
+
+    /**
+     * The result of the last board check
+     */
+    private boolean dead;
+    private double survival = 1;
+
+    /**
+     * The number of board checks made, and how many found a dead board
+     */
+    private long checkCount;
+    private long deadCount;
+
+    /**
+     * The outcome of the last placement
+     */
+    private int lastScore;
+    private int lastLines;
+    private int lastBlocks;
+
+    /**
+     * Create a new engine with the specified rows and columns
+     * @param cols number of columns
+     * @param rows number of rows
+     * @param pieces decides each new piece
+     */
+    public GameEngine(int cols, int rows, PieceGenerator pieces) {
+        this.grid = new Grid(cols, rows);
+        this.pieces = pieces;
+    }
+
+    /**
+     * Create a new engine with the same grid size and state as another, dealing pieces from the given generator. The
+     * new engine reports no events until a sink is set.
+     * @param other the engine to copy
+     * @param pieces decides each new piece
+     */
+    public GameEngine(GameEngine other, PieceGenerator pieces) {
+        this(other.grid.getCols(), other.grid.getRows(), pieces);
+        restore(other.snapshot());
+    }
+
+    /**
+     * Set the sink to report events to
+     * @param events The event sink, or null to stop reporting events
+     */
+    public void setEventSink(GameEventSink events) {
+        this.events = events == null ? NO_EVENTS : events;
+    }
+
+    /**
+     * Reset the score, level, lives and multiplier and deal the first pieces
+     */
+    public void start() {
+        score = 0;
+        level = 0;
+        lives = STARTING_LIVES;
+        multiplier = 1;
+        lost = false;
+        events.statsChanged(score, level, lives, multiplier);
+
+        //Generate first pieces
+        followingPiece = GamePiece.createPiece(pieces.next());
+        nextPiece();
+    }
+
+    /**
+     * Play the current piece centred on the given block, if it fits
+     * @param x The x coordinate of the centre
+     * @param y The y coordinate of the centre
+     * @return true if the piece was played
+     */
+    public boolean place(int x, int y) {
+        if (lost || !grid.canPlayPiece(currentPiece, x, y)) {
+            events.placementRejected(currentPiece, x, y);
+            return false;
+        }
+
+        grid.playPiece(currentPiece, x, y);
+        events.piecePlaced(currentPiece, x, y);
+        afterPiece(x, y);
+        nextPiece();
+        return true;
+    }
+
+    /**
+     * Apply a sequence of packed moves in one go. No events are reported while the moves are applied; once the batch
+     * is finished the sink is told the new pieces and stats once. Stops early if the game is lost.
+     * @param moves The packed moves, see Move
+     * @param offset The index of the first move to apply
+     * @param count The number of moves to apply
+     * @param result Filled with the combined and per move results
+     * @return The result passed in
+     */
+    public BatchResult applyMoves(int[] moves, int offset, int count, BatchResult result) {
+        result.reset(count);
+        var sink = events;
+        events = NO_EVENTS;
+        try {
+            for (int i = offset; i < offset + count && !lost; i++) {
+                int move = moves[i];
+                if (move == Move.SWAP) {
+                    swap();
+                    result.record(0, 0, 0);
+                } else if (move == Move.TICK) {
+                    tick();
+                    result.record(0, 0, 0);
+                } else {
+                    int rotation = currentPiece.getRotation();
+                    currentPiece.rotate(Move.rotation(move) - rotation);
+                    if (place(Move.x(move), Move.y(move))) {
+                        result.record(lastScore, lastLines, lastBlocks);
+                    } else {
+                        //A rejected move leaves the piece as it was
+                        currentPiece.rotate(rotation - currentPiece.getRotation());
+                        result.record(BatchResult.REJECTED, 0, 0);
+                    }
+                }
+            }
+        } finally {
+            events = sink;
+        }
+
+        if (result.getApplied() > 0) {
+            events.statsChanged(score, level, lives, multiplier);
+            if (lost) {
+                events.gameLost(score);
+            } else {
+                events.nextPiece(currentPiece, followingPiece);
+                if (boardChecks) events.boardChecked(dead, survival);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Rotate the current piece a number of times
+     * @param times The number of times for the piece to be rotated
+     */
+    public void rotate(int times) {
+        currentPiece.rotate(times);
+        events.pieceRotated(currentPiece);
+    }
+
+    /**
+     * Swap the current and following pieces
+     */
+    public void swap() {
+        var temp = followingPiece;
+        followingPiece = currentPiece;
+        currentPiece = temp;
+        events.piecesSwapped(currentPiece, followingPiece);
+    }
+
+    /**
+     * Handle the timer running out. A life is lost and the next piece dealt, or the game is lost if no lives remain.
+     */
+    public void tick() {
+        if (lost) return;
+        if (lives > 0) {
+            lives--;
+            multiplier = 1;
+            events.statsChanged(score, level, lives, multiplier);
+            nextPiece();
+            events.lifeLost(lives);
+        } else {
+            lost = true;
+            events.gameLost(score);
+        }
+    }
+
+    /**
+     * Calculates the timer delay based on the current level
+     * @return The delay for the timer in milliseconds
+     */
+    public int getTimerDelay() {
+        return Math.max(2500, 12000 - (level * 500));
+    }
+
+    /**
+     * Clears any completed lines after playing a piece and updates the score
+     * @param x The x coordinate the piece was played at
+     * @param y The y coordinate the piece was played at
+     */
+    private void afterPiece(int x, int y) {
+        //Only lines through the played piece can have been completed
+        int lines = grid.clearLines(x, y);
+        int blocks = grid.getClearedCount();
+
+        lastScore = lines * blocks * 10 * multiplier;
+        lastLines = lines;
+        lastBlocks = blocks;
+        score += lastScore;
+        if (lines >= 1) {
+            multiplier++;
+            events.linesCleared(lines, blocks);
+        } else {
+            multiplier = 1;
+        }
+        level = Math.max(level, Math.floorDiv(score, 1000));
+        events.statsChanged(score, level, lives, multiplier);
+    }
+
+    /**
+     * Move the following piece into play and deal a new following piece
+     */
+    private void nextPiece() {
+        currentPiece = followingPiece;
+        followingPiece = GamePiece.createPiece(pieces.next());
+        events.nextPiece(currentPiece, followingPiece);
+        if (boardChecks) checkBoard();
+    }
+
+    /**
+     * Check whether either piece in hand can be played anywhere, and estimate the chance of surviving the next deal as
+     * the share of piece types which can still be played. Each piece type needs at most one bitset search per rotation,
+     * stopping at the first legal placement found.
+     */
+    private void checkBoard() {
+        boolean currentPlayable = false;
+        boolean followingPlayable = false;
+        int playable = 0;
+        for (int type = 0; type < GamePiece.PIECES; type++) {
+            if (!isPlayable(type)) continue;
+            playable++;
+            if (type == currentPiece.getType()) currentPlayable = true;
+            if (type == followingPiece.getType()) followingPlayable = true;
+        }
+
+        survival = (double) playable / GamePiece.PIECES;
+        dead = !currentPlayable && !followingPlayable;
+        checkCount++;
+        if (dead) deadCount++;
+        events.boardChecked(dead, survival);
+    }
+
+    /**
+     * Whether a piece type can be played anywhere on the grid, in any rotation
+     * @param type The piece number
+     * @return true if there is a legal placement
+     */
+    private boolean isPlayable(int type) {
+        for (int rotation = 0; rotation < GamePiece.ROTATIONS; rotation++) {
+            if (grid.hasLegalPlacement(GamePiece.getMask(type, rotation))) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Turn the board check made each time a piece is dealt on or off. Engines used only for searching can turn it off
+     * to save time.
+     * @param boardChecks whether to check the board
+     */
+    public void setBoardChecks(boolean boardChecks) {
+        this.boardChecks = boardChecks;
+    }
+
+    /**
+     * Whether the last board check found that neither the current nor the following piece can be played anywhere. The
+     * only way forward from a dead board is for the timer to run out.
+     * @return true if the board is dead
+     */
+    public boolean isDead() {
+        return dead;
+    }
+
+    /**
+     * Get the share of piece types which could be played when the board was last checked, which is the chance that a
+     * newly dealt piece has somewhere to go
+     * @return the survival estimate, between 0 and 1
+     */
+    public double getSurvival() {
+        return survival;
+    }
+
+    /**
+     * Get the number of board checks made since this engine was created
+     * @return the number of checks
+     */
+    public long getBoardCheckCount() {
+        return checkCount;
+    }
+
+    /**
+     * Get the number of board checks which found a dead board since this engine was created
+     * @return the number of dead boards
+     */
+    public long getDeadBoardCount() {
+        return deadCount;
+    }
+
+    /**
+     * Copy the full state of this engine into a new snapshot
+     * @return The snapshot
+     */
+    public GameSnapshot snapshot() {
+        return snapshot(new GameSnapshot(grid.snapshot()));
+    }
+
+    /**
+     * Copy the full state of this engine into an existing snapshot, reusing its arrays
+     * @param snapshot A snapshot previously taken from an engine with the same grid size
+     * @return The snapshot passed in
+     */
+    public GameSnapshot snapshot(GameSnapshot snapshot) {
+        grid.snapshot(snapshot.grid);
+        snapshot.currentType = currentPiece == null ? -1 : currentPiece.getType();
+        snapshot.currentRotation = currentPiece == null ? 0 : currentPiece.getRotation();
+        snapshot.followingType = followingPiece == null ? -1 : followingPiece.getType();
+        snapshot.followingRotation = followingPiece == null ? 0 : followingPiece.getRotation();
+        snapshot.score = score;
+        snapshot.level = level;
+        snapshot.lives = lives;
+        snapshot.multiplier = multiplier;
+        snapshot.lost = lost;
+        return snapshot;
+    }
+
+    /**
+     * Put the full state from a snapshot back into this engine, then report the restored stats and pieces
+     * @param snapshot A snapshot taken from an engine with the same grid size
+     */
+    public void restore(GameSnapshot snapshot) {
+        grid.restore(snapshot.grid);
+        currentPiece = restorePiece(currentPiece, snapshot.currentType, snapshot.currentRotation);
+        followingPiece = restorePiece(followingPiece, snapshot.followingType, snapshot.followingRotation);
+        score = snapshot.score;
+        level = snapshot.level;
+        lives = snapshot.lives;
+        multiplier = snapshot.multiplier;
+        lost = snapshot.lost;
+        events.statsChanged(score, level, lives, multiplier);
+        if (currentPiece != null) {
+            events.piecesSwapped(currentPiece, followingPiece);
+            if (boardChecks) checkBoard();
+        }
+    }
+
+    /**
+     * Get a piece of the given type and rotation, reusing the existing piece when it already matches
+     * @param piece The existing piece
+     * @param type The piece number, or -1 for no piece
+     * @param rotation The rotation
+     * @return The restored piece
+     */
+    private static GamePiece restorePiece(GamePiece piece, int type, int rotation) {
+        if (type < 0) return null;
+        if (piece != null && piece.getType() == type) {
+            piece.rotate(rotation - piece.getRotation());
+            return piece;
+        }
+        return GamePiece.createPiece(type, rotation);
+    }
+
+    /**
+     * Get the grid model the game is played on
+     * @return game grid model
+     */
+    public Grid getGrid() {
+        return grid;
+    }
+
+    /**
+     * Get the piece currently being played
+     * @return The current piece
+     */
+    public GamePiece getCurrentPiece() {
+        return currentPiece;
+    }
+
+    /**
+     * Get the piece to be played next
+     * @return The following piece
+     */
+    public GamePiece getFollowingPiece() {
+        return followingPiece;
+    }
+
+    /**
+     * Get the score
+     * @return The score
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Get the level
+     * @return The level
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Get the lives remaining
+     * @return The lives remaining
+     */
+    public int getLives() {
+        return lives;
+    }
+
+    /**
+     * Get the multiplier
+     * @return The multiplier
+     */
+    public int getMultiplier() {
+        return multiplier;
+    }
+
+    /**
+     * Whether the game has been lost
+     * @return true once the timer has run out with no lives remaining
+     */
+    public boolean isLost() {
+        return lost;
+    }
+}
@@ -5,6 +5,10 @@ package uk.ac.soton.comp1206.game;
  *
  * The GamePiece class also contains a factory for producing a GamePiece of a particular shape, as specified by it's
  * number.
+ *
+ * The shape of every piece in every rotation is worked out once and shared, so a GamePiece is only a piece number and a
+ * rotation. Shapes are held as 9-bit masks of the 3x3 grid, where bit (row * 3 + column) is set when that block is
+ * filled.
  */
 public class GamePiece {
     /**
@@ -13,120 +17,102 @@ public class GamePiece {
     public static final int PIECES = 15;
 
     /**
-     * The 2D grid representation of the shape of this piece
+     * The number of distinct rotations of a piece
      */
-    private int[][] blocks;
+    public static final int ROTATIONS = 4;
 
     /**
-     * The value of this piece
+     * The names of each piece
      */
-    private final int value;
+    private static final String[] NAMES = {
+        "Line", "C", "Plus", "Dot", "Square", "L", "J", "S", "Z", "T", "X", "Corner", "Inverse Corner", "Diagonal",
+        "Double"
+    };
 
     /**
-     * The name of this piece
+     * The shape of each piece before any rotation
      */
-    private final String name;
+    private static final int[][][] SHAPES = {
+        //Line
+        {{0, 0, 0}, {1, 1, 1}, {0, 0, 0}},
+        //C
+        {{0, 0, 0}, {1, 1, 1}, {1, 0, 1}},
+        //Plus
+        {{0, 1, 0}, {1, 1, 1}, {0, 1, 0}},
+        //Dot
+        {{0, 0, 0}, {0, 1, 0}, {0, 0, 0}},
+        //Square
+        {{1, 1, 0}, {1, 1, 0}, {0, 0, 0}},
+        //L
+        {{0, 0, 0}, {1, 1, 1}, {0, 0, 1}},
+        //J
+        {{0, 0, 1}, {1, 1, 1}, {0, 0, 0}},
+        //S
+        {{0, 0, 0}, {0, 1, 1}, {1, 1, 0}},
+        //Z
+        {{1, 1, 0}, {0, 1, 1}, {0, 0, 0}},
+        //T
+        {{1, 0, 0}, {1, 1, 0}, {1, 0, 0}},
+        //X
+        {{1, 0, 1}, {0, 1, 0}, {1, 0, 1}},
+        //Corner
+        {{0, 0, 0}, {1, 1, 0}, {1, 0, 0}},
+        //Inverse Corner
+        {{1, 0, 0}, {1, 1, 0}, {0, 0, 0}},
+        //Diagonal
+        {{1, 0, 0}, {0, 1, 0}, {0, 0, 1}},
+        //Double
+        {{0, 1, 0}, {0, 1, 0}, {0, 0, 0}}
+    };
 
     /**
-     * Create a new GamePiece of the specified piece number
-     * @param piece piece number
-     * @return the created GamePiece
+     * The mask of every piece in every rotation, indexed by piece number then rotation
      */
-    public static GamePiece createPiece(int piece) {
-        switch (piece) {
-            //Line
-            case 0 -> {
-                int[][] blocks = {{0, 0, 0}, {1, 1, 1}, {0, 0, 0}};
-                return new GamePiece("Line", blocks, 1);
-            }
-
-            //C
-            case 1 -> {
-                int[][] blocks = {{0, 0, 0}, {1, 1, 1}, {1, 0, 1}};
-                return new GamePiece("C", blocks, 2);
-            }
-
-            //Plus
-            case 2 -> {
-                int[][] blocks = {{0, 1, 0}, {1, 1, 1}, {0, 1, 0}};
-                return new GamePiece("Plus", blocks, 3);
-            }
-
-            //Dot
-            case 3 -> {
-                int[][] blocks = {{0, 0, 0}, {0, 1, 0}, {0, 0, 0}};
-                return new GamePiece("Dot", blocks, 4);
-            }
-
-            //Square
-            case 4 -> {
-                int[][] blocks = {{1, 1, 0}, {1, 1, 0}, {0, 0, 0}};
-                return new GamePiece("Square", blocks, 5);
-            }
-
-            //L
-            case 5 -> {
-                int[][] blocks = {{0, 0, 0}, {1, 1, 1}, {0, 0, 1}};
-                return new GamePiece("L", blocks, 6);
-            }
-
-            //J
-            case 6 -> {
-                int[][] blocks = {{0, 0, 1}, {1, 1, 1}, {0, 0, 0}};
-                return new GamePiece("J", blocks, 7);
-            }
-
-            //S
-            case 7 -> {
-                int[][] blocks = {{0, 0, 0}, {0, 1, 1}, {1, 1, 0}};
-                return new GamePiece("S", blocks, 8);
-            }
+    private static final int[][] MASKS = new int[PIECES][ROTATIONS];
 
-            //Z
-            case 8 -> {
-                int[][] blocks = {{1, 1, 0}, {0, 1, 1}, {0, 0, 0}};
-                return new GamePiece("Z", blocks, 9);
-            }
-
-            //T
-            case 9 -> {
-                int[][] blocks = {{1, 0, 0}, {1, 1, 0}, {1, 0, 0}};
-                return new GamePiece("T", blocks, 10);
-            }
-
-            //X
-            case 10 -> {
-                int[][] blocks = {{1, 0, 1}, {0, 1, 0}, {1, 0, 1}};
-                return new GamePiece("X", blocks, 11);
+    /**
+     * The 2D grid of every piece in every rotation, filled with the value of the piece
+     */
+    private static final int[][][][] BLOCKS = new int[PIECES][ROTATIONS][][];
+
+    static {
+        for (int piece = 0; piece < PIECES; piece++) {
+            int mask = 0;
+            for (int row = 0; row < 3; row++) {
+                for (int col = 0; col < 3; col++) {
+                    if (SHAPES[piece][row][col] != 0) mask |= 1 << (row * 3 + col);
+                }
             }
 
-            //Corner
-            case 11 -> {
-                int[][] blocks = {{0, 0, 0}, {1, 1, 0}, {1, 0, 0}};
-                return new GamePiece("Corner", blocks, 12);
+            for (int rotation = 0; rotation < ROTATIONS; rotation++) {
+                MASKS[piece][rotation] = mask;
+                BLOCKS[piece][rotation] = toBlocks(mask, piece + 1);
+                mask = rotateMask(mask);
             }
+        }
+    }
 
-            //Inverse Corner
-            case 12 -> {
-                int[][] blocks = {{1, 0, 0}, {1, 1, 0}, {0, 0, 0}};
-                return new GamePiece("Inverse Corner", blocks, 13);
-            }
+    /**
+     * The number of this piece
+     */
+    private final int type;
 
-            //Diagonal
-            case 13 -> {
-                int[][] blocks = {{1, 0, 0}, {0, 1, 0}, {0, 0, 1}};
-                return new GamePiece("Diagonal", blocks, 14);
-            }
+    /**
+     * The current rotation of this piece, between 0 and 3
+     */
+    private int rotation;
 
-            //Double
-            case 14 -> {
-                int[][] blocks = {{0, 1, 0}, {0, 1, 0}, {0, 0, 0}};
-                return new GamePiece("Double", blocks, 15);
-            }
+    /**
+     * Create a new GamePiece of the specified piece number
+     * @param piece piece number
+     * @return the created GamePiece
+     */
+    public static GamePiece createPiece(int piece) {
+        if (piece < 0 || piece >= PIECES) {
+            //Not a valid piece number
+            throw new IndexOutOfBoundsException("No such piece: " + piece);
         }
-
-        //Not a valid piece number
-        throw new IndexOutOfBoundsException("No such piece: " + piece);
+        return new GamePiece(piece, 0);
     }
 
     /**
@@ -143,24 +129,24 @@ public class GamePiece {
     }
 
     /**
-     * Create a new GamePiece with the given name, block makeup and value. Should not be called directly, only via the
+     * Create a new GamePiece with the given piece number and rotation. Should not be called directly, only via the
      * factory.
-     * @param name name of the piece
-     * @param blocks block makeup of the piece
-     * @param value the value of this piece
-     */
-    private GamePiece(String name, int[][] blocks, int value) {
-        this.name = name;
-        this.blocks = blocks;
-        this.value = value;
-
-        //Use the shape of the block to create a grid with either 0 (empty) or the value of this shape for each block.
-        for(int x = 0; x < blocks.length; x++) {
-            for (int y = 0; y < blocks[x].length; y++) {
-                if(blocks[x][y] == 0) continue;
-                blocks[x][y] = value;
-            }
-        }
+     * @param type piece number
+     * @param rotation the starting rotation
+     */
+    private GamePiece(int type, int rotation) {
+        this.type = type;
+        this.rotation = rotation;
+    }
+
+    /**
+     * Get the shared mask of a piece in a given rotation
+     * @param piece piece number
+     * @param rotation rotation, between 0 and 3
+     * @return the 9-bit mask of the piece
+     */
+    public static int getMask(int piece, int rotation) {
+        return MASKS[piece][rotation & 3];
     }
 
     /**
@@ -168,15 +154,40 @@ public class GamePiece {
      * @return piece value
      */
     public int getValue() {
-        return value;
+        return type + 1;
+    }
+
+    /**
+     * Get the number of this piece
+     * @return piece number
+     */
+    public int getType() {
+        return type;
+    }
+
+    /**
+     * Get the current rotation of this piece
+     * @return rotation, between 0 and 3
+     */
+    public int getRotation() {
+        return rotation;
     }
 
     /**
-     * Get the block makeup of this piece
+     * Get the mask of this piece in its current rotation
+     * @return the 9-bit mask of the piece
+     */
+    public int getMask() {
+        return MASKS[type][rotation];
+    }
+
+    /**
+     * Get the block makeup of this piece. The array is shared between all pieces of this shape and rotation, so must
+     * not be modified.
      * @return 2D grid of the blocks representing the piece shape
      */
     public int[][] getBlocks() {
-        return blocks;
+        return BLOCKS[type][rotation];
     }
 
     /**
@@ -184,38 +195,53 @@ public class GamePiece {
      * @param rotations number of rotations
      */
     public void rotate(int rotations) {
-        for(int rotated = 0; rotated < rotations; rotated ++) {
-            rotate();
-        }
+        rotation = (rotation + rotations) & 3;
     }
 
     /**
-     * Rotate this piece exactly once by rotating it's 3x3 grid
+     * Rotate this piece exactly once
      */
     public void rotate() {
-        int[][] rotated = new int[blocks.length][blocks[0].length];
-        rotated[2][0] = blocks[0][0];
-        rotated[1][0] = blocks[0][1];
-        rotated[0][0] = blocks[0][2];
-
-        rotated[2][1] = blocks[1][0];
-        rotated[1][1] = blocks[1][1];
-        rotated[0][1] = blocks[1][2];
-
-        rotated[2][2] = blocks[2][0];
-        rotated[1][2] = blocks[2][1];
-        rotated[0][2] = blocks[2][2];
+        rotate(1);
+    }
 
-        blocks = rotated;
+    /**
+     * Rotate a 9-bit mask once, in the same direction as rotating the 3x3 grid
+     * @param mask the mask to rotate
+     * @return the rotated mask
+     */
+    private static int rotateMask(int mask) {
+        int rotated = 0;
+        for (int row = 0; row < 3; row++) {
+            for (int col = 0; col < 3; col++) {
+                if ((mask & (1 << (row * 3 + col))) != 0) rotated |= 1 << ((2 - col) * 3 + row);
+            }
+        }
+        return rotated;
     }
 
+    /**
+     * Expand a 9-bit mask into a 3x3 grid holding either 0 (empty) or the value of the piece
+     * @param mask the mask to expand
+     * @param value the value of the piece
+     * @return the 2D grid of blocks
+     */
+    private static int[][] toBlocks(int mask, int value) {
+        int[][] blocks = new int[3][3];
+        for (int row = 0; row < 3; row++) {
+            for (int col = 0; col < 3; col++) {
+                if ((mask & (1 << (row * 3 + col))) != 0) blocks[row][col] = value;
+            }
+        }
+        return blocks;
+    }
 
     /**
      * Return the string representation of this piece
      * @return the name of this piece
      */
     public String toString() {
-        return this.name;
+        return NAMES[type];
     }
 
     /**
@@ -0,0 +1,107 @@
+package uk.ac.soton.comp1206.game;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A GameScheduler runs game timeouts at a deadline measured on a monotonic clock. Every scheduled task returns a
+ * Deadline which can be cancelled, so a countdown can be replaced without creating any new threads.
+ *
+ * The shared scheduler runs in real time on a single daemon thread used by every game. A VirtualGameScheduler instead
+ * only moves time forward when told to, so tests and simulations can run game time faster than real time.
+ */
+public abstract class GameScheduler {
+
+  /**
+   * A task waiting to run at a deadline
+   */
+  public interface Deadline {
+
+    /**
+     * Stops the task from running, if it has not already run
+     * @return true if the task was cancelled before running
+     */
+    boolean cancel();
+
+    /**
+     * Returns whether the task has run or been cancelled
+     * @return true once the task will no longer run
+     */
+    boolean isDone();
+
+    /**
+     * Returns the time left before the task runs
+     * @return The remaining time in nanoseconds, zero or less once due
+     */
+    long remainingNanos();
+  }
+
+  /**
+   * Returns the current time of this scheduler's clock
+   * @return The time in nanoseconds, only meaningful relative to other readings
+   */
+  public abstract long nanoTime();
+
+  /**
+   * Runs a task once the given delay has passed
+   * @param task The task to run
+   * @param delayMillis The delay in milliseconds
+   * @return The deadline of the task, which can be used to cancel it
+   */
+  public abstract Deadline schedule(Runnable task, long delayMillis);
+
+  /**
+   * Returns the real time scheduler shared by every game
+   * @return The shared scheduler
+   */
+  public static GameScheduler shared() {
+    return RealTime.INSTANCE;
+  }
+
+  /**
+   * The real time scheduler, using System.nanoTime and one daemon thread
+   */
+  private static class RealTime extends GameScheduler {
+    private static final RealTime INSTANCE = new RealTime();
+
+    private final ScheduledThreadPoolExecutor executor;
+
+    private RealTime() {
+      executor = new ScheduledThreadPoolExecutor(1, task -> {
+        var thread = new Thread(task, "Game Scheduler");
+        thread.setDaemon(true);
+        return thread;
+      });
+
+      //Cancelled countdowns are removed straight away rather than waiting for their deadline
+      executor.setRemoveOnCancelPolicy(true);
+    }
+
+    @Override
+    public long nanoTime() {
+      return System.nanoTime();
+    }
+
+    @Override
+    public Deadline schedule(Runnable task, long delayMillis) {
+      ScheduledFuture<?> future = executor.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+      return new Deadline() {
+        @Override
+        public boolean cancel() {
+          return future.cancel(false);
+        }
+
+        @Override
+        public boolean isDone() {
+          return future.isDone();
+        }
+
+        @Override
+        public long remainingNanos() {
+          return future.getDelay(TimeUnit.NANOSECONDS);
+        }
+      };
+    }
+  }
+}
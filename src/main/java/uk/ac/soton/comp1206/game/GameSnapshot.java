@@ -0,0 +1,53 @@
+package uk.ac.soton.comp1206.game;
+
+/**
+ * A copy of the full state of a GameEngine: the grid, the current and following pieces, score, level, lives and
+ * multiplier. Taken with GameEngine.snapshot and put back with GameEngine.restore, and reusable in the same way as a
+ * GridSnapshot.
+ *
+ * The piece generator is not part of the snapshot, so the pieces dealt after restoring carry on from the generator.
+ */
+public class GameSnapshot {
+  final GridSnapshot grid;
+  int currentType;
+  int currentRotation;
+  int followingType;
+  int followingRotation;
+  int score;
+  int level;
+  int lives;
+  int multiplier;
+  boolean lost;
+
+  /**
+   * Creates an empty snapshot around a grid snapshot
+   * @param grid The grid snapshot to hold the board
+   */
+  GameSnapshot(GridSnapshot grid) {
+    this.grid = grid;
+  }
+
+  /**
+   * Returns the board at the time of the snapshot
+   * @return The grid snapshot
+   */
+  public GridSnapshot getGrid() {
+    return grid;
+  }
+
+  /**
+   * Returns the score at the time of the snapshot
+   * @return The score
+   */
+  public int getScore() {
+    return score;
+  }
+
+  /**
+   * Returns the lives remaining at the time of the snapshot
+   * @return The lives
+   */
+  public int getLives() {
+    return lives;
+  }
+}
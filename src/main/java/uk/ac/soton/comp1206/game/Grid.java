@@ -1,24 +1,23 @@
 package uk.ac.soton.comp1206.game;
 
+import java.util.Arrays;
+import java.util.Objects;
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.SimpleIntegerProperty;
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
 
 /**
  * The Grid is a model which holds the state of a game board. It is made up of a set of Integer values arranged in a 2D
  * arrow, with rows and columns.
  *
- * Each value inside the Grid is an IntegerProperty can be bound to enable modification and display of the contents of
- * the grid.
+ * The values are held in a flat primitive array alongside an occupancy bitset, so the game logic never touches JavaFX.
+ * An IntegerProperty for a block is only created when it is requested through getGridProperty, and can then be bound
+ * to enable modification and display of the contents of the grid.
  *
  * The Grid contains functions related to modifying the model, for example, placing a piece inside the grid.
  *
  * The Grid should be linked to a GameBoard for it's display.
  */
 public class Grid {
-    private final static Logger logger = LogManager.getLogger(Grid.class);
-
     /**
      * The number of columns in this grid
      */
@@ -30,9 +29,74 @@ public class Grid {
     private final int rows;
 
     /**
-     * The grid is a 2D arrow with rows and columns of SimpleIntegerProperties.
+     * The number of longs used to hold the occupancy of a single row
+     */
+    private final int wordsPerRow;
+
+    /**
+     * The value of every block in the grid, stored row by row (index = y * cols + x)
+     */
+    private final int[] values;
+
+    /**
+     * A bitset holding whether each block is filled. Each row starts on a new long, so block (x, y) is bit (x % 64) of
+     * word (y * wordsPerRow + x / 64).
+     */
+    private final long[] occupied;
+
+    /**
+     * The bits of the last long of each row which represent blocks in the grid
+     */
+    private final long lastWordMask;
+
+    /**
+     * The number of filled blocks in each row
+     */
+    private final int[] rowCounts;
+
+    /**
+     * The number of filled blocks in each column
+     */
+    private final int[] colCounts;
+
+    /**
+     * Bitset of the blocks removed by the last call to clearLines, laid out the same as the occupancy bitset
+     */
+    private final long[] clearedMask;
+
+    /**
+     * The blocks removed by the last call to clearLines, packed as y * cols + x
+     */
+    private final int[] clearedBlocks;
+
+    /**
+     * The number of entries in use in clearedBlocks
+     */
+    private int clearedCount;
+
+    /**
+     * The full rows and columns found by the last call to clearLines, remembered so the mask can be reset cheaply
+     */
+    private final int[] fullRows = new int[3];
+    private final int[] fullCols = new int[3];
+    private int fullRowCount;
+    private int fullColCount;
+
+    /**
+     * Counts every change to the values of the grid, so views can tell when they need redrawing
+     */
+    private int version;
+
+    /**
+     * Zobrist hash of which blocks are filled: the XOR of the key of every filled block, kept up to date as blocks fill
+     * and empty
+     */
+    private long hash;
+
+    /**
+     * The properties handed out for binding, created on demand. Null until the first property is requested.
      */
-    private final SimpleIntegerProperty[][] grid;
+    private IntegerProperty[] properties;
 
     /**
      * Create a new Grid with the specified number of columns and rows and initialise them
@@ -43,25 +107,96 @@ public class Grid {
         this.cols = cols;
         this.rows = rows;
 
-        //Create the grid itself
-        grid = new SimpleIntegerProperty[cols][rows];
+        //Create the grid itself, every block starts empty
+        wordsPerRow = (cols + 63) >>> 6;
+        values = new int[cols * rows];
+        occupied = new long[wordsPerRow * rows];
+        rowCounts = new int[rows];
+        colCounts = new int[cols];
+        clearedMask = new long[occupied.length];
+        clearedBlocks = new int[3 * (cols + rows)];
+        lastWordMask = (cols & 63) == 0 ? -1L : (1L << cols) - 1;
+    }
+
+    /**
+     * Copy the contents of this grid into a new snapshot
+     * @return the snapshot
+     */
+    public GridSnapshot snapshot() {
+        return snapshot(new GridSnapshot(cols, rows, occupied.length));
+    }
+
+    /**
+     * Copy the contents of this grid into an existing snapshot, reusing its arrays
+     * @param snapshot a snapshot previously taken from a grid of the same size
+     * @return the snapshot passed in
+     */
+    public GridSnapshot snapshot(GridSnapshot snapshot) {
+        checkSize(snapshot);
+        System.arraycopy(values, 0, snapshot.values, 0, values.length);
+        System.arraycopy(occupied, 0, snapshot.occupied, 0, occupied.length);
+        System.arraycopy(rowCounts, 0, snapshot.rowCounts, 0, rows);
+        System.arraycopy(colCounts, 0, snapshot.colCounts, 0, cols);
+        snapshot.hash = hash;
+        return snapshot;
+    }
 
-        //Add a SimpleIntegerProperty to every block in the grid
-        for(var y = 0; y < rows; y++) {
-            for(var x = 0; x < cols; x++) {
-                grid[x][y] = new SimpleIntegerProperty(0);
+    /**
+     * Put the contents of a snapshot back into this grid. Any properties handed out are updated to match.
+     * @param snapshot a snapshot taken from a grid of the same size
+     */
+    public void restore(GridSnapshot snapshot) {
+        checkSize(snapshot);
+        if (properties != null) {
+            //Only bound blocks need to be compared, everything else is a straight copy
+            for (int index = 0; index < values.length; index++) {
+                if (properties[index] != null && values[index] != snapshot.values[index]) {
+                    values[index] = snapshot.values[index];
+                    properties[index].set(snapshot.values[index]);
+                }
             }
         }
+        System.arraycopy(snapshot.values, 0, values, 0, values.length);
+        System.arraycopy(snapshot.occupied, 0, occupied, 0, occupied.length);
+        System.arraycopy(snapshot.rowCounts, 0, rowCounts, 0, rows);
+        System.arraycopy(snapshot.colCounts, 0, colCounts, 0, cols);
+        hash = snapshot.hash;
+        version++;
+    }
+
+    /**
+     * Make sure a snapshot fits this grid
+     * @param snapshot the snapshot to check
+     */
+    private void checkSize(GridSnapshot snapshot) {
+        if (snapshot.cols != cols || snapshot.rows != rows) {
+            throw new IllegalArgumentException("Snapshot of a " + snapshot.cols + " x " + snapshot.rows
+                + " grid does not fit a " + cols + " x " + rows + " grid");
+        }
     }
 
     /**
      * Get the Integer property contained inside the grid at a given row and column index. Can be used for binding.
+     * The property is created the first time it is requested and kept in step with the grid from then on.
      * @param x column
      * @param y row
      * @return the IntegerProperty at the given x and y in this grid
      */
     public IntegerProperty getGridProperty(int x, int y) {
-        return grid[x][y];
+        int index = index(x, y);
+        if (properties == null) {
+            properties = new IntegerProperty[values.length];
+        }
+
+        var property = properties[index];
+        if (property == null) {
+            property = new SimpleIntegerProperty(values[index]);
+
+            //Changes made through the property are written back into the grid
+            property.addListener((observable, oldValue, newValue) -> store(index, newValue.intValue()));
+            properties[index] = property;
+        }
+        return property;
     }
 
     /**
@@ -71,23 +206,54 @@ public class Grid {
      * @param value the new value
      */
     public void set(int x, int y, int value) {
-        grid[x][y].set(value);
+        int index = index(x, y);
+        store(index, value);
+
+        //Keep any bound property up to date
+        if (properties != null && properties[index] != null) {
+            properties[index].set(value);
+        }
     }
 
     /**
      * Get the value represented at the given x and y index within the grid
      * @param x column
      * @param y row
-     * @return the value
+     * @return the value, or -1 if there is no such block
      */
     public int get(int x, int y) {
-        try {
-            //Get the value held in the property at the x and y index provided
-            return grid[x][y].get();
-        } catch (ArrayIndexOutOfBoundsException e) {
+        if (x < 0 || x >= cols || y < 0 || y >= rows) {
             //No such index
             return -1;
         }
+        return values[y * cols + x];
+    }
+
+    /**
+     * Check whether the block at the given x and y index is filled
+     * @param x column
+     * @param y row
+     * @return true if the block exists and is not empty
+     */
+    public boolean isFilled(int x, int y) {
+        if (x < 0 || x >= cols || y < 0 || y >= rows) return false;
+        return (occupied[y * wordsPerRow + (x >>> 6)] & (1L << x)) != 0;
+    }
+
+    /**
+     * Get the occupancy bitset of this grid. Each row starts on a new long, see getWordsPerRow. Must not be modified.
+     * @return the occupancy bitset
+     */
+    public long[] getOccupied() {
+        return occupied;
+    }
+
+    /**
+     * Get the number of longs used to hold a single row of the occupancy bitset
+     * @return words per row
+     */
+    public int getWordsPerRow() {
+        return wordsPerRow;
     }
 
     /**
@@ -106,6 +272,175 @@ public class Grid {
         return rows;
     }
 
+    /**
+     * Convert an x and y index into an index within the values array
+     * @param x column
+     * @param y row
+     * @return the flat index
+     * @throws IndexOutOfBoundsException if there is no such block
+     */
+    private int index(int x, int y) {
+        Objects.checkIndex(x, cols);
+        Objects.checkIndex(y, rows);
+        return y * cols + x;
+    }
+
+    /**
+     * Write a value into the primitive storage, updating the occupancy bitset
+     * @param index flat index of the block
+     * @param value the new value
+     */
+    private void store(int index, int value) {
+        int old = values[index];
+        if (old == value) return;
+        values[index] = value;
+        version++;
+
+        //Only touch the bitset when the block changes between empty and filled
+        if ((old == 0) != (value == 0)) {
+            int x = index % cols;
+            int word = (index / cols) * wordsPerRow + (x >>> 6);
+            occupied[word] ^= 1L << x;
+            hash ^= blockKey(index);
+
+            //Keep the line counters up to date
+            int change = value == 0 ? -1 : 1;
+            rowCounts[index / cols] += change;
+            colCounts[x] += change;
+        }
+    }
+
+    /**
+     * Get the Zobrist hash of which blocks are filled. Grids with the same blocks filled have the same hash, whatever
+     * order the blocks were filled and cleared in. The values of the blocks are left out, as they never affect play.
+     * @return the hash
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Get the Zobrist key of a block, worked out by mixing its index rather than looked up in a table, so grids of any
+     * size share the same keys
+     * @param index flat index of the block
+     * @return the key
+     */
+    static long blockKey(int index) {
+        return Hashing.mix((index + 1) * Hashing.GOLDEN_GAMMA);
+    }
+
+    /**
+     * Get a number which changes whenever any value in the grid changes
+     * @return the current version of the grid
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Get the number of filled blocks in a row
+     * @param y row
+     * @return filled blocks in the row
+     */
+    public int getRowCount(int y) {
+        return rowCounts[y];
+    }
+
+    /**
+     * Get the number of filled blocks in a column
+     * @param x column
+     * @return filled blocks in the column
+     */
+    public int getColCount(int x) {
+        return colCounts[x];
+    }
+
+    /**
+     * Clears any full rows and columns passing through the 3x3 area centred on the given block, which is every line a
+     * piece played there could have completed. Only the counters of those lines are checked, so no scanning of the
+     * grid takes place. The cleared blocks are then available from getClearedMask and getClearedBlocks until the next
+     * call.
+     * @param x The x coordinate of the centre
+     * @param y The y coordinate of the centre
+     * @return The number of lines cleared
+     */
+    public int clearLines(int x, int y) {
+        //Reset the mask left by the previous clear
+        for (int i = 0; i < fullRowCount; i++) {
+            Arrays.fill(clearedMask, fullRows[i] * wordsPerRow, (fullRows[i] + 1) * wordsPerRow, 0);
+        }
+        for (int i = 0; i < fullColCount; i++) {
+            for (int row = 0; row < rows; row++) {
+                clearedMask[row * wordsPerRow + (fullCols[i] >>> 6)] = 0;
+            }
+        }
+        fullRowCount = 0;
+        fullColCount = 0;
+        clearedCount = 0;
+
+        //Find the full lines
+        for (int row = Math.max(0, y - 1); row <= Math.min(rows - 1, y + 1); row++) {
+            if (rowCounts[row] == cols) fullRows[fullRowCount++] = row;
+        }
+        for (int col = Math.max(0, x - 1); col <= Math.min(cols - 1, x + 1); col++) {
+            if (colCounts[col] == rows) fullCols[fullColCount++] = col;
+        }
+
+        //Mark the blocks before clearing, so crossing lines are both still seen as full
+        for (int i = 0; i < fullRowCount; i++) {
+            for (int col = 0; col < cols; col++) mark(col, fullRows[i]);
+        }
+        for (int i = 0; i < fullColCount; i++) {
+            for (int row = 0; row < rows; row++) mark(fullCols[i], row);
+        }
+
+        //Clear blocks
+        for (int i = 0; i < clearedCount; i++) {
+            int block = clearedBlocks[i];
+            set(block % cols, block / cols, 0);
+        }
+        return fullRowCount + fullColCount;
+    }
+
+    /**
+     * Mark a block as cleared, unless it has already been marked
+     * @param x column
+     * @param y row
+     */
+    private void mark(int x, int y) {
+        int word = y * wordsPerRow + (x >>> 6);
+        long bit = 1L << x;
+        if ((clearedMask[word] & bit) != 0) return;
+        clearedMask[word] |= bit;
+        clearedBlocks[clearedCount++] = y * cols + x;
+    }
+
+    /**
+     * Get the bitset of blocks removed by the last call to clearLines, laid out the same as the occupancy bitset. The
+     * array is reused, so must not be modified or kept.
+     * @return the cleared block bitset
+     */
+    public long[] getClearedMask() {
+        return clearedMask;
+    }
+
+    /**
+     * Get the blocks removed by the last call to clearLines, packed as y * cols + x. Only the first getClearedCount
+     * entries are in use. The array is reused, so must not be modified or kept.
+     * @return the packed cleared blocks
+     */
+    public int[] getClearedBlocks() {
+        return clearedBlocks;
+    }
+
+    /**
+     * Get the number of blocks removed by the last call to clearLines
+     * @return the number of cleared blocks
+     */
+    public int getClearedCount() {
+        return clearedCount;
+    }
+
     /**
      * Determines if a piece can be played based on the block coordinates and the piece
      * @param piece The piece to be played
@@ -114,23 +449,26 @@ public class Grid {
      * @return A boolean representing if the piece can be played
      */
     public boolean canPlayPiece(GamePiece piece, int x, int y) {
-        logger.info("Checking if piece can be played from centre at: x = " + x + ", y = " + y);
-        int[][] blocks = piece.getBlocks();
-        for (int i = -1; i <= 1; i++) {
-            int[] squares = new int[3];
-            squares[0] = get(x - 1, y + i);
-            squares[1] = get(x, y + i);
-            squares[2] = get(x + 1, y + i);
-
-            for (int j = 0; j < 3; j++) {
-                logger.info("Checking: x = " + (x + j - 1) + ", y = " + (y + i));
-                if (blocks[i + 1][j] > 0 && squares[j] != 0) {
-                    logger.info("Piece cannot be played");
-                    return false;
-                }
-            }
+        return canPlayMask(piece.getMask(), x, y);
+    }
+
+    /**
+     * Determines if a piece mask can be played centred on the given block
+     * @param mask The 9-bit mask of the piece
+     * @param x The x coordinate of the aim
+     * @param y The y coordinate of the aim
+     * @return A boolean representing if the piece can be played
+     */
+    public boolean canPlayMask(int mask, int x, int y) {
+        for (int bits = mask; bits != 0; bits &= bits - 1) {
+            int bit = Integer.numberOfTrailingZeros(bits);
+            int blockX = x + bit % 3 - 1;
+            int blockY = y + bit / 3 - 1;
+
+            //Blocks outside the grid count as filled
+            if (blockX < 0 || blockX >= cols || blockY < 0 || blockY >= rows) return false;
+            if (values[blockY * cols + blockX] != 0) return false;
         }
-        logger.info("Piece can be played");
         return true;
     }
 
@@ -141,16 +479,113 @@ public class Grid {
      * @param y The y coordinate of the aim
      */
     public void playPiece(GamePiece piece, int x, int y) {
-        logger.info("Playing piece at: x = " + x + ", y = " + y);
-        int[][] blocks = piece.getBlocks();
-        for (int i = -1; i <= 1; i++) {
-            int square0 = get(x - 1, y + i);
-            int square1 = get(x, y + i);
-            int square2 = get(x + 1, y + i);
+        int value = piece.getValue();
+        for (int bits = piece.getMask(); bits != 0; bits &= bits - 1) {
+            int bit = Integer.numberOfTrailingZeros(bits);
+            int blockX = x + bit % 3 - 1;
+            int blockY = y + bit / 3 - 1;
+            set(blockX, blockY, get(blockX, blockY) + value);
+        }
+    }
 
-            if (blocks[i + 1][0] != 0) set(x - 1, y + i, square0 + blocks[i + 1][0]);
-            if (blocks[i + 1][1] != 0) set(x, y + i, square1 + blocks[i + 1][1]);
-            if (blocks[i + 1][2] != 0) set(x + 1, y + i, square2 + blocks[i + 1][2]);
+    /**
+     * Works out every centre the given piece could be played at, in each of its 4 rotations
+     * @param piece The piece to be played
+     * @return A bitset of legal centres for each rotation, indexed by rotation and laid out the same as the occupancy
+     * bitset
+     */
+    public long[][] getLegalPlacements(GamePiece piece) {
+        var placements = new long[GamePiece.ROTATIONS][occupied.length];
+        for (int rotation = 0; rotation < GamePiece.ROTATIONS; rotation++) {
+            int mask = GamePiece.getMask(piece.getType(), rotation);
+
+            //Symmetric pieces share masks between rotations
+            int previous = 0;
+            while (previous < rotation && GamePiece.getMask(piece.getType(), previous) != mask) previous++;
+            if (previous < rotation) {
+                System.arraycopy(placements[previous], 0, placements[rotation], 0, occupied.length);
+            } else {
+                getLegalPlacements(mask, placements[rotation]);
+            }
+        }
+        return placements;
+    }
+
+    /**
+     * Works out every centre a piece mask could be played at. Rather than checking each centre in turn, the free blocks
+     * of each row are shifted under every block of the piece and combined a long at a time.
+     * @param mask The 9-bit mask of the piece
+     * @param placements The bitset to fill, which must be as long as the occupancy bitset
+     * @return The filled bitset of legal centres
+     */
+    public long[] getLegalPlacements(int mask, long[] placements) {
+        for (int y = 0; y < rows; y++) {
+            for (int word = 0; word < wordsPerRow; word++) {
+                placements[y * wordsPerRow + word] = legalWord(mask, y, word);
+            }
         }
+        return placements;
+    }
+
+    /**
+     * Determines if the given piece can be played anywhere on the grid, in any rotation
+     * @param piece The piece to be played
+     * @return A boolean representing if the piece has any legal placement
+     */
+    public boolean hasLegalPlacement(GamePiece piece) {
+        for (int rotation = 0; rotation < GamePiece.ROTATIONS; rotation++) {
+            if (hasLegalPlacement(GamePiece.getMask(piece.getType(), rotation))) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Determines if a piece mask can be played anywhere on the grid
+     * @param mask The 9-bit mask of the piece
+     * @return A boolean representing if the mask has any legal placement
+     */
+    public boolean hasLegalPlacement(int mask) {
+        for (int y = 0; y < rows; y++) {
+            for (int word = 0; word < wordsPerRow; word++) {
+                if (legalWord(mask, y, word) != 0) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Works out one long of the legal centre bitset for a piece mask
+     * @param mask The 9-bit mask of the piece
+     * @param y The row of centres
+     * @param word The long within the row
+     * @return The legal centres within that long
+     */
+    private long legalWord(int mask, int y, int word) {
+        long legal = freeWord(y, word);
+        for (int bits = mask; bits != 0 && legal != 0; bits &= bits - 1) {
+            int bit = Integer.numberOfTrailingZeros(bits);
+            int row = y + bit / 3 - 1;
+            if (row < 0 || row >= rows) return 0;
+
+            //Line up the free blocks at column offset dx with the centres they would be filled from
+            switch (bit % 3) {
+                case 0 -> legal &= freeWord(row, word) << 1 | freeWord(row, word - 1) >>> 63;
+                case 1 -> legal &= freeWord(row, word);
+                default -> legal &= freeWord(row, word) >>> 1 | freeWord(row, word + 1) << 63;
+            }
+        }
+        return legal;
+    }
+
+    /**
+     * Get one long of the free blocks in a row, with anything outside the grid counted as filled
+     * @param y row
+     * @param word The long within the row
+     * @return The free blocks within that long
+     */
+    private long freeWord(int y, int word) {
+        if (word < 0 || word >= wordsPerRow) return 0;
+        long free = ~occupied[y * wordsPerRow + word];
+        return word == wordsPerRow - 1 ? free & lastWordMask : free;
     }
 }
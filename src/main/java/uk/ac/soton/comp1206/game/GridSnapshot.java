@@ -0,0 +1,58 @@
+package uk.ac.soton.comp1206.game;
+
+/**
+ * A copy of the contents of a Grid, taken with Grid.snapshot and put back with Grid.restore. Holds only primitive
+ * arrays, so taking and restoring a snapshot is a handful of array copies. A snapshot can be reused by passing it back
+ * to Grid.snapshot, which avoids creating any new arrays.
+ */
+public class GridSnapshot {
+  final int cols;
+  final int rows;
+  final int[] values;
+  final long[] occupied;
+  final int[] rowCounts;
+  final int[] colCounts;
+  long hash;
+
+  /**
+   * Creates an empty snapshot sized for the given grid dimensions
+   * @param cols number of columns
+   * @param rows number of rows
+   * @param words number of longs in the occupancy bitset
+   */
+  GridSnapshot(int cols, int rows, int words) {
+    this.cols = cols;
+    this.rows = rows;
+    this.values = new int[cols * rows];
+    this.occupied = new long[words];
+    this.rowCounts = new int[rows];
+    this.colCounts = new int[cols];
+  }
+
+  /**
+   * Returns the value of a block at the time of the snapshot
+   * @param x column
+   * @param y row
+   * @return the value, or -1 if there is no such block
+   */
+  public int get(int x, int y) {
+    if (x < 0 || x >= cols || y < 0 || y >= rows) return -1;
+    return values[y * cols + x];
+  }
+
+  /**
+   * Get the number of columns of the grid this snapshot was taken from
+   * @return number of columns
+   */
+  public int getCols() {
+    return cols;
+  }
+
+  /**
+   * Get the number of rows of the grid this snapshot was taken from
+   * @return number of rows
+   */
+  public int getRows() {
+    return rows;
+  }
+}
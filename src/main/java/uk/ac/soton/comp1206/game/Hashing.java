@@ -0,0 +1,27 @@
+package uk.ac.soton.comp1206.game;
+
+/**
+ * Mixes the bits of numbers, for hash keys and seeds. Zobrist keys, position keys, fingerprints and the seeds of piece
+ * sequences all mix with the finaliser of SplittableRandom, so nearby inputs give unrelated outputs.
+ */
+public final class Hashing {
+  /**
+   * The odd number SplittableRandom steps its state by, 2^64 divided by the golden ratio. Mixing successive multiples
+   * of it gives a stream of well spread values.
+   */
+  public static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+  private Hashing() {
+  }
+
+  /**
+   * Mixes the bits of a value, as SplittableRandom does
+   * @param z The value
+   * @return The mixed value
+   */
+  public static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+}
@@ -0,0 +1,88 @@
+package uk.ac.soton.comp1206.game;
+
+/**
+ * Packs a move into a single int, so sequences of moves can be stored and replayed without creating any objects.
+ *
+ * A placement packs the column, row and rotation of the current piece, each block coordinate taking 12 bits and the
+ * rotation 2 bits. Swapping the pieces and letting the timer run out are given their own negative values.
+ */
+public final class Move {
+  /**
+   * Swap the current and following pieces
+   */
+  public static final int SWAP = -1;
+
+  /**
+   * Let the timer run out, losing a life
+   */
+  public static final int TICK = -2;
+
+  /**
+   * The largest column or row a placement can hold
+   */
+  public static final int MAX_COORDINATE = (1 << 12) - 1;
+
+  private Move() {
+  }
+
+  /**
+   * Packs a placement of the current piece
+   * @param x The x coordinate of the centre
+   * @param y The y coordinate of the centre
+   * @param rotation The rotation of the piece to play, between 0 and 3
+   * @return The packed move
+   */
+  public static int place(int x, int y, int rotation) {
+    if (x < 0 || x > MAX_COORDINATE || y < 0 || y > MAX_COORDINATE) {
+      throw new IllegalArgumentException("Coordinate out of range: x = " + x + ", y = " + y);
+    }
+    return x << 14 | y << 2 | (rotation & 3);
+  }
+
+  /**
+   * Returns whether the move is a placement
+   * @param move The packed move
+   * @return true if the move places the current piece
+   */
+  public static boolean isPlacement(int move) {
+    return move >= 0;
+  }
+
+  /**
+   * Returns the x coordinate of a placement
+   * @param move The packed move
+   * @return The x coordinate of the centre
+   */
+  public static int x(int move) {
+    return move >>> 14;
+  }
+
+  /**
+   * Returns the y coordinate of a placement
+   * @param move The packed move
+   * @return The y coordinate of the centre
+   */
+  public static int y(int move) {
+    return (move >>> 2) & MAX_COORDINATE;
+  }
+
+  /**
+   * Returns the rotation of a placement
+   * @param move The packed move
+   * @return The rotation, between 0 and 3
+   */
+  public static int rotation(int move) {
+    return move & 3;
+  }
+
+  /**
+   * Returns a readable description of a move
+   * @param move The packed move
+   * @return The description
+   */
+  public static String toString(int move) {
+    if (move == SWAP) return "swap";
+    if (move == TICK) return "tick";
+    return "place x = " + x(move) + ", y = " + y(move) + ", rotation = " + rotation(move);
+  }
+}
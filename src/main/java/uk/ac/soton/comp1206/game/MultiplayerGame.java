@@ -9,6 +9,7 @@ import javafx.beans.property.SimpleListProperty;
 import javafx.collections.FXCollections;
 import org.javatuples.Triplet;
 import uk.ac.soton.comp1206.network.Communicator;
+import uk.ac.soton.comp1206.network.MessageParser;
 
 /**
  * The multiplayer implementation of the Game that communicates with the server
@@ -35,59 +36,36 @@ public class MultiplayerGame extends Game {
 
   @Override
   public void start() {
-    communicator.addListener(message -> {
+    communicator.addListener("PIECE", message -> {
+      int piece = MessageParser.parsePiece(MessageParser.getPayload(message));
       Platform.runLater(() -> {
-        if (message.startsWith("PIECE ")) {
-          generatedPieces++;
-          pieceQueue.enqueue(Integer.parseInt(message.substring(6)));
-          if (!started && generatedPieces > 1) {
-            started = true;
-            initialiseGame();
-          }
-        } else if (message.startsWith("SCORES ")) {
-          var playerStatistics = message.substring(7).split("\n");
-
-          playerStats.clear();
-
-          //Loops through player statistics and adds to list property
-          for (var playerStat : playerStatistics) {
-            var statArray = playerStat.split(":");
-            var name = statArray[0];
-            var playerScore = statArray[1];
-            var playerLives = statArray[2];
-
-            var triplet = new Triplet<>(name, Integer.parseInt(playerScore), playerLives);
-            playerStats.add(triplet);
-          }
-          playerStats.sort(Collections.reverseOrder(
-              Comparator.comparing(Triplet<String, Integer, String>::getValue1)));
-        } else if (message.startsWith("SCORE ")) {
-          communicator.send("SCORES");
+        generatedPieces++;
+        pieceQueue.enqueue(piece);
+        if (!started && generatedPieces > 1) {
+          started = true;
+          initialiseGame();
         }
       });
     });
 
+    //Scores are parsed and sorted on the network thread, so the JavaFX thread only swaps the list
+    communicator.addListener("SCORES", message -> {
+      var scores = MessageParser.parseScores(MessageParser.getPayload(message));
+      scores.sort(Collections.reverseOrder(Comparator.comparing(Triplet<String, Integer, String>::getValue1)));
+      Platform.runLater(() -> playerStats.setAll(scores));
+    });
+    communicator.addListener("SCORE", message -> communicator.send("SCORES"));
+
     for (int i = 0; i < pieceQueue.getSize(); i++) {
       communicator.send("PIECE");
     }
   }
   @Override
-  public void initialiseGame() {
-    logger.info("Initialising game");
-    score.set(0);
-    level.set(0);
-    lives.set(3);
-    multiplier.set(1);
-    followingPiece = spawnPiece();
-    nextPiece();
-  }
-
-  @Override
-  protected GamePiece spawnPiece() {
+  protected int spawnPiece() {
     int number = pieceQueue.dequeue();
     logger.info("Spawning new piece: " + number);
     communicator.send("PIECE");
-    return GamePiece.createPiece(number);
+    return number;
   }
 
   /**
@@ -0,0 +1,14 @@
+package uk.ac.soton.comp1206.game;
+
+/**
+ * A PieceGenerator decides which pieces are dealt in a game, as piece numbers between 0 and GamePiece.PIECES - 1.
+ */
+@FunctionalInterface
+public interface PieceGenerator {
+
+  /**
+   * Deal the next piece
+   * @return The piece number
+   */
+  int next();
+}
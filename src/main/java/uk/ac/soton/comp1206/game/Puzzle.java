@@ -0,0 +1,193 @@
+package uk.ac.soton.comp1206.game;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A board to clear with a fixed sequence of pieces. The puzzle is solved when the board is empty straight after the
+ * last piece is played, and the pieces must be played in order, without swapping.
+ *
+ * A puzzle is written as a single line of four fields separated by colons, such as
+ * {@code 5x5:000800008000080dd00088800:5e:330340}. The fields are the size of the board, one hex digit for the value of
+ * each block in row order with 0 for empty, one hex digit for the number of each piece, and the solution as three
+ * base 36 digits for each placement: the x and y of the centre and the rotation.
+ */
+public class Puzzle {
+  /**
+   * The largest number of columns or rows a puzzle can have, so every coordinate fits in one base 36 digit
+   */
+  public static final int MAX_SIZE = 36;
+
+  private final int cols;
+  private final int rows;
+  private final int[] values;
+  private final int[] pieces;
+  private final int[] solution;
+
+  /**
+   * Creates a puzzle
+   * @param cols The number of columns
+   * @param rows The number of rows
+   * @param values The value of each block in row order, 0 for empty
+   * @param pieces The number of each piece, in the order they are dealt
+   * @param solution The packed placement of each piece which clears the board, see Move
+   */
+  public Puzzle(int cols, int rows, int[] values, int[] pieces, int[] solution) {
+    if (cols < 1 || rows < 1 || cols > MAX_SIZE || rows > MAX_SIZE) {
+      throw new IllegalArgumentException("Invalid puzzle size: " + cols + "x" + rows);
+    }
+    if (values.length != cols * rows) {
+      throw new IllegalArgumentException("Expected " + cols * rows + " blocks but got " + values.length);
+    }
+    if (pieces.length == 0 || solution.length != pieces.length) {
+      throw new IllegalArgumentException("Expected one placement for each of " + pieces.length + " pieces");
+    }
+    for (int value : values) {
+      if (value < 0 || value > GamePiece.PIECES) throw new IllegalArgumentException("Invalid block value: " + value);
+    }
+    for (int piece : pieces) {
+      if (piece < 0 || piece >= GamePiece.PIECES) throw new IllegalArgumentException("No such piece: " + piece);
+    }
+    this.cols = cols;
+    this.rows = rows;
+    this.values = values.clone();
+    this.pieces = pieces.clone();
+    this.solution = solution.clone();
+  }
+
+  /**
+   * Reads a puzzle from its line
+   * @param line The line
+   * @return The puzzle
+   * @throws IllegalArgumentException if the line does not hold a puzzle
+   */
+  public static Puzzle parse(String line) {
+    var fields = line.trim().split(":");
+    if (fields.length != 4) throw new IllegalArgumentException("Expected 4 fields in puzzle: " + line);
+    var size = fields[0].split("x");
+    if (size.length != 2) throw new IllegalArgumentException("Invalid puzzle size: " + fields[0]);
+    int cols = Integer.parseInt(size[0]);
+    int rows = Integer.parseInt(size[1]);
+
+    int[] values = digits(fields[1], 16);
+    int[] pieces = digits(fields[2], 16);
+    int[] places = digits(fields[3], 36);
+    if (places.length != pieces.length * 3) {
+      throw new IllegalArgumentException("Expected " + pieces.length + " placements in puzzle: " + line);
+    }
+    int[] solution = new int[pieces.length];
+    for (int i = 0; i < solution.length; i++) {
+      solution[i] = Move.place(places[i * 3], places[i * 3 + 1], places[i * 3 + 2]);
+    }
+    return new Puzzle(cols, rows, values, pieces, solution);
+  }
+
+  /**
+   * Reads every puzzle from a reader, one a line, skipping blank lines and lines starting with #
+   * @param reader The reader
+   * @return The puzzles
+   * @throws IOException if the reader fails
+   * @throws IllegalArgumentException if a line does not hold a puzzle
+   */
+  public static List<Puzzle> readAll(BufferedReader reader) throws IOException {
+    var puzzles = new ArrayList<Puzzle>();
+    String line;
+    while ((line = reader.readLine()) != null) {
+      line = line.trim();
+      if (line.isEmpty() || line.startsWith("#")) continue;
+      puzzles.add(parse(line));
+    }
+    return puzzles;
+  }
+
+  private static int[] digits(String field, int radix) {
+    int[] digits = new int[field.length()];
+    for (int i = 0; i < digits.length; i++) {
+      digits[i] = Character.digit(field.charAt(i), radix);
+      if (digits[i] < 0) throw new IllegalArgumentException("Invalid digit in puzzle field: " + field);
+    }
+    return digits;
+  }
+
+  /**
+   * Fills a grid with the blocks of this puzzle
+   * @param grid A grid the same size as the puzzle
+   */
+  public void fill(Grid grid) {
+    for (int y = 0; y < rows; y++) {
+      for (int x = 0; x < cols; x++) {
+        grid.set(x, y, values[y * cols + x]);
+      }
+    }
+  }
+
+  /**
+   * Returns the number of columns
+   * @return The number of columns
+   */
+  public int getCols() {
+    return cols;
+  }
+
+  /**
+   * Returns the number of rows
+   * @return The number of rows
+   */
+  public int getRows() {
+    return rows;
+  }
+
+  /**
+   * Returns the value of a block at the start of the puzzle
+   * @param x The column
+   * @param y The row
+   * @return The value, 0 for empty
+   */
+  public int get(int x, int y) {
+    return values[y * cols + x];
+  }
+
+  /**
+   * Returns the number of pieces, which is the number of placements needed
+   * @return The number of pieces
+   */
+  public int getMoves() {
+    return pieces.length;
+  }
+
+  /**
+   * Returns the number of a piece
+   * @param index The position of the piece in the sequence
+   * @return The piece number
+   */
+  public int getPiece(int index) {
+    return pieces[index];
+  }
+
+  /**
+   * Returns the placement of a piece in the solution
+   * @param index The position of the piece in the sequence
+   * @return The packed placement, see Move
+   */
+  public int getSolution(int index) {
+    return solution[index];
+  }
+
+  @Override
+  public String toString() {
+    var line = new StringBuilder();
+    line.append(cols).append('x').append(rows).append(':');
+    for (int value : values) line.append(Character.forDigit(value, 16));
+    line.append(':');
+    for (int piece : pieces) line.append(Character.forDigit(piece, 16));
+    line.append(':');
+    for (int move : solution) {
+      line.append(Character.forDigit(Move.x(move), 36));
+      line.append(Character.forDigit(Move.y(move), 36));
+      line.append(Character.forDigit(Move.rotation(move), 36));
+    }
+    return line.toString();
+  }
+}
@@ -0,0 +1,162 @@
+package uk.ac.soton.comp1206.game;
+
+import javafx.application.Platform;
+import uk.ac.soton.comp1206.event.PuzzleListener;
+
+/**
+ * A game played on a Puzzle. The board starts with the puzzle's blocks and the pieces are dealt in the puzzle's order.
+ * Swapping is not allowed, and the puzzle is failed if the countdown runs out or the last piece leaves any blocks on
+ * the board.
+ */
+public class PuzzleGame extends Game {
+  private final Puzzle puzzle;
+  private PuzzleListener puzzleListener;
+  private int dealt;
+  private int placed;
+
+  /**
+   * Whether every placement so far has followed the puzzle's solution
+   */
+  private boolean onSolution;
+  private volatile boolean finished;
+
+  /**
+   * Create a new game on a puzzle
+   * @param puzzle The puzzle
+   */
+  public PuzzleGame(Puzzle puzzle) {
+    super(puzzle.getCols(), puzzle.getRows());
+    this.puzzle = puzzle;
+  }
+
+  @Override
+  public void initialiseGame() {
+    logger.info("Loading puzzle " + puzzle);
+    dealt = 0;
+    placed = 0;
+    onSolution = true;
+    finished = false;
+    puzzle.fill(grid);
+    super.initialiseGame();
+  }
+
+  @Override
+  protected int spawnPiece() {
+    //Once the puzzle's pieces run out, the last one is dealt again to fill the following piece
+    return puzzle.getPiece(Math.min(dealt++, puzzle.getMoves() - 1));
+  }
+
+  @Override
+  public void blockClicked(int x, int y) {
+    if (finished) return;
+    var piece = engine.getCurrentPiece();
+    int mask = piece.getMask();
+    if (!place(x, y)) return;
+
+    int move = puzzle.getSolution(placed);
+    onSolution &= coversSame(mask, x, y, GamePiece.getMask(piece.getType(), Move.rotation(move)), Move.x(move),
+        Move.y(move));
+    placed++;
+    if (placed == puzzle.getMoves()) finish(isCleared());
+  }
+
+  @Override
+  public void swapCurrentPiece() {
+    logger.info("Swapping is not allowed in a puzzle");
+  }
+
+  @Override
+  protected void gameLoop() {
+    logger.info("Ran out of time on the puzzle");
+    finish(false);
+  }
+
+  /**
+   * Ends the puzzle and lets the interface know how it went
+   * @param solved Whether the board was cleared
+   */
+  private void finish(boolean solved) {
+    if (finished) return;
+    finished = true;
+    cancelTimer();
+    logger.info(solved ? "Puzzle solved" : "Puzzle failed");
+    Platform.runLater(() -> {
+      if (puzzleListener != null) puzzleListener.puzzleFinished(solved);
+    });
+  }
+
+  /**
+   * Returns whether two placements cover the same blocks. Rotations of a piece can be shifted copies of each other, as
+   * with the square, so a placement can follow the solution from a different centre and rotation.
+   * @param mask The mask of the first piece, see GamePiece.getMask
+   * @param x The x coordinate of the first centre
+   * @param y The y coordinate of the first centre
+   * @param otherMask The mask of the second piece
+   * @param otherX The x coordinate of the second centre
+   * @param otherY The y coordinate of the second centre
+   * @return true if the same blocks are covered
+   */
+  private static boolean coversSame(int mask, int x, int y, int otherMask, int otherX, int otherY) {
+    int dx = otherX - x;
+    int dy = otherY - y;
+    //Centres three or more apart cannot share a block
+    if (Math.abs(dx) > 2 || Math.abs(dy) > 2) return false;
+    return cover(mask, 0, 0) == cover(otherMask, dx, dy);
+  }
+
+  /**
+   * Works out the blocks a piece covers in a 7x7 area, centred two blocks or less from the middle of the area
+   * @param mask The mask of the piece
+   * @param dx The x coordinate of the centre, relative to the middle
+   * @param dy The y coordinate of the centre, relative to the middle
+   * @return The blocks, bit (row * 7 + column) being set when that block is covered
+   */
+  private static long cover(int mask, int dx, int dy) {
+    long covered = 0;
+    for (int bits = mask; bits != 0; bits &= bits - 1) {
+      int block = Integer.numberOfTrailingZeros(bits);
+      covered |= 1L << ((block / 3 + 2 + dy) * 7 + block % 3 + 2 + dx);
+    }
+    return covered;
+  }
+
+  private boolean isCleared() {
+    for (long word : grid.getOccupied()) {
+      if (word != 0) return false;
+    }
+    return true;
+  }
+
+  /**
+   * Sets what happens when the puzzle is finished
+   * @param listener The puzzle listener
+   */
+  public void setPuzzleListener(PuzzleListener listener) {
+    this.puzzleListener = listener;
+  }
+
+  /**
+   * Returns the puzzle being played
+   * @return The puzzle
+   */
+  public Puzzle getPuzzle() {
+    return puzzle;
+  }
+
+  /**
+   * Returns the number of pieces played so far
+   * @return The number of placements
+   */
+  public int getPlaced() {
+    return placed;
+  }
+
+  /**
+   * Returns the next placement of the solution, as long as every placement so far has followed it
+   * @return The packed placement, see Move, or Move.TICK if the solution has been left or the puzzle is finished
+   */
+  public int getNextSolutionMove() {
+    if (finished || !onSolution || placed >= puzzle.getMoves()) return Move.TICK;
+    return puzzle.getSolution(placed);
+  }
+}
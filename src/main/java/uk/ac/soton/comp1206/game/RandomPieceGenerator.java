@@ -0,0 +1,64 @@
+package uk.ac.soton.comp1206.game;
+
+import java.util.SplittableRandom;
+
+/**
+ * Deals every piece with equal chance, as the original game does. Pieces come from a SplittableRandom, so a generator
+ * created from the same seed always deals the same pieces, and split generators give independent streams which can be
+ * used from different threads without sharing any state.
+ */
+public class RandomPieceGenerator extends BufferedPieceGenerator {
+  /**
+   * The number of pieces generated ahead by default
+   */
+  public static final int DEFAULT_LOOKAHEAD = 16;
+
+  private final SplittableRandom random;
+  private final long seed;
+
+  /**
+   * Creates a generator from the given seed
+   * @param seed The seed
+   */
+  public RandomPieceGenerator(long seed) {
+    this(seed, DEFAULT_LOOKAHEAD);
+  }
+
+  /**
+   * Creates a generator from the given seed, able to look the given number of pieces ahead
+   * @param seed The seed
+   * @param lookahead The number of pieces generated ahead
+   */
+  public RandomPieceGenerator(long seed, int lookahead) {
+    this(seed, new SplittableRandom(seed), lookahead);
+  }
+
+  private RandomPieceGenerator(long seed, SplittableRandom random, int lookahead) {
+    super(lookahead);
+    this.seed = seed;
+    this.random = random;
+  }
+
+  @Override
+  protected int generate() {
+    return random.nextInt(GamePiece.PIECES);
+  }
+
+  /**
+   * Creates a new generator with an independent stream of pieces. Splitting generators created from the same seed in
+   * the same order always gives the same streams.
+   * @return The new generator
+   */
+  public RandomPieceGenerator split() {
+    var child = random.split();
+    return new RandomPieceGenerator(seed, child, getLookahead());
+  }
+
+  /**
+   * Returns the seed this generator, or the generator it was split from, was created with
+   * @return The seed
+   */
+  public long getSeed() {
+    return seed;
+  }
+}
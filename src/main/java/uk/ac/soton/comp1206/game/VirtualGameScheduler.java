@@ -0,0 +1,103 @@
+package uk.ac.soton.comp1206.game;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A GameScheduler with a virtual clock which only moves when advance is called. Due tasks are run on the thread calling
+ * advance, in order of their deadline, so game time can be run as fast as the game can be played and always gives the
+ * same results.
+ *
+ * Not thread safe; a virtual scheduler should be driven by a single thread.
+ */
+public class VirtualGameScheduler extends GameScheduler {
+  private final PriorityQueue<Task> tasks = new PriorityQueue<>();
+  private long now;
+  private long scheduled;
+
+  @Override
+  public long nanoTime() {
+    return now;
+  }
+
+  @Override
+  public Deadline schedule(Runnable task, long delayMillis) {
+    var entry = new Task(task, now + TimeUnit.MILLISECONDS.toNanos(delayMillis), scheduled++);
+    tasks.add(entry);
+    return entry;
+  }
+
+  /**
+   * Moves the clock forward, running every task which falls due on the way, including any they schedule
+   * @param millis The time to move forward in milliseconds
+   */
+  public void advance(long millis) {
+    long target = now + TimeUnit.MILLISECONDS.toNanos(millis);
+    Task next;
+    while ((next = tasks.peek()) != null && next.deadline <= target) {
+      tasks.poll();
+      now = next.deadline;
+      if (!next.done) {
+        next.done = true;
+        next.task.run();
+      }
+    }
+    now = target;
+  }
+
+  /**
+   * Moves the clock straight to the next deadline and runs that task
+   * @return false if there was no task waiting
+   */
+  public boolean runNext() {
+    Task next;
+    while ((next = tasks.poll()) != null) {
+      if (next.done) continue;
+      now = Math.max(now, next.deadline);
+      next.done = true;
+      next.task.run();
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * A task waiting in the virtual scheduler, ordered by deadline then by the order it was scheduled in
+   */
+  private class Task implements Deadline, Comparable<Task> {
+    private final Runnable task;
+    private final long deadline;
+    private final long order;
+    private boolean done;
+
+    private Task(Runnable task, long deadline, long order) {
+      this.task = task;
+      this.deadline = deadline;
+      this.order = order;
+    }
+
+    @Override
+    public boolean cancel() {
+      if (done) return false;
+      done = true;
+      tasks.remove(this);
+      return true;
+    }
+
+    @Override
+    public boolean isDone() {
+      return done;
+    }
+
+    @Override
+    public long remainingNanos() {
+      return deadline - now;
+    }
+
+    @Override
+    public int compareTo(Task other) {
+      int compare = Long.compare(deadline, other.deadline);
+      return compare != 0 ? compare : Long.compare(order, other.order);
+    }
+  }
+}
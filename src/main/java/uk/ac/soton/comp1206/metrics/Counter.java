@@ -0,0 +1,53 @@
+package uk.ac.soton.comp1206.metrics;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A count which only goes up. Adding is lock-free and, once threads stop contending for new cells, allocation-free.
+ */
+public class Counter extends Metric {
+  private final LongAdder count = new LongAdder();
+
+  Counter(String name, String help) {
+    super(name, help);
+  }
+
+  /**
+   * Add one
+   */
+  public void increment() {
+    count.increment();
+  }
+
+  /**
+   * Add an amount
+   * @param amount The amount, which must not be negative
+   */
+  public void add(long amount) {
+    count.add(amount);
+  }
+
+  /**
+   * Returns the count
+   * @return The count
+   */
+  public long get() {
+    return count.sum();
+  }
+
+  @Override
+  public String getType() {
+    return "counter";
+  }
+
+  @Override
+  void writeSamples(StringBuilder out) {
+    out.append(getName()).append("_total ").append(get()).append('\n');
+  }
+
+  @Override
+  void addAttributes(Map<String, Object> attributes) {
+    attributes.put(getName() + "_total", get());
+  }
+}
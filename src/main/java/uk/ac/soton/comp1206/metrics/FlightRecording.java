@@ -0,0 +1,75 @@
+package uk.ac.soton.comp1206.metrics;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A continuous Java Flight Recorder recording of the game events next to the JVM's own GC, thread and I/O events.
+ * Only the last MAX_AGE or MAX_SIZE of events is kept, and it is written to a file when the game exits, or can be
+ * dumped at any time with jcmd.
+ *
+ * Started by launching the game with --record, or --record=file.jfr to choose the file.
+ */
+public class FlightRecording {
+  private static final Logger logger = LogManager.getLogger(FlightRecording.class);
+
+  /**
+   * The file the recording is written to, in the working directory, when none is given
+   */
+  public static final String RECORDING_FILE = "tetrecs.jfr";
+
+  /**
+   * The oldest events kept
+   */
+  private static final Duration MAX_AGE = Duration.ofMinutes(10);
+
+  /**
+   * The most events kept, in bytes
+   */
+  private static final long MAX_SIZE = 100L << 20;
+
+  private static Recording recording;
+
+  /**
+   * Starts the recording if one of the command line arguments asks for it
+   * @param args The command line arguments
+   */
+  public static void startIfRequested(String[] args) {
+    for (var arg : args) {
+      if (arg.equals("--record")) {
+        start(Path.of(RECORDING_FILE));
+      } else if (arg.startsWith("--record=")) {
+        start(Path.of(arg.substring("--record=".length())));
+      }
+    }
+  }
+
+  /**
+   * Starts recording with the default JFR settings, unless already recording. Failures are logged rather than thrown,
+   * so the game runs without a recording instead of not at all.
+   * @param file The file written when the game exits
+   */
+  public static synchronized void start(Path file) {
+    if (recording != null) return;
+    try {
+      var started = new Recording(Configuration.getConfiguration("default"));
+      started.setName("TetrECS");
+      started.setToDisk(true);
+      started.setMaxAge(MAX_AGE);
+      started.setMaxSize(MAX_SIZE);
+      started.setDestination(file);
+      started.setDumpOnExit(true);
+      started.start();
+      recording = started;
+      logger.info("Flight recording started, keeping the last " + MAX_AGE.toMinutes() + " minutes in " + file);
+    } catch (IOException | ParseException | IllegalStateException | SecurityException exception) {
+      logger.error("Unable to start the flight recording: " + exception);
+    }
+  }
+}
@@ -0,0 +1,39 @@
+package uk.ac.soton.comp1206.metrics;
+
+import java.util.Map;
+import java.util.function.DoubleSupplier;
+
+/**
+ * A value read when the metrics are published, such as the heap in use
+ */
+public class Gauge extends Metric {
+  private final DoubleSupplier value;
+
+  Gauge(String name, String help, DoubleSupplier value) {
+    super(name, help);
+    this.value = value;
+  }
+
+  /**
+   * Reads the value
+   * @return The value
+   */
+  public double get() {
+    return value.getAsDouble();
+  }
+
+  @Override
+  public String getType() {
+    return "gauge";
+  }
+
+  @Override
+  void writeSamples(StringBuilder out) {
+    out.append(getName()).append(' ').append(get()).append('\n');
+  }
+
+  @Override
+  void addAttributes(Map<String, Object> attributes) {
+    attributes.put(getName(), get());
+  }
+}
@@ -0,0 +1,164 @@
+package uk.ac.soton.comp1206.metrics;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts recorded values in log-linear buckets, in the manner of an HDR histogram: each power of two is split into
+ * SUB_BUCKETS equal buckets, so any value from 0 up to Long.MAX_VALUE is placed to within 1/16 of itself in a fixed
+ * array. Recording is a few atomic adds, with no locks and no allocation once threads stop contending for new cells.
+ *
+ * Values are recorded as whole numbers, such as nanoseconds, and multiplied by the scale when published, so a latency
+ * recorded in nanoseconds is published in seconds.
+ */
+public class Histogram extends Metric {
+  private static final int SUB_BITS = 4;
+
+  /**
+   * The number of buckets each power of two is split into
+   */
+  static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+  /**
+   * Enough buckets for every long which is not negative
+   */
+  static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+  /**
+   * The quantiles published as JMX attributes
+   */
+  private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+  private final double scale;
+
+  Histogram(String name, String help, double scale) {
+    super(name, help);
+    this.scale = scale;
+  }
+
+  /**
+   * Record a value
+   * @param value The value, with negative values counted as 0
+   */
+  public void record(long value) {
+    if (value < 0) value = 0;
+    buckets.incrementAndGet(index(value));
+    count.increment();
+    sum.add(value);
+    max.accumulate(value);
+  }
+
+  /**
+   * Record the time since a start time from System.nanoTime, for histograms of nanoseconds
+   * @param startNanos The start time
+   */
+  public void recordSince(long startNanos) {
+    record(System.nanoTime() - startNanos);
+  }
+
+  /**
+   * Find the bucket of a value
+   * @param value The value, which must not be negative
+   * @return The index of the bucket
+   */
+  static int index(long value) {
+    if (value < SUB_BUCKETS) return (int) value;
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    return (exponent - SUB_BITS + 1) * SUB_BUCKETS + (int) ((value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1));
+  }
+
+  /**
+   * Find the smallest value too big for a bucket
+   * @param index The index of the bucket
+   * @return The exclusive upper bound, or Long.MAX_VALUE for the last bucket
+   */
+  static long upperBound(int index) {
+    if (index < SUB_BUCKETS) return index + 1;
+    int shift = index / SUB_BUCKETS - 1;
+    long upper = (long) (SUB_BUCKETS + index % SUB_BUCKETS + 1) << shift;
+    return upper <= 0 ? Long.MAX_VALUE : upper;
+  }
+
+  /**
+   * Returns the number of values recorded
+   * @return The count
+   */
+  public long getCount() {
+    return count.sum();
+  }
+
+  /**
+   * Returns the largest value recorded, unscaled
+   * @return The largest value, or 0 if none have been recorded
+   */
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * Estimates a quantile from the buckets, as the upper end of the bucket holding it
+   * @param quantile The quantile, between 0 and 1
+   * @return The value, unscaled, which is at most 1/16 too high
+   */
+  public long getQuantile(double quantile) {
+    long[] counts = snapshot();
+    long total = 0;
+    for (long bucket : counts) total += bucket;
+    if (total == 0) return 0;
+
+    long rank = Math.max(1, (long) Math.ceil(quantile * total));
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= rank) return Math.min(upperBound(i) - 1, getMax());
+    }
+    return getMax();
+  }
+
+  private long[] snapshot() {
+    long[] counts = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) counts[i] = buckets.get(i);
+    return counts;
+  }
+
+  @Override
+  public String getType() {
+    return "histogram";
+  }
+
+  /**
+   * Writes a cumulative bucket for each bucket in use, rather than every bucket, which keeps the dump short while
+   * still giving exact counts at each bound written
+   */
+  @Override
+  void writeSamples(StringBuilder out) {
+    long[] counts = snapshot();
+    long cumulative = 0;
+    for (int i = 0; i < counts.length; i++) {
+      if (counts[i] == 0) continue;
+      cumulative += counts[i];
+      //The bound is inclusive, as in OpenMetrics
+      out.append(getName()).append("_bucket{le=\"").append((upperBound(i) - 1) * scale).append("\"} ")
+          .append(cumulative).append('\n');
+    }
+    out.append(getName()).append("_bucket{le=\"+Inf\"} ").append(cumulative).append('\n');
+    out.append(getName()).append("_count ").append(cumulative).append('\n');
+    out.append(getName()).append("_sum ").append(sum.sum() * scale).append('\n');
+  }
+
+  @Override
+  void addAttributes(Map<String, Object> attributes) {
+    attributes.put(getName() + "_count", getCount());
+    attributes.put(getName() + "_sum", sum.sum() * scale);
+    attributes.put(getName() + "_max", getMax() * scale);
+    for (double quantile : QUANTILES) {
+      attributes.put(getName() + "_p" + Math.round(quantile * 100), getQuantile(quantile) * scale);
+    }
+  }
+}
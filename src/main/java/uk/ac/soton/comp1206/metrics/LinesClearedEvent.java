@@ -0,0 +1,22 @@
+package uk.ac.soton.comp1206.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Lines cleared by a placement
+ */
+@Name("uk.ac.soton.comp1206.LinesCleared")
+@Label("Lines Cleared")
+@Category({"TetrECS", "Game"})
+@StackTrace(false)
+public class LinesClearedEvent extends Event {
+  @Label("Lines")
+  public int lines;
+
+  @Label("Blocks")
+  public int blocks;
+}
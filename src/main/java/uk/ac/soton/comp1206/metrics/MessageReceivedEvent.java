@@ -0,0 +1,22 @@
+package uk.ac.soton.comp1206.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A message from the server, lasting as long as relaying it to the listeners
+ */
+@Name("uk.ac.soton.comp1206.MessageReceived")
+@Label("Message Received")
+@Category({"TetrECS", "Network"})
+@StackTrace(false)
+public class MessageReceivedEvent extends Event {
+  @Label("Command")
+  public String command;
+
+  @Label("Length")
+  public int length;
+}
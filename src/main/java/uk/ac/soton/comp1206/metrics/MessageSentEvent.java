@@ -0,0 +1,22 @@
+package uk.ac.soton.comp1206.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A message sent to the server, lasting as long as handing it to the web socket
+ */
+@Name("uk.ac.soton.comp1206.MessageSent")
+@Label("Message Sent")
+@Category({"TetrECS", "Network"})
+@StackTrace(false)
+public class MessageSentEvent extends Event {
+  @Label("Command")
+  public String command;
+
+  @Label("Length")
+  public int length;
+}
@@ -0,0 +1,57 @@
+package uk.ac.soton.comp1206.metrics;
+
+import java.util.Map;
+
+/**
+ * A named measurement held by the Metrics registry. Names follow OpenMetrics, in lower case with underscores, such as
+ * tetrecs_pieces_placed.
+ */
+public abstract class Metric {
+  private final String name;
+  private final String help;
+
+  /**
+   * Create a metric
+   * @param name The name of the metric family
+   * @param help A short description
+   */
+  protected Metric(String name, String help) {
+    if (!name.matches("[a-zA-Z_][a-zA-Z0-9_]*")) throw new IllegalArgumentException("Invalid metric name: " + name);
+    this.name = name;
+    this.help = help;
+  }
+
+  /**
+   * Returns the name of the metric family
+   * @return The name
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns the description
+   * @return The description
+   */
+  public String getHelp() {
+    return help;
+  }
+
+  /**
+   * Returns the OpenMetrics type, such as counter
+   * @return The type
+   */
+  public abstract String getType();
+
+  /**
+   * Writes the samples of this metric in the OpenMetrics text format, without the TYPE and HELP lines
+   * @param out The text to append to
+   */
+  abstract void writeSamples(StringBuilder out);
+
+  /**
+   * Adds the current values of this metric as JMX attributes
+   * @param attributes The attributes, by name
+   */
+  abstract void addAttributes(Map<String, Object> attributes);
+}
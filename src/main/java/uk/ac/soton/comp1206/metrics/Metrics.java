@@ -0,0 +1,190 @@
+package uk.ac.soton.comp1206.metrics;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The registry of every metric in the game. Metrics are created once, usually into a static field of the class which
+ * records them, so recording never has to look a metric up.
+ *
+ * Once published, the metrics can be read over JMX as attributes of one MBean, and are written to an OpenMetrics text
+ * file every DUMP_INTERVAL seconds and on shutdown. The interval can be changed with the tetrecs.metrics.interval
+ * system property, where 0 turns the file off.
+ */
+public class Metrics {
+  private static final Logger logger = LogManager.getLogger(Metrics.class);
+
+  /**
+   * The file the metrics are written to, in the working directory
+   */
+  public static final String METRICS_FILE = "metrics.txt";
+
+  /**
+   * The name of the MBean holding the metrics
+   */
+  public static final String OBJECT_NAME = "uk.ac.soton.comp1206:type=Metrics";
+
+  /**
+   * The default number of seconds between writes of the metrics file
+   */
+  private static final long DUMP_INTERVAL = 15;
+
+  private static final Metrics metrics = new Metrics();
+
+  private final Map<String, Metric> registered = new ConcurrentSkipListMap<>();
+  private ScheduledExecutorService dumper;
+  private Path file;
+
+  /**
+   * Returns the registry used by the game
+   * @return The registry
+   */
+  public static Metrics get() {
+    return metrics;
+  }
+
+  /**
+   * Returns the counter with the given name, creating it if needed
+   * @param name The name
+   * @param help A short description
+   * @return The counter
+   */
+  public Counter counter(String name, String help) {
+    return register(new Counter(name, help), Counter.class);
+  }
+
+  /**
+   * Returns the histogram with the given name, creating it if needed
+   * @param name The name, ending in the unit it is published in, such as _seconds
+   * @param help A short description
+   * @param scale What each recorded value is multiplied by when published, such as 1e-9 for nanoseconds as seconds
+   * @return The histogram
+   */
+  public Histogram histogram(String name, String help, double scale) {
+    return register(new Histogram(name, help, scale), Histogram.class);
+  }
+
+  /**
+   * Adds a gauge, replacing any gauge with the same name
+   * @param name The name
+   * @param help A short description
+   * @param value Reads the value when the metrics are published
+   */
+  public void gauge(String name, String help, DoubleSupplier value) {
+    var gauge = new Gauge(name, help, value);
+    var existing = registered.put(name, gauge);
+    if (existing != null && !(existing instanceof Gauge)) {
+      registered.put(name, existing);
+      throw new IllegalArgumentException(name + " is already a " + existing.getType());
+    }
+  }
+
+  private <T extends Metric> T register(T metric, Class<T> type) {
+    var existing = registered.putIfAbsent(metric.getName(), metric);
+    if (existing == null) return metric;
+    if (!type.isInstance(existing)) {
+      throw new IllegalArgumentException(metric.getName() + " is already a " + existing.getType());
+    }
+    return type.cast(existing);
+  }
+
+  /**
+   * Returns every metric, sorted by name
+   * @return The metrics
+   */
+  public Collection<Metric> getMetrics() {
+    return registered.values();
+  }
+
+  /**
+   * Publishes the metrics over JMX and starts writing the metrics file, unless already started. Failures are logged
+   * rather than thrown, so the game runs without metrics instead of not at all.
+   */
+  public synchronized void start() {
+    if (dumper != null) return;
+
+    gauge("tetrecs_heap_used_bytes", "Heap in use", () -> {
+      var runtime = Runtime.getRuntime();
+      return runtime.totalMemory() - runtime.freeMemory();
+    });
+
+    try {
+      var server = ManagementFactory.getPlatformMBeanServer();
+      var name = new ObjectName(OBJECT_NAME);
+      if (!server.isRegistered(name)) server.registerMBean(new MetricsMBean(this), name);
+    } catch (JMException exception) {
+      logger.error("Unable to publish metrics over JMX: " + exception);
+    }
+
+    long interval = Long.getLong("tetrecs.metrics.interval", DUMP_INTERVAL);
+    dumper = Executors.newSingleThreadScheduledExecutor(task -> {
+      var thread = new Thread(task, "Metrics");
+      thread.setDaemon(true);
+      return thread;
+    });
+    if (interval > 0) {
+      file = Path.of(METRICS_FILE);
+      dumper.scheduleWithFixedDelay(this::dump, interval, interval, TimeUnit.SECONDS);
+      logger.info("Writing metrics to " + file + " every " + interval + "s");
+    }
+  }
+
+  /**
+   * Writes the metrics file one last time and stops writing it
+   */
+  public synchronized void stop() {
+    if (dumper == null) return;
+    dumper.shutdownNow();
+    dumper = null;
+    dump();
+  }
+
+  /**
+   * Writes every metric in the OpenMetrics text format
+   * @return The text, ending with the EOF marker
+   */
+  public String toOpenMetrics() {
+    var out = new StringBuilder();
+    for (var metric : registered.values()) {
+      out.append("# TYPE ").append(metric.getName()).append(' ').append(metric.getType()).append('\n');
+      out.append("# HELP ").append(metric.getName()).append(' ').append(metric.getHelp()).append('\n');
+      metric.writeSamples(out);
+    }
+    out.append("# EOF\n");
+    return out.toString();
+  }
+
+  /**
+   * Replaces the metrics file, through a temporary file so a reader never sees half a dump
+   */
+  private void dump() {
+    if (file == null) return;
+    try {
+      var temp = Files.createTempFile(file.toAbsolutePath().getParent(), "metrics", ".tmp");
+      Files.writeString(temp, toOpenMetrics(), StandardCharsets.UTF_8);
+      try {
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException exception) {
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException exception) {
+      logger.error("Unable to write metrics to " + file + ": " + exception);
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package uk.ac.soton.comp1206.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.ReflectionException;
+
+/**
+ * Shows every metric as a read only JMX attribute. Counters have a _total attribute, gauges one named after them, and
+ * histograms their count, sum, max and quantiles. The attributes are worked out again each time, so metrics created
+ * after the MBean was registered are included.
+ */
+class MetricsMBean implements DynamicMBean {
+  private final Metrics metrics;
+
+  MetricsMBean(Metrics metrics) {
+    this.metrics = metrics;
+  }
+
+  private Map<String, Object> attributes() {
+    var attributes = new TreeMap<String, Object>();
+    for (var metric : metrics.getMetrics()) metric.addAttributes(attributes);
+    return attributes;
+  }
+
+  @Override
+  public Object getAttribute(String attribute) throws AttributeNotFoundException {
+    var value = attributes().get(attribute);
+    if (value == null) throw new AttributeNotFoundException("No such metric: " + attribute);
+    return value;
+  }
+
+  @Override
+  public AttributeList getAttributes(String[] names) {
+    var attributes = attributes();
+    var list = new AttributeList();
+    for (var name : names) {
+      var value = attributes.get(name);
+      if (value != null) list.add(new Attribute(name, value));
+    }
+    return list;
+  }
+
+  @Override
+  public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+    throw new AttributeNotFoundException("Metrics are read only: " + attribute.getName());
+  }
+
+  @Override
+  public AttributeList setAttributes(AttributeList attributes) {
+    return new AttributeList();
+  }
+
+  @Override
+  public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+    throw new ReflectionException(new NoSuchMethodException(actionName), "Metrics have no operations");
+  }
+
+  @Override
+  public MBeanInfo getMBeanInfo() {
+    var attributes = attributes();
+    var infos = new MBeanAttributeInfo[attributes.size()];
+    int i = 0;
+    for (var entry : attributes.entrySet()) {
+      infos[i++] = new MBeanAttributeInfo(entry.getKey(), entry.getValue().getClass().getName(), entry.getKey(), true,
+          false, false);
+    }
+    return new MBeanInfo(Metrics.class.getName(), "TetrECS metrics", infos, null, null, null);
+  }
+}
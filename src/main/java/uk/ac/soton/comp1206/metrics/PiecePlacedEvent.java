@@ -0,0 +1,35 @@
+package uk.ac.soton.comp1206.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A player's attempt to place a piece, lasting from the check that it fits until it has been played on the grid.
+ * Placements made by bots searching copies of the game are not recorded.
+ */
+@Name("uk.ac.soton.comp1206.PiecePlaced")
+@Label("Piece Placed")
+@Category({"TetrECS", "Game"})
+@Description("A piece placed by the player, timing canPlayPiece and playPiece")
+@StackTrace(false)
+public class PiecePlacedEvent extends Event {
+  @Label("Piece")
+  public String piece;
+
+  @Label("Rotation")
+  public int rotation;
+
+  @Label("X")
+  public int x;
+
+  @Label("Y")
+  public int y;
+
+  @Label("Placed")
+  @Description("False if the piece did not fit")
+  public boolean placed;
+}
@@ -0,0 +1,22 @@
+package uk.ac.soton.comp1206.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A change of scene, lasting from cleaning up the old scene until the new one is shown
+ */
+@Name("uk.ac.soton.comp1206.SceneLoaded")
+@Label("Scene Loaded")
+@Category({"TetrECS", "UI"})
+@StackTrace(false)
+public class SceneLoadedEvent extends Event {
+  @Label("From")
+  public String from;
+
+  @Label("To")
+  public String to;
+}
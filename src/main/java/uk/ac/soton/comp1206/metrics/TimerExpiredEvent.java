@@ -0,0 +1,21 @@
+package uk.ac.soton.comp1206.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A countdown which ran out before a piece was played, lasting as long as the game loop takes to handle it
+ */
+@Name("uk.ac.soton.comp1206.TimerExpired")
+@Label("Timer Expired")
+@Category({"TetrECS", "Game"})
+@StackTrace(false)
+public class TimerExpiredEvent extends Event {
+  @Label("Delay")
+  @Timespan(Timespan.MILLISECONDS)
+  public long delay;
+}
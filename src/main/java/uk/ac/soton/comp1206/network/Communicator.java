@@ -5,9 +5,10 @@ import javafx.scene.control.Alert;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import uk.ac.soton.comp1206.event.CommunicationsListener;
-
-import java.util.ArrayList;
-import java.util.List;
+import uk.ac.soton.comp1206.metrics.Histogram;
+import uk.ac.soton.comp1206.metrics.MessageReceivedEvent;
+import uk.ac.soton.comp1206.metrics.MessageSentEvent;
+import uk.ac.soton.comp1206.metrics.Metrics;
 
 /**
  * Uses web sockets to talk to a web socket server and relays communication to attached listeners
@@ -18,10 +19,15 @@ public class Communicator {
 
     private static final Logger logger = LogManager.getLogger(Communicator.class);
 
+    private static final Histogram sent = Metrics.get().histogram("tetrecs_messages_sent_chars",
+        "Length of each message sent to the server", 1);
+    private static final Histogram received = Metrics.get().histogram("tetrecs_messages_received_chars",
+        "Length of each message received from the server", 1);
+
     /**
-     * Attached communication listeners listening to messages on this Communicator. Each will be sent any messages.
+     * Attached communication listeners listening to messages on this Communicator, each sent the messages it handles
      */
-    private final List<CommunicationsListener> handlers = new ArrayList<>();
+    private final MessageRelay relay = new MessageRelay();
 
     private WebSocket ws = null;
 
@@ -88,8 +94,17 @@ public class Communicator {
      */
     public void send(String message) {
         logger.info("Sending message: " + message);
+        sent.record(message.length());
 
+        var event = new MessageSentEvent();
+        event.begin();
         ws.sendText(message);
+        event.end();
+        if (event.shouldCommit()) {
+            event.command = MessageParser.getCommand(message);
+            event.length = message.length();
+            event.commit();
+        }
     }
 
     /**
@@ -97,14 +112,23 @@ public class Communicator {
      * @param listener the listener to add
      */
     public void addListener(CommunicationsListener listener) {
-        this.handlers.add(listener);
+        relay.addListener(listener);
+    }
+
+    /**
+     * Add a new listener to receive only the messages from the server with the given command
+     * @param command the command, such as SCORES
+     * @param listener the listener to add
+     */
+    public void addListener(String command, CommunicationsListener listener) {
+        relay.addListener(command, listener);
     }
 
     /**
      * Clear all current listeners
      */
     public void clearListeners() {
-        this.handlers.clear();
+        relay.clearListeners();
     }
 
     /** Receive a message from the server. Relay to any attached listeners
@@ -114,9 +138,16 @@ public class Communicator {
      */
     private void receive(WebSocket websocket, String message) {
         logger.info("Received: " + message);
-
-        for(CommunicationsListener handler : handlers) {
-            handler.receiveCommunication(message);
+        received.record(message.length());
+
+        var event = new MessageReceivedEvent();
+        event.begin();
+        relay.relay(message);
+        event.end();
+        if (event.shouldCommit()) {
+            event.command = MessageParser.getCommand(message);
+            event.length = message.length();
+            event.commit();
         }
     }
 
@@ -0,0 +1,143 @@
+package uk.ac.soton.comp1206.network;
+
+import java.util.ArrayList;
+import java.util.List;
+import javafx.util.Pair;
+import org.javatuples.Triplet;
+
+/**
+ * Reads the messages sent by the server. A message is a command, such as SCORES, optionally followed by a space and
+ * a payload. List payloads have one entry a line, and the fields of an entry are separated by colons.
+ *
+ * Each payload is walked once with indexOf, so no regular expressions are run and no intermediate arrays of lines or
+ * fields are made, which matters for score lists with thousands of players. Blank lines are skipped.
+ */
+public class MessageParser {
+
+    /**
+     * Get the command of a message
+     * @param message the message
+     * @return everything before the first space, or the whole message if there is no space
+     */
+    public static String getCommand(String message) {
+        int space = message.indexOf(' ');
+        return space < 0 ? message : message.substring(0, space);
+    }
+
+    /**
+     * Get the payload of a message
+     * @param message the message
+     * @return everything after the first space, or an empty string if there is no space
+     */
+    public static String getPayload(String message) {
+        int space = message.indexOf(' ');
+        return space < 0 ? "" : message.substring(space + 1);
+    }
+
+    /**
+     * Read the payload of a PIECE message
+     * @param payload the payload
+     * @return the piece number
+     * @throws NumberFormatException if the payload is not a number
+     */
+    public static int parsePiece(String payload) {
+        return Integer.parseInt(payload.strip());
+    }
+
+    /**
+     * Read the payload of a SCORES message, one name:score:lives line for each player in the channel
+     * @param payload the payload
+     * @return the name, score and lives of each player, in the order sent
+     * @throws IllegalArgumentException if a line is missing a field or the score is not a number
+     */
+    public static List<Triplet<String, Integer, String>> parseScores(String payload) {
+        var scores = new ArrayList<Triplet<String, Integer, String>>();
+        int start = 0;
+        while (start < payload.length()) {
+            int end = lineEnd(payload, start);
+            if (end > start) {
+                int first = field(payload, start, end);
+                int second = field(payload, first + 1, end);
+                //Lives are the last field, which may itself hold colons
+                scores.add(new Triplet<>(payload.substring(start, first),
+                    Integer.parseInt(payload, first + 1, second, 10), payload.substring(second + 1, end)));
+            }
+            start = end + 1;
+        }
+        return scores;
+    }
+
+    /**
+     * Read the payload of a HISCORES message, one name:score line for each score
+     * @param payload the payload
+     * @return the name and score of each line, in the order sent
+     * @throws IllegalArgumentException if a line has no score or the score is not a number
+     */
+    public static List<Pair<String, Integer>> parseHiscores(String payload) {
+        var scores = new ArrayList<Pair<String, Integer>>();
+        int start = 0;
+        while (start < payload.length()) {
+            int end = lineEnd(payload, start);
+            if (end > start) {
+                int colon = field(payload, start, end);
+                scores.add(new Pair<>(payload.substring(start, colon), Integer.parseInt(payload, colon + 1, end, 10)));
+            }
+            start = end + 1;
+        }
+        return scores;
+    }
+
+    /**
+     * Read a payload with one entry a line, such as CHANNELS or USERS
+     * @param payload the payload
+     * @return the entries
+     */
+    public static String[] parseLines(String payload) {
+        var lines = new ArrayList<String>();
+        int start = 0;
+        while (start < payload.length()) {
+            int end = lineEnd(payload, start);
+            if (end > start) lines.add(payload.substring(start, end));
+            start = end + 1;
+        }
+        return lines.toArray(new String[0]);
+    }
+
+    /**
+     * Read the payload of a MSG message, the sender and their message separated by a colon
+     * @param payload the payload
+     * @return the sender and the message, which may itself hold colons
+     * @throws IllegalArgumentException if there is no colon
+     */
+    public static String[] parseChat(String payload) {
+        int colon = field(payload, 0, payload.length());
+        return new String[]{payload.substring(0, colon), payload.substring(colon + 1)};
+    }
+
+    /**
+     * Find the end of the line starting at the given index
+     * @param payload the payload
+     * @param start the start of the line
+     * @return the index of the next line break, or the length of the payload
+     */
+    private static int lineEnd(String payload, int start) {
+        int end = payload.indexOf('\n', start);
+        return end < 0 ? payload.length() : end;
+    }
+
+    /**
+     * Find the end of the field starting at the given index
+     * @param payload the payload
+     * @param start the start of the field
+     * @param end the end of the line
+     * @return the index of the colon ending the field
+     * @throws IllegalArgumentException if there is no colon before the end of the line
+     */
+    private static int field(String payload, int start, int end) {
+        int colon = payload.indexOf(':', start);
+        if (colon < 0 || colon >= end) {
+            throw new IllegalArgumentException("Missing field in: " + payload.substring(start, end));
+        }
+        return colon;
+    }
+}
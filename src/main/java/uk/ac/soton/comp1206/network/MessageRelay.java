@@ -0,0 +1,81 @@
+package uk.ac.soton.comp1206.network;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.event.CommunicationsListener;
+
+/**
+ * Hands each message from the server to the listeners interested in it. A listener can take every message, or only
+ * those starting with one command, so a message is only offered to the listeners which handle it rather than to every
+ * listener in turn.
+ *
+ * Messages arrive on the web socket thread while listeners are added and cleared from the JavaFX thread, so the
+ * listener lists are safe to change while a message is being relayed.
+ */
+public class MessageRelay {
+
+    private static final Logger logger = LogManager.getLogger(MessageRelay.class);
+
+    /**
+     * Listeners sent every message
+     */
+    private final List<CommunicationsListener> allMessages = new CopyOnWriteArrayList<>();
+
+    /**
+     * Listeners for each command
+     */
+    private final Map<String, List<CommunicationsListener>> byCommand = new ConcurrentHashMap<>();
+
+    /**
+     * Add a listener to be sent every message
+     * @param listener the listener to add
+     */
+    public void addListener(CommunicationsListener listener) {
+        allMessages.add(listener);
+    }
+
+    /**
+     * Add a listener to be sent only the messages with the given command
+     * @param command the command, such as SCORES
+     * @param listener the listener to add
+     */
+    public void addListener(String command, CommunicationsListener listener) {
+        byCommand.computeIfAbsent(command, key -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    /**
+     * Remove every listener
+     */
+    public void clearListeners() {
+        allMessages.clear();
+        byCommand.clear();
+    }
+
+    /**
+     * Send a message to every listener interested in it. A listener which fails is logged and the rest are still sent
+     * the message.
+     * @param message the message
+     */
+    public void relay(String message) {
+        for (var listener : allMessages) {
+            deliver(listener, message);
+        }
+        var listeners = byCommand.get(MessageParser.getCommand(message));
+        if (listeners == null) return;
+        for (var listener : listeners) {
+            deliver(listener, message);
+        }
+    }
+
+    private void deliver(CommunicationsListener listener, String message) {
+        try {
+            listener.receiveCommunication(message);
+        } catch (RuntimeException exception) {
+            logger.error("Unable to handle message " + MessageParser.getCommand(message) + ": " + exception);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import javafx.scene.Scene;
 import javafx.scene.paint.Color;
 import uk.ac.soton.comp1206.ui.GamePane;
 import uk.ac.soton.comp1206.ui.GameWindow;
+import uk.ac.soton.comp1206.ui.PerformanceOverlay;
 
 /**
  * A Base Scene used in the game. Handles common functionality between all scenes.
@@ -22,6 +23,10 @@ public abstract class BaseScene {
      * The scene UI componenet
      */
     protected Scene scene;
+    /**
+     * The performance overlay, shown over the scene with F3
+     */
+    protected PerformanceOverlay overlay;
 
     /**
      * Create a new scene, passing in the GameWindow the scene will be displayed in
@@ -50,9 +55,27 @@ public abstract class BaseScene {
         Scene scene = new Scene(root, previous.getWidth(), previous.getHeight(), Color.BLACK);
         scene.getStylesheets().add(getClass().getResource("/style/game.css").toExternalForm());
         this.scene = scene;
+
+        //Added last so it is drawn over everything else
+        overlay = new PerformanceOverlay(scene);
+        root.getChildren().add(overlay);
         return scene;
     }
 
+    /**
+     * Show the performance overlay if it is hidden, or hide it if it is shown
+     */
+    public void toggleOverlay() {
+        if (overlay != null) overlay.show(!overlay.isVisible());
+    }
+
+    /**
+     * Stop refreshing the performance overlay, when the scene is being replaced
+     */
+    public void stopOverlay() {
+        if (overlay != null) overlay.stop();
+    }
+
     /**
      * Get the JavaFX scene contained inside
      * @return JavaFX scene
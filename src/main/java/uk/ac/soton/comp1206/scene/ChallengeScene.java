@@ -4,14 +4,17 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.concurrent.atomic.AtomicBoolean;
 import javafx.animation.AnimationTimer;
 import javafx.animation.KeyFrame;
 import javafx.animation.KeyValue;
 import javafx.animation.Timeline;
+import javafx.application.Platform;
 import javafx.beans.binding.Bindings;
 import javafx.beans.property.SimpleDoubleProperty;
 import javafx.beans.property.SimpleIntegerProperty;
+import javafx.geometry.Pos;
 import javafx.scene.control.TextField;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.*;
@@ -21,14 +24,23 @@ import javafx.scene.text.Text;
 import javafx.util.Duration;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.bot.BestMoveSolver;
+import uk.ac.soton.comp1206.bot.ExpectimaxSearcher;
+import uk.ac.soton.comp1206.bot.HintCalculator;
+import uk.ac.soton.comp1206.bot.OpeningBook;
+import uk.ac.soton.comp1206.bot.SolverResult;
+import uk.ac.soton.comp1206.bot.WeightedEvaluator;
 import uk.ac.soton.comp1206.component.GameBlock;
 import uk.ac.soton.comp1206.component.GameBlockCoordinate;
 import uk.ac.soton.comp1206.component.GameBoard;
 import uk.ac.soton.comp1206.component.PieceBoard;
 import uk.ac.soton.comp1206.game.Game;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.Move;
 import uk.ac.soton.comp1206.ui.GamePane;
 import uk.ac.soton.comp1206.ui.GameWindow;
 import uk.ac.soton.comp1206.utility.Multimedia;
+import uk.ac.soton.comp1206.utility.TimedAnimationTimer;
 
 /**
  * The Single Player challenge scene. Holds the UI for the single player challenge mode in the game.
@@ -43,6 +55,10 @@ public class ChallengeScene extends BaseScene {
      * The programmatic representation of the game
      */
     protected Game game;
+    /**
+     * The pane holding everything in the scene
+     */
+    protected StackPane challengePane;
     /**
      * The board displaying the next piece
      */
@@ -57,12 +73,72 @@ public class ChallengeScene extends BaseScene {
      */
     protected GameBoard board;
 
+    /**
+     * The animation of the current countdown, stopped when a new countdown starts
+     */
+    protected Timeline timerTimeline;
+    protected AnimationTimer timerAnimation;
+
+    /**
+     * The number of columns and rows of the game board
+     */
+    private final int boardCols;
+    private final int boardRows;
+
+    /**
+     * The length of a frame at 60 frames per second, which hints should arrive within
+     */
+    private static final double FRAME_MILLIS = 1000.0 / 60;
+
+    /**
+     * The time budget for working out a hint, kept inside a single frame
+     */
+    private static final long HINT_BUDGET_MILLIS = 12;
+
+    /**
+     * The time budget for refining a hint with a deeper search
+     */
+    private static final long REFINE_BUDGET_MILLIS = 250;
+
+    /**
+     * Works out hints in the background
+     */
+    private HintCalculator hints;
+
+    /**
+     * Whether hints are being shown
+     */
+    private boolean hintsShown;
+
+    /**
+     * Describes the current hint and how long it took
+     */
+    private Text hintInfo;
+
+    /**
+     * The number of hints shown for the current position: the quick hint, then the refined hint
+     */
+    private int hintsReceived;
+
     /**
      * Create a new Single Player challenge scene
      * @param gameWindow the Game Window
      */
     public ChallengeScene(GameWindow gameWindow) {
+        this(gameWindow, 5, 5);
+    }
+
+    /**
+     * Create a new Single Player challenge scene with a board of the given size. Boards too large to show at once are
+     * displayed through a scrolling viewport.
+     * @param gameWindow the Game Window
+     * @param cols number of columns in the board
+     * @param rows number of rows in the board
+     */
+    public ChallengeScene(GameWindow gameWindow, int cols, int rows) {
         super(gameWindow);
+        this.boardCols = cols;
+        this.boardRows = rows;
         Multimedia.playMusic("music/game_start.wav", "music/game.wav");
         logger.info("Creating Challenge Scene");
     }
@@ -79,7 +155,7 @@ public class ChallengeScene extends BaseScene {
         root = new GamePane(gameWindow.getWidth(),gameWindow.getHeight());
 
         //Creates base pane
-        var challengePane = new StackPane();
+        challengePane = new StackPane();
         challengePane.setMaxWidth(gameWindow.getWidth());
         challengePane.setMaxHeight(gameWindow.getHeight());
         challengePane.getStyleClass().add("challenge-background");
@@ -107,6 +183,7 @@ public class ChallengeScene extends BaseScene {
         game.setNextPieceListener((nextPiece, followingPiece) -> {
             nextPieceBoard.displayPiece(nextPiece);
             followingPieceBoard.displayPiece(followingPiece);
+            requestHint();
         });
 
         game.setLineClearListener((linesCleared, coordinates) -> {
@@ -144,7 +221,20 @@ public class ChallengeScene extends BaseScene {
         highScore.getStyleClass().add("hiscore");
         highScore.setText("HiScore: " + highScoreValue);
 
-        var vBox = new VBox(highScore, level, score, lives, multiplier);
+        //Create survival UI component, showing the share of pieces which can still be played
+        var survival = new Text("Survival: 100%");
+        survival.getStyleClass().add("lives");
+        game.setDeadBoardListener((dead, chance) -> {
+            if (dead) {
+                survival.setText("No moves left!");
+                survival.setFill(Color.RED);
+            } else {
+                survival.setText(String.format("Survival: %.0f%%", chance * 100));
+                survival.setFill(chance < 0.5 ? Color.ORANGE : Color.YELLOW);
+            }
+        });
+
+        var vBox = new VBox(highScore, level, score, lives, multiplier, survival);
         vBox.setTranslateX(-40);
         vBox.setTranslateY(20);
 
@@ -179,14 +269,17 @@ public class ChallengeScene extends BaseScene {
             );
             timeline.setAutoReverse(true);
             timeline.setCycleCount(1);
-            AnimationTimer animationTimer = new AnimationTimer() {
+            AnimationTimer animationTimer = new TimedAnimationTimer("ChallengeScene.timerBar") {
                 @Override
-                public void handle(long now) {
+                protected void tick(long now) {
                     timer.setWidth(width.get());
                     timer.setFill(Color.rgb(255, notRed.get(), notRed.get()));
                 }
             };
 
+            stopTimerAnimation();
+            timerTimeline = timeline;
+            timerAnimation = animationTimer;
             animationTimer.start();
             timeline.play();
             logger.info("Timer animation started");
@@ -206,6 +299,7 @@ public class ChallengeScene extends BaseScene {
 
         game.setPieceRotatedListener((piece -> {
             nextPieceBoard.displayPiece(piece);
+            requestHint();
         }));
 
         game.getLevelProperty().addListener(((observable, oldValue, newValue) -> {
@@ -215,12 +309,98 @@ public class ChallengeScene extends BaseScene {
 
         game.setOnGameLost(score1 -> startGameOver());
 
+        //Creates hint overlay, hidden until hints are turned on
+        //Refining needs every move scored first, which takes too long on boards larger than can be shown at once
+        var evaluator = WeightedEvaluator.load();
+        var refiner = boardCols > GameBoard.MAX_VISIBLE || boardRows > GameBoard.MAX_VISIBLE
+            ? null : new ExpectimaxSearcher(evaluator);
+        //The book file is only opened once the first hint is asked for, on the hint thread
+        var book = new OpeningBook(Path.of(OpeningBook.BOOK_FILE), evaluator.fingerprint());
+        hints = new HintCalculator(new BestMoveSolver(evaluator), HINT_BUDGET_MILLIS, refiner, REFINE_BUDGET_MILLIS,
+            book);
+        hintInfo = new Text();
+        hintInfo.getStyleClass().add("hint");
+        hintInfo.setVisible(false);
+        challengePane.getChildren().add(hintInfo);
+        StackPane.setAlignment(hintInfo, Pos.TOP_LEFT);
+        hintInfo.setTranslateX(10);
+        hintInfo.setTranslateY(10);
+
         aim = new GameBlockCoordinate(2, 2);
     }
 
     @Override
     public void cleanup() {
         game.cancelTimer();
+        if (hints != null) hints.shutdown();
+    }
+
+    /**
+     * Stops the animation of the previous countdown, so it does not fight over the timer bar with a new one
+     */
+    protected void stopTimerAnimation() {
+        if (timerTimeline != null) timerTimeline.stop();
+        if (timerAnimation != null) timerAnimation.stop();
+    }
+
+    /**
+     * Turns hints on or off
+     */
+    protected void toggleHints() {
+        if (hints == null) return;
+        hintsShown = !hintsShown;
+        logger.info("Hints " + (hintsShown ? "on" : "off"));
+        hintInfo.setVisible(hintsShown);
+        if (hintsShown) {
+            requestHint();
+        } else {
+            hints.cancel();
+            board.clearHint();
+        }
+    }
+
+    /**
+     * Starts working out a hint for the current position in the background, dropping any hint for an earlier position
+     */
+    protected void requestHint() {
+        if (hints == null || !hintsShown) return;
+        board.clearHint();
+        hintsReceived = 0;
+        long requested = System.nanoTime();
+        hints.request(game.snapshot(), Platform::runLater, result -> showHint(result, requested));
+    }
+
+    /**
+     * Shows a hint on the board, along with how long it took to arrive. The quick hint should arrive within a frame;
+     * the refined hint which follows it takes longer. A position in the opening book gets a single hint straight away.
+     * @param result The hint
+     * @param requested When the hint was requested, from System.nanoTime
+     */
+    private void showHint(SolverResult result, long requested) {
+        boolean refined = ++hintsReceived > 1;
+        double latency = (System.nanoTime() - requested) / 1e6;
+        double search = result.getElapsedNanos() / 1e6;
+        var timing = String.format("%.1f ms (search %.1f ms, %d positions)", latency, search, result.getPositions());
+        //Hints from the opening book evaluate no positions
+        boolean booked = result.hasMove() && result.getPositions() == 0;
+        var label = booked ? "Book hint: " : refined ? "Refined hint: " : "Hint: ";
+        hintInfo.setFill(!refined && latency > FRAME_MILLIS ? Color.RED : Color.GOLD);
+
+        if (!result.hasMove()) {
+            hintInfo.setText(label + "no move\n" + timing);
+            return;
+        }
+
+        var engine = game.getEngine();
+        var piece = result.isSwap() ? engine.getFollowingPiece() : engine.getCurrentPiece();
+        int move = result.getMove();
+        int rotations = (Move.rotation(move) - piece.getRotation()) & 3;
+        board.showHint(GamePiece.getMask(piece.getType(), Move.rotation(move)), Move.x(move), Move.y(move));
+        hintInfo.setText(label + (result.isSwap() ? "swap, " : "") + "rotate " + rotations + "\n" + timing);
+
+        //The hint outline repaints the blocks underneath, so put the aim back
+        var aimed = board.getBlock(aim.getX(), aim.getY());
+        if (aimed != null) aimed.hover();
     }
 
     /**
@@ -262,7 +442,8 @@ public class ChallengeScene extends BaseScene {
      * @param block The new block being aimed at
      */
     protected void changeAim(GameBlock block) {
-        board.getBlock(aim.getX(), aim.getY()).unhover();
+        var previous = board.getBlock(aim.getX(), aim.getY());
+        if (previous != null) previous.unhover();
         block.hover();
         aim = new GameBlockCoordinate(block.getX(), block.getY());
         logger.info("Aim Updated: New aim x = " + aim.getX() + ", y = " + aim.getY());
@@ -274,8 +455,12 @@ public class ChallengeScene extends BaseScene {
      * @param y The increment for the y coordinate
      */
     protected void updateAim(int x, int y) {
-        board.getBlock(aim.getX(), aim.getY()).unhover();
+        var previous = board.getBlock(aim.getX(), aim.getY());
+        if (previous != null) previous.unhover();
         aim = aim.add(x, y);
+
+        //Bring the new aim into view on large boards
+        board.ensureVisible(aim.getX(), aim.getY());
         board.getBlock(aim.getX(), aim.getY()).hover();
         logger.info("Aim Updated: New aim x = " + aim.getX() + ", y = " + aim.getY());
     }
@@ -287,7 +472,7 @@ public class ChallengeScene extends BaseScene {
         logger.info("Starting a new challenge");
 
         //Start new game
-        game = new Game(5, 5);
+        game = new Game(boardCols, boardRows);
     }
 
     /**
@@ -332,6 +517,15 @@ public class ChallengeScene extends BaseScene {
                 case CLOSE_BRACKET, E, C:
                     rotatePiece(3);
                     break;
+                case EQUALS, ADD:
+                    board.zoom(-1);
+                    break;
+                case MINUS, SUBTRACT:
+                    board.zoom(1);
+                    break;
+                case H:
+                    toggleHints();
+                    break;
                 case ESCAPE:
                     gameWindow.startMenu();
                     break;
@@ -1,7 +1,5 @@
 package uk.ac.soton.comp1206.scene;
 
-import java.util.Timer;
-import java.util.TimerTask;
 import javafx.application.Platform;
 import javafx.geometry.Pos;
 import javafx.scene.control.Alert;
@@ -14,7 +12,9 @@ import javafx.scene.layout.*;
 import javafx.scene.text.Text;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.game.GameScheduler;
 import uk.ac.soton.comp1206.network.Communicator;
+import uk.ac.soton.comp1206.network.MessageParser;
 import uk.ac.soton.comp1206.ui.ChatBox;
 import uk.ac.soton.comp1206.ui.GamePane;
 import uk.ac.soton.comp1206.ui.GameWindow;
@@ -26,7 +26,7 @@ public class LobbyScene extends BaseScene {
   private final Logger logger = LogManager.getLogger(LobbyScene.class);
   private final Communicator communicator;
   private VBox channelsBox;
-  private Timer timer;
+  private GameScheduler.Deadline timer;
   private String currentChannel;
   private BorderPane mainPane;
   private BorderPane selectedChannelPane;
@@ -44,36 +44,32 @@ public class LobbyScene extends BaseScene {
 
   @Override
   public void initialise() {
-    communicator.addListener(message -> {
+    //Handles network protocols
+    communicator.addListener("CHANNELS", message -> {
+      var channels = MessageParser.parseLines(MessageParser.getPayload(message));
+      Platform.runLater(() -> updateChannels(channels));
+    });
+    communicator.addListener("JOIN", message -> {
+      var channel = MessageParser.getPayload(message);
       Platform.runLater(() -> {
-        //Handles network protocols
-        if (message.startsWith("CHANNELS ")) {
-          var channels = message.substring(9).split("\n");
-          Platform.runLater(() -> updateChannels(channels));
-        } else if (message.startsWith("JOIN ")) {
-          if (currentChannel == null) {
-            var channel = message.substring(5);
-            Platform.runLater(() -> joinChannel(channel));
-          }
-        } else if (message.startsWith("USERS ")) {
-          var users = message.substring(6).split("\n");
-          Platform.runLater(() -> updateUsers(users));
-        } else if (message.equals("HOST")) {
-          Platform.runLater(this::addStartButton);
-        } else if (message.equals("PARTED")) {
-          currentChannel = null;
-          Platform.runLater(() -> {
-            mainPane.setRight(null);
-            selectedChannelPane = null;
-          });
-        } else if (message.equals("START")) {
-          Platform.runLater(this::startGame);
-        } else if (message.startsWith("ERROR ")) {
-          var alert = new Alert(AlertType.ERROR, message.substring(6));
-          alert.showAndWait();
-        }
+        if (currentChannel == null) joinChannel(channel);
       });
     });
+    communicator.addListener("USERS", message -> {
+      var users = MessageParser.parseLines(MessageParser.getPayload(message));
+      Platform.runLater(() -> updateUsers(users));
+    });
+    communicator.addListener("HOST", message -> Platform.runLater(this::addStartButton));
+    communicator.addListener("PARTED", message -> Platform.runLater(() -> {
+      currentChannel = null;
+      mainPane.setRight(null);
+      selectedChannelPane = null;
+    }));
+    communicator.addListener("START", message -> Platform.runLater(this::startGame));
+    communicator.addListener("ERROR", message -> Platform.runLater(() -> {
+      var alert = new Alert(AlertType.ERROR, MessageParser.getPayload(message));
+      alert.showAndWait();
+    }));
     timerLoop();
   }
 
@@ -98,7 +94,7 @@ public class LobbyScene extends BaseScene {
     //Create scrollPane and channel VBox
     var scroller = new ScrollPane();
     channelsBox = new VBox();
-    updateChannels(new String[]{""});
+    updateChannels(new String[0]);
     scroller.setContent(channelsBox);
     scroller.getStyleClass().add("channelScroll");
     scroller.setFitToHeight(true);
@@ -155,7 +151,7 @@ public class LobbyScene extends BaseScene {
     channelsBox.getChildren().clear();
 
     //No channels to be added
-    if (channels[0].equals("")) {
+    if (channels.length == 0) {
       var label = new Text("There are currently no channels :(");
       label.getStyleClass().add("label");
       channelsBox.getChildren().add(label);
@@ -230,13 +226,7 @@ public class LobbyScene extends BaseScene {
 
   private void timerLoop() {
     communicator.send("LIST");
-    timer = new Timer();
-    timer.schedule(new TimerTask() {
-      @Override
-      public void run() {
-        timerLoop();
-      }
-    }, 5000);
+    timer = GameScheduler.shared().schedule(this::timerLoop, 5000);
   }
 
   private void startGame() {
@@ -28,6 +28,11 @@ public class MenuScene extends BaseScene {
 
     private static final Logger logger = LogManager.getLogger(MenuScene.class);
 
+    /**
+     * The numbers of columns and rows a player can choose from in the large board mode
+     */
+    private static final int[] LARGE_BOARD_SIZES = {32, 64, 256, 1024};
+
     /**
      * Create a new menu scene
      * @param gameWindow the Game Window this will be displayed in
@@ -85,12 +90,16 @@ public class MenuScene extends BaseScene {
 
         //Create menu buttons
         var playSoloButton = createButton("Single Player", buttonBox);
+        var playLargeButton = createButton("Large Board", buttonBox);
+        var playPuzzleButton = createButton("Puzzles", buttonBox);
         var playMultiButton = createButton("Multi Player", buttonBox);
         var instructionsButton = createButton("Instructions", buttonBox);
         var exitButton = createButton("Exit", buttonBox);
 
         //Bind the button action to the startGame method in the menu
         playSoloButton.setOnAction(this::startGame);
+        playLargeButton.setOnAction(event -> mainPane.setCenter(buildSizeBox(mainPane, buttonBox)));
+        playPuzzleButton.setOnAction(this::startPuzzles);
         playMultiButton.setOnAction(this::startMultiplayer);
         instructionsButton.setOnAction(this::startInstructions);
         exitButton.setOnAction(event -> {
@@ -114,6 +123,23 @@ public class MenuScene extends BaseScene {
         fade.play();
     }
 
+    /**
+     * Build the list of large board sizes, shown in place of the menu buttons
+     * @param mainPane the pane holding the menu buttons
+     * @param buttonBox the menu buttons, shown again when Back is pressed
+     * @return the list of sizes
+     */
+    private VBox buildSizeBox(BorderPane mainPane, VBox buttonBox) {
+        var sizeBox = new VBox();
+        for (int size : LARGE_BOARD_SIZES) {
+            var sizeButton = createButton(size + " x " + size, sizeBox);
+            sizeButton.setOnAction(event -> gameWindow.startChallenge(size, size));
+        }
+        var backButton = createButton("Back", sizeBox);
+        backButton.setOnAction(event -> mainPane.setCenter(buttonBox));
+        return sizeBox;
+    }
+
     @Override
     public void cleanup() {
         //No cleanup required
@@ -138,6 +164,10 @@ public class MenuScene extends BaseScene {
         gameWindow.startChallenge();
     }
 
+    private void startPuzzles(ActionEvent event) {
+        gameWindow.startPuzzle(0);
+    }
+
     private void startInstructions(ActionEvent event) {
         gameWindow.startInstructions();
     }
@@ -34,6 +34,7 @@ import uk.ac.soton.comp1206.ui.GamePane;
 import uk.ac.soton.comp1206.ui.GameWindow;
 import uk.ac.soton.comp1206.ui.Leaderboard;
 import uk.ac.soton.comp1206.utility.Multimedia;
+import uk.ac.soton.comp1206.utility.TimedAnimationTimer;
 
 /**
  * The UI scene responsible for showing the multiplayer game
@@ -177,14 +178,17 @@ public class MultiplayerScene extends ChallengeScene {
       );
       timeline.setAutoReverse(true);
       timeline.setCycleCount(1);
-      AnimationTimer animationTimer = new AnimationTimer() {
+      AnimationTimer animationTimer = new TimedAnimationTimer("MultiplayerScene.timerBar") {
         @Override
-        public void handle(long now) {
+        protected void tick(long now) {
           timer.setWidth(width.get());
           timer.setFill(Color.rgb(255, notRed.get(), notRed.get()));
         }
       };
 
+      stopTimerAnimation();
+      timerTimeline = timeline;
+      timerAnimation = animationTimer;
       animationTimer.start();
       timeline.play();
       logger.info("Timer animation started");
@@ -0,0 +1,153 @@
+package uk.ac.soton.comp1206.scene;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import javafx.animation.PauseTransition;
+import javafx.geometry.Pos;
+import javafx.scene.layout.StackPane;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Text;
+import javafx.util.Duration;
+import uk.ac.soton.comp1206.bot.PuzzleGenerator;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.Move;
+import uk.ac.soton.comp1206.game.Puzzle;
+import uk.ac.soton.comp1206.game.PuzzleGame;
+import uk.ac.soton.comp1206.ui.GameWindow;
+import uk.ac.soton.comp1206.utility.Multimedia;
+
+/**
+ * The UI scene for the puzzle mode, where the board has to be cleared with a fixed sequence of pieces. Puzzles are read
+ * from the puzzles file in the working directory, as written by the PuzzleGenerator, or from the puzzles bundled with
+ * the game if there is no such file. Solving a puzzle moves on to the next; failing one starts it again.
+ */
+public class PuzzleScene extends ChallengeScene {
+  /**
+   * The puzzles bundled with the game
+   */
+  private static final String PUZZLES_RESOURCE = "/puzzles/puzzles.txt";
+
+  /**
+   * How long the result is shown before the next puzzle is loaded
+   */
+  private static final Duration RESULT_DELAY = Duration.millis(1500);
+
+  private static List<Puzzle> puzzles;
+
+  private final int number;
+  private final Puzzle puzzle;
+  private PuzzleGame puzzleGame;
+  private Text status;
+
+  /**
+   * Create a new puzzle scene
+   * @param gameWindow the Game Window
+   * @param number the number of the puzzle to play, counting from 0 and wrapping round after the last
+   */
+  public PuzzleScene(GameWindow gameWindow, int number) {
+    super(gameWindow, getPuzzle(number).getCols(), getPuzzle(number).getRows());
+    this.number = Math.floorMod(number, getPuzzles().size());
+    this.puzzle = getPuzzle(number);
+  }
+
+  @Override
+  public void setupGame() {
+    logger.info("Starting puzzle " + (number + 1));
+    puzzleGame = new PuzzleGame(puzzle);
+    game = puzzleGame;
+  }
+
+  @Override
+  public void build() {
+    super.build();
+
+    status = new Text(describe());
+    status.getStyleClass().add("hint");
+    challengePane.getChildren().add(status);
+    StackPane.setAlignment(status, Pos.TOP_CENTER);
+    status.setTranslateY(10);
+
+    puzzleGame.setPuzzleListener(solved -> {
+      stopTimerAnimation();
+      if (solved) {
+        Multimedia.playAudio("sounds/lifegain.wav");
+        status.setText("Solved!");
+        status.setFill(Color.LIMEGREEN);
+      } else {
+        Multimedia.playAudio("sounds/fail.wav");
+        status.setText("Not cleared, try again");
+        status.setFill(Color.RED);
+      }
+      var pause = new PauseTransition(RESULT_DELAY);
+      pause.setOnFinished(event -> gameWindow.startPuzzle(solved ? number + 1 : number));
+      pause.play();
+    });
+  }
+
+  /**
+   * Shows the next placement of the solution, as long as the player has followed it so far
+   */
+  @Override
+  protected void toggleHints() {
+    int move = puzzleGame.getNextSolutionMove();
+    if (move == Move.TICK) {
+      status.setText(describe() + "\nNo hint once off the solution");
+      return;
+    }
+    var piece = game.getEngine().getCurrentPiece();
+    board.showHint(GamePiece.getMask(piece.getType(), Move.rotation(move)), Move.x(move), Move.y(move));
+  }
+
+  /**
+   * Puzzles have their own hints, so the hint shown is just cleared when the piece changes
+   */
+  @Override
+  protected void requestHint() {
+    if (board != null) board.clearHint();
+  }
+
+  private String describe() {
+    return "Puzzle " + (number + 1) + " of " + getPuzzles().size() + ": clear the board with " + puzzle.getMoves()
+        + " pieces";
+  }
+
+  private static Puzzle getPuzzle(int number) {
+    var all = getPuzzles();
+    return all.get(Math.floorMod(number, all.size()));
+  }
+
+  /**
+   * Loads the puzzles the first time they are needed
+   * @return The puzzles
+   */
+  private static synchronized List<Puzzle> getPuzzles() {
+    if (puzzles != null) return puzzles;
+
+    var file = Path.of(PuzzleGenerator.PUZZLES_FILE);
+    if (Files.exists(file)) {
+      try (var reader = Files.newBufferedReader(file)) {
+        var loaded = Puzzle.readAll(reader);
+        if (!loaded.isEmpty()) {
+          logger.info("Loaded " + loaded.size() + " puzzles from " + file);
+          puzzles = loaded;
+          return puzzles;
+        }
+      } catch (IOException | IllegalArgumentException exception) {
+        logger.error("Unable to load puzzles from " + file + ", using the bundled puzzles: " + exception);
+      }
+    }
+
+    try (var reader = new BufferedReader(new InputStreamReader(
+        PuzzleScene.class.getResourceAsStream(PUZZLES_RESOURCE), StandardCharsets.UTF_8))) {
+      puzzles = Puzzle.readAll(reader);
+      return puzzles;
+    } catch (IOException exception) {
+      throw new IllegalStateException("Unable to load the bundled puzzles", exception);
+    }
+  }
+}
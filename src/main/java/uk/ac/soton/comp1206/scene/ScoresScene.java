@@ -7,6 +7,7 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import javafx.application.Platform;
 import javafx.beans.property.ListProperty;
@@ -28,6 +29,7 @@ import org.apache.logging.log4j.Logger;
 import uk.ac.soton.comp1206.game.Game;
 import uk.ac.soton.comp1206.game.MultiplayerGame;
 import uk.ac.soton.comp1206.network.Communicator;
+import uk.ac.soton.comp1206.network.MessageParser;
 import uk.ac.soton.comp1206.ui.GamePane;
 import uk.ac.soton.comp1206.ui.GameWindow;
 import uk.ac.soton.comp1206.ui.Leaderboard;
@@ -162,17 +164,13 @@ public class ScoresScene extends BaseScene {
     }
 
     //HISCORE listener
-    communicator.addListener(message -> {
+    communicator.addListener("HISCORES", message -> {
+      var scores = MessageParser.parseHiscores(MessageParser.getPayload(message));
       Platform.runLater(() -> {
-        if (message.startsWith("HISCORES")) {
-          var formattedScores = message.substring(9).split("\n");
-          for (var fScore : formattedScores) {
-            addScore(fScore, remoteScores);
-          }
-
-          if (withinScores(remoteScores) != -1 && mainPane.getBottom() == null) {
-            buildNewScoreBox();
-          }
+        addScores(scores, remoteScores);
+
+        if (withinScores(remoteScores) != -1 && mainPane.getBottom() == null) {
+          buildNewScoreBox();
         }
       });
     });
@@ -305,6 +303,21 @@ public class ScoresScene extends BaseScene {
     }
   }
 
+  /**
+   * Adds many scores at once, keeping the highest first and, among equal scores, the earliest added first, the same
+   * order as adding each score in turn. The list is sorted once and replaced in one change rather than searched and
+   * changed for every score.
+   * @param scores the scores to add
+   * @param scoresListProperty the list of scores
+   */
+  private void addScores(List<Pair<String, Integer>> scores, ListProperty<Pair<String, Integer>> scoresListProperty) {
+    var merged = new ArrayList<Pair<String, Integer>>(scoresListProperty.size() + scores.size());
+    merged.addAll(scoresListProperty);
+    merged.addAll(scores);
+    merged.sort(Comparator.comparing(Pair<String, Integer>::getValue).reversed());
+    scoresListProperty.setAll(merged);
+  }
+
   private void writeOnlineScore() {
     int remotePosition = withinScores(remoteScores);
     if (remotePosition != -1 && !ScoresList.usernameProperty().get().equals("Enter Username")) {
@@ -12,6 +12,7 @@ import javafx.scene.text.TextFlow;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import uk.ac.soton.comp1206.network.Communicator;
+import uk.ac.soton.comp1206.network.MessageParser;
 import uk.ac.soton.comp1206.utility.Multimedia;
 
 /**
@@ -53,14 +54,12 @@ public class ChatBox extends BorderPane {
     this.setBottom(chatBox);
 
     //Listen for messages or nickname changed
-    communicator.addListener(message -> {
-      if (message.startsWith("MSG ")) {
-        var messageArray = message.substring(4).split(":");
-        Platform.runLater(() -> receiveMessage(messageArray));
-      } else if (message.startsWith("NICK ")) {
-        receiveMessage(new String[]{"SYSTEM", "Your nickname has been changed."});
-      }
+    communicator.addListener("MSG", message -> {
+      var messageArray = MessageParser.parseChat(MessageParser.getPayload(message));
+      Platform.runLater(() -> receiveMessage(messageArray));
     });
+    communicator.addListener("NICK", message ->
+        Platform.runLater(() -> receiveMessage(new String[]{"SYSTEM", "Your nickname has been changed."})));
 
     //Send messages
     sendButton.setOnAction(event -> {
@@ -3,6 +3,7 @@ package uk.ac.soton.comp1206.ui;
 import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
@@ -11,6 +12,9 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import uk.ac.soton.comp1206.App;
 import uk.ac.soton.comp1206.game.Game;
+import uk.ac.soton.comp1206.metrics.Histogram;
+import uk.ac.soton.comp1206.metrics.Metrics;
+import uk.ac.soton.comp1206.metrics.SceneLoadedEvent;
 import uk.ac.soton.comp1206.network.Communicator;
 import uk.ac.soton.comp1206.scene.*;
 
@@ -25,6 +29,9 @@ public class GameWindow {
 
     private static final Logger logger = LogManager.getLogger(GameWindow.class);
 
+    private static final Histogram sceneLoads = Metrics.get().histogram("tetrecs_scene_load_seconds",
+        "Time to clean up the old scene and build and show the new one", 1e-9);
+
     private final int width;
     private final int height;
 
@@ -87,6 +94,19 @@ public class GameWindow {
      */
     public void startChallenge() { loadScene(new ChallengeScene(this)); }
 
+    /**
+     * Display the single player challenge on a board of the given size
+     * @param cols number of columns in the board
+     * @param rows number of rows in the board
+     */
+    public void startChallenge(int cols, int rows) { loadScene(new ChallengeScene(this, cols, rows)); }
+
+    /**
+     * Displays a puzzle
+     * @param number the number of the puzzle, counting from 0
+     */
+    public void startPuzzle(int number) { loadScene(new PuzzleScene(this, number)); }
+
     /**
      * Displays the multiplayer scene
      */
@@ -123,6 +143,11 @@ public class GameWindow {
      * @param newScene new scene to load
      */
     public void loadScene(BaseScene newScene) {
+        long start = System.nanoTime();
+        var transition = new SceneLoadedEvent();
+        transition.begin();
+        var previous = currentScene;
+
         //Cleanup remains of the previous scene
         cleanup();
 
@@ -137,8 +162,22 @@ public class GameWindow {
             startMenu();
         });
 
+        //A filter, so scenes handling keys themselves cannot swallow the overlay key
+        scene.addEventFilter(KeyEvent.KEY_PRESSED, event -> {
+            if (event.getCode() != KeyCode.F3) return;
+            currentScene.toggleOverlay();
+            event.consume();
+        });
+
         //Initialise the scene when ready
         Platform.runLater(() -> currentScene.initialise());
+        sceneLoads.recordSince(start);
+        transition.end();
+        if (transition.shouldCommit()) {
+            transition.from = previous == null ? null : previous.getClass().getSimpleName();
+            transition.to = newScene.getClass().getSimpleName();
+            transition.commit();
+        }
     }
 
     /**
@@ -154,7 +193,10 @@ public class GameWindow {
      */
     public void cleanup() {
         logger.info("Clearing up previous scene");
-        if (currentScene != null) currentScene.cleanup();
+        if (currentScene != null) {
+            currentScene.stopOverlay();
+            currentScene.cleanup();
+        }
         communicator.clearListeners();
     }
 
@@ -0,0 +1,77 @@
+package uk.ac.soton.comp1206.ui;
+
+import javafx.animation.AnimationTimer;
+import javafx.geometry.Pos;
+import javafx.scene.Scene;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.StackPane;
+import javafx.scene.text.Text;
+import uk.ac.soton.comp1206.utility.PerformanceMonitor;
+
+/**
+ * A debug overlay showing frame times, runLater delay, heap use, garbage collection and the cost of each kind of
+ * AnimationTimer, refreshed a few times a second. Every scene has one, shown or hidden together with F3.
+ *
+ * While shown, the overlay keeps JavaFX pulsing every frame, so the frame times are measured even when nothing else
+ * is animating.
+ */
+public class PerformanceOverlay extends StackPane {
+
+    /**
+     * How often the readings are refreshed
+     */
+    private static final long REFRESH_NANOS = 500_000_000L;
+
+    private final Text readings = new Text();
+    private final AnimationTimer refresher;
+
+    /**
+     * Create an overlay measuring the given scene
+     * @param scene the scene
+     */
+    public PerformanceOverlay(Scene scene) {
+        getStyleClass().add("performance-overlay");
+        readings.getStyleClass().add("performance-overlay-text");
+        getChildren().add(readings);
+        setMouseTransparent(true);
+        setMaxSize(Region.USE_PREF_SIZE, Region.USE_PREF_SIZE);
+        StackPane.setAlignment(this, Pos.TOP_LEFT);
+
+        scene.addPreLayoutPulseListener(PerformanceMonitor::beforeLayout);
+        scene.addPostLayoutPulseListener(PerformanceMonitor::afterLayout);
+
+        refresher = new AnimationTimer() {
+            private long lastRefresh;
+
+            @Override
+            public void handle(long now) {
+                if (now - lastRefresh < REFRESH_NANOS) return;
+                lastRefresh = now;
+                readings.setText(PerformanceMonitor.report());
+            }
+        };
+        show(PerformanceMonitor.isEnabled());
+    }
+
+    /**
+     * Show or hide the overlay and turn the monitor on or off with it
+     * @param shown true to show the overlay
+     */
+    public void show(boolean shown) {
+        PerformanceMonitor.setEnabled(shown);
+        setVisible(shown);
+        if (shown) {
+            readings.setText("Measuring...");
+            refresher.start();
+        } else {
+            refresher.stop();
+        }
+    }
+
+    /**
+     * Stop refreshing, once the scene is no longer shown
+     */
+    public void stop() {
+        refresher.stop();
+    }
+}
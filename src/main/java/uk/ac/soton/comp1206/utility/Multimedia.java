@@ -5,9 +5,15 @@ import javafx.scene.media.MediaPlayer;
 import javafx.util.Duration;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.metrics.Histogram;
+import uk.ac.soton.comp1206.metrics.Metrics;
 
 public class Multimedia {
   private static final Logger logger = LogManager.getLogger(Multimedia.class);
+  private static final Histogram audioCalls = Metrics.get().histogram("tetrecs_audio_play_call_seconds",
+      "Time spent in playAudio loading the sound and asking it to play", 1e-9);
+  private static final Histogram audioStarts = Metrics.get().histogram("tetrecs_audio_start_seconds",
+      "Time from calling playAudio until the sound starts playing", 1e-9);
   private static MediaPlayer musicPlayer;
   private static MediaPlayer audioPlayer;
 
@@ -36,11 +42,14 @@ public class Multimedia {
 
   public static void playAudio(String file) {
     if (!audioEnabled) return;
+    long start = System.nanoTime();
     String toPlay = Multimedia.class.getResource("/" + file).toExternalForm();
     try {
       Media audio = new Media(toPlay);
       audioPlayer = new MediaPlayer(audio);
+      audioPlayer.setOnPlaying(() -> audioStarts.recordSince(start));
       audioPlayer.play();
+      audioCalls.recordSince(start);
     } catch (Exception e) {
       audioEnabled = false;
       e.printStackTrace();
@@ -0,0 +1,194 @@
+package uk.ac.soton.comp1206.utility;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javafx.application.Platform;
+
+/**
+ * Collects frame timings and JavaFX thread health for the performance overlay. Frame times are the gaps between
+ * pulses and are kept for the last FRAMES frames. The time AnimationTimers spend in each frame is summed by name
+ * between reports, so the many fadeOut timers of a line clear show as one row.
+ *
+ * JavaFX does not expose the length of the runLater queue, so the backlog is measured by posting a probe with runLater
+ * at each report and timing how long it waits to run.
+ *
+ * Everything apart from enabling is only called on the JavaFX thread. Nothing is recorded while the monitor is off.
+ */
+public class PerformanceMonitor {
+  /**
+   * The number of recent frames the percentiles are taken over
+   */
+  private static final int FRAMES = 240;
+
+  private static volatile boolean enabled;
+
+  private static final long[] frameTimes = new long[FRAMES];
+  private static final long[] layoutTimes = new long[FRAMES];
+  private static int frames;
+  private static long lastPulse;
+  private static long layoutStart;
+
+  private static final Map<String, long[]> timers = new LinkedHashMap<>();
+  private static int framesSinceReport;
+
+  private static long probeSent;
+  private static long probeLatency;
+  private static long maxProbeLatency;
+
+  private static long lastReport;
+  private static long lastGcCount;
+  private static long lastGcTime;
+
+  /**
+   * Whether timings are being recorded
+   * @return true if the monitor is on
+   */
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Start or stop recording. Starting clears anything recorded before.
+   * @param enabled true to record timings
+   */
+  public static void setEnabled(boolean enabled) {
+    if (enabled && !PerformanceMonitor.enabled) {
+      frames = 0;
+      lastPulse = 0;
+      framesSinceReport = 0;
+      timers.clear();
+      probeSent = 0;
+      maxProbeLatency = 0;
+      lastReport = System.nanoTime();
+      lastGcCount = gcCount();
+      lastGcTime = gcTime();
+    }
+    PerformanceMonitor.enabled = enabled;
+  }
+
+  /**
+   * Called before layout in each pulse
+   */
+  public static void beforeLayout() {
+    if (enabled) layoutStart = System.nanoTime();
+  }
+
+  /**
+   * Called after layout in each pulse, which marks the end of a frame
+   */
+  public static void afterLayout() {
+    if (!enabled) return;
+    long now = System.nanoTime();
+    if (lastPulse != 0) {
+      frameTimes[frames % FRAMES] = now - lastPulse;
+      layoutTimes[frames % FRAMES] = layoutStart == 0 ? 0 : now - layoutStart;
+      frames++;
+      framesSinceReport++;
+    }
+    lastPulse = now;
+    layoutStart = 0;
+  }
+
+  /**
+   * Add the time spent by one AnimationTimer in one frame
+   * @param name The name of the timer
+   * @param nanos The time spent
+   */
+  public static void recordTimer(String name, long nanos) {
+    var stats = timers.computeIfAbsent(name, key -> new long[3]);
+    stats[0]++;
+    stats[1] += nanos;
+    stats[2] = Math.max(stats[2], nanos);
+  }
+
+  /**
+   * Describe the timings since the last report, then start measuring the next runLater delay
+   * @return The report, one reading a line
+   */
+  public static String report() {
+    var text = new StringBuilder();
+    long now = System.nanoTime();
+    double seconds = Math.max(1, now - lastReport) / 1e9;
+
+    int count = Math.min(frames, FRAMES);
+    long[] sorted = Arrays.copyOf(frameTimes, count);
+    Arrays.sort(sorted);
+    long[] layout = Arrays.copyOf(layoutTimes, count);
+    Arrays.sort(layout);
+    text.append(String.format("%.0f fps, last %d frames (ms)%n", framesSinceReport / seconds, count));
+    text.append(String.format("  p50 %.1f  p95 %.1f  p99 %.1f  max %.1f%n", millis(sorted, 0.5),
+        millis(sorted, 0.95), millis(sorted, 0.99), millis(sorted, 1)));
+    text.append(String.format("  css+layout p95 %.2f  max %.2f%n", millis(layout, 0.95), millis(layout, 1)));
+
+    if (probeSent != 0) {
+      text.append(String.format("runLater waiting %.1f ms%n", (now - probeSent) / 1e6));
+    } else {
+      text.append(String.format("runLater delay %.2f ms, max %.2f ms%n", probeLatency / 1e6, maxProbeLatency / 1e6));
+    }
+
+    var runtime = Runtime.getRuntime();
+    long used = runtime.totalMemory() - runtime.freeMemory();
+    long gcCount = gcCount();
+    long gcTime = gcTime();
+    text.append(String.format("heap %d / %d MB, max %d MB%n", used >> 20, runtime.totalMemory() >> 20,
+        runtime.maxMemory() >> 20));
+    long collections = gcCount - lastGcCount;
+    text.append(String.format("gc %d in %.1f s, %d ms paused%s%n", collections, seconds, gcTime - lastGcTime,
+        collections == 0 ? "" : String.format(", %.1f ms each", (gcTime - lastGcTime) / (double) collections)));
+
+    if (!timers.isEmpty()) text.append("timers per frame (ms)").append(System.lineSeparator());
+    for (var entry : timers.entrySet()) {
+      long[] stats = entry.getValue();
+      text.append(String.format("  %-22s x%-4.0f avg %.3f  max %.3f%n", entry.getKey(),
+          stats[0] / (double) Math.max(1, framesSinceReport), stats[1] / 1e6 / Math.max(1, framesSinceReport),
+          stats[2] / 1e6));
+    }
+
+    timers.clear();
+    framesSinceReport = 0;
+    lastReport = now;
+    lastGcCount = gcCount;
+    lastGcTime = gcTime;
+    sendProbe();
+    return text.toString();
+  }
+
+  /**
+   * Post a probe to time the runLater queue, unless the last one is still waiting
+   */
+  private static void sendProbe() {
+    if (probeSent != 0) return;
+    long sent = System.nanoTime();
+    probeSent = sent;
+    Platform.runLater(() -> {
+      probeLatency = System.nanoTime() - sent;
+      maxProbeLatency = Math.max(maxProbeLatency, probeLatency);
+      probeSent = 0;
+    });
+  }
+
+  private static double millis(long[] sorted, double percentile) {
+    if (sorted.length == 0) return 0;
+    int index = (int) Math.ceil(percentile * sorted.length) - 1;
+    return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e6;
+  }
+
+  private static long gcCount() {
+    long count = 0;
+    for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+      count += Math.max(0, collector.getCollectionCount());
+    }
+    return count;
+  }
+
+  private static long gcTime() {
+    long time = 0;
+    for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+      time += Math.max(0, collector.getCollectionTime());
+    }
+    return time;
+  }
+}
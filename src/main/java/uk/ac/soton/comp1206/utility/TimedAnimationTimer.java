@@ -0,0 +1,36 @@
+package uk.ac.soton.comp1206.utility;
+
+import javafx.animation.AnimationTimer;
+
+/**
+ * An AnimationTimer which reports how long each frame's work takes to the PerformanceMonitor, under a name shared by
+ * every timer doing the same job. Nothing is timed while the monitor is off.
+ */
+public abstract class TimedAnimationTimer extends AnimationTimer {
+  private final String name;
+
+  /**
+   * Create a timer
+   * @param name The name the timer's work is reported under, such as "GameBlock.fadeOut"
+   */
+  public TimedAnimationTimer(String name) {
+    this.name = name;
+  }
+
+  @Override
+  public final void handle(long now) {
+    if (!PerformanceMonitor.isEnabled()) {
+      tick(now);
+      return;
+    }
+    long start = System.nanoTime();
+    tick(now);
+    PerformanceMonitor.recordTimer(name, System.nanoTime() - start);
+  }
+
+  /**
+   * Called in every frame while the timer is active, in place of handle
+   * @param now The timestamp of the current frame in nanoseconds
+   */
+  protected abstract void tick(long now);
+}